@@ -0,0 +1,65 @@
+package com.finadem.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing a list of Transaction entities to JSON, as the NDJSON export writes
+ * them, with an ObjectMapper configured like Spring Boot's. Run with {@code mvn test -Pjmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransactionSerializationBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    // A history page, and a month of transactions for an export
+    @Param({"20", "1000"})
+    private int transactions;
+
+    private ObjectMapper objectMapper;
+    private List<Transaction> transactionList;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        transactionList = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            transactionList.add(Transaction.builder()
+                    .transactionId((long) i)
+                    .iban("DE89370400440532013000")
+                    .transactingAccount("GB29NWBK60161331926819")
+                    .amount(new BigDecimal("25.00").add(BigDecimal.valueOf(i)))
+                    .type(i % 2 == 0 ? TransactionType.DEBIT : TransactionType.CREDIT)
+                    .status(TransactionStatus.SUCCESS)
+                    .source(TransactionSource.ONLINE_FUND_TRANSFER)
+                    .transactionRemarks("Transfer " + i)
+                    .currency(CurrencyEnum.EUR)
+                    .timestamp(START.plusMinutes(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactionList);
+    }
+}
@@ -0,0 +1,63 @@
+package com.finadem.helper;
+
+import com.finadem.configurations.IbanConfig;
+import org.iban4j.CountryCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the IBAN and customer id helpers used on every account opening and transfer:
+ * validating an IBAN, generating a random one for the configured bank and generating a
+ * customer id. Run with {@code mvn test -Pjmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccountHelperBenchmark {
+    private static final int CUSTOMER_ID_DIGITS = 8;
+
+    private AccountHelper accountHelper;
+
+    // Only isIbanValid takes an IBAN, so the others are not repeated per value
+    @State(Scope.Benchmark)
+    public static class IbanState {
+        // A transfer validates the counterparty IBAN, which may be of another country
+        @Param({"DE89370400440532013000", "GB29NWBK60161331926819"})
+        private String iban;
+    }
+
+    @Setup
+    public void setUp() {
+        // The values of iban.countryCode and iban.bankCode in application.properties
+        accountHelper = new AccountHelper(new IbanConfig() {
+            @Override
+            public CountryCode getCountryCode() {
+                return CountryCode.DE;
+            }
+
+            @Override
+            public String getBankCode() {
+                return "78956432";
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean isIbanValid(IbanState ibanState) {
+        return accountHelper.isIbanValid(ibanState.iban);
+    }
+
+    @Benchmark
+    public String generateIBAN() {
+        return accountHelper.generateIBAN();
+    }
+
+    @Benchmark
+    public Long generateCustomerId() {
+        return accountHelper.generateCustomerId(CUSTOMER_ID_DIGITS);
+    }
+}
@@ -0,0 +1,61 @@
+package com.finadem.service;
+
+import com.finadem.entity.Account;
+import com.finadem.enums.AccountStatus;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.VersionedAccountData;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the AccountDataRequest returned for an account: copied field by field from a
+ * loaded Account entity, and built by the constructor the account information query selects into.
+ * Run with {@code mvn test -Pjmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccountDataMappingBenchmark {
+
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        account = Account.builder()
+                .customerId(12345678L)
+                .iban("DE89370400440532013000")
+                .bic("DEUTDEFF")
+                .accountHolderName("Benchmark Holder")
+                .taxId("DE123456789")
+                .currentBalance(new BigDecimal("1000.00"))
+                .currency(CurrencyEnum.EUR)
+                .status(AccountStatus.ACTIVE)
+                .build();
+    }
+
+    @Benchmark
+    public AccountDataRequest fromEntity() {
+        AccountDataRequest accountDataRequest = new AccountDataRequest();
+        accountDataRequest.setCustomerId(account.getCustomerId());
+        accountDataRequest.setAccountHolderName(account.getAccountHolderName());
+        accountDataRequest.setIban(account.getIban());
+        accountDataRequest.setCurrentBalance(account.getCurrentBalance());
+        accountDataRequest.setCurrency(account.getCurrency());
+        accountDataRequest.setTaxId(account.getTaxId());
+        accountDataRequest.setStatus(account.getStatus());
+        return accountDataRequest;
+    }
+
+    // What findAccountDataByAccountNumber does per row, without the query
+    @Benchmark
+    public VersionedAccountData fromProjection() {
+        return new VersionedAccountData(account.getCustomerId(), account.getIban(), account.getAccountHolderName(),
+                account.getTaxId(), account.getCurrency(), account.getCurrentBalance(), account.getStatus(), account.getVersion());
+    }
+}
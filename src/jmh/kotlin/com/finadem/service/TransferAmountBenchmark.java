@@ -0,0 +1,68 @@
+package com.finadem.service;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionType;
+import com.finadem.request.FundTransferRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the EUR amount of a transfer: parsing the requested amount into a BigDecimal and,
+ * for a foreign currency, multiplying it by the cached exchange rate. The rate lookup is
+ * stubbed, so only the parsing and arithmetic are measured. Run with {@code mvn test -Pjmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransferAmountBenchmark {
+    private static final BigDecimal EXCHANGE_RATE = new BigDecimal("1.0842");
+
+    // EUR skips the rate lookup and multiplication
+    @Param({"EUR", "USD"})
+    private CurrencyEnum currency;
+
+    @Param({"25.00", "1234567.89"})
+    private String amount;
+
+    private TransactionServiceImpl transactionService;
+    private FundTransferRequest fundTransferRequest;
+
+    @Setup
+    public void setUp() {
+        CurrencyConverterService currencyConverterService = new CurrencyConverterService() {
+            @Override
+            public BigDecimal getExchangeRate(String baseCurrency, String toCurrency) {
+                return EXCHANGE_RATE;
+            }
+
+            @Override
+            public void refreshExchangeRates() {
+            }
+
+            @Override
+            public Duration getRateStaleness() {
+                return Duration.ZERO;
+            }
+        };
+        transactionService = new TransactionServiceImpl(null, currencyConverterService, null, null, null, null);
+        fundTransferRequest = FundTransferRequest.builder()
+                .customerAccountNumber("DE89370400440532013000")
+                .transactingAccountNumber("GB29NWBK60161331926819")
+                .transactingAccountBIC("NWBKGB2L")
+                .amount(amount)
+                .currencyType(currency)
+                .transactionType(TransactionType.DEBIT)
+                .build();
+    }
+
+    @Benchmark
+    public BigDecimal getTransferAmountInEUR() {
+        return transactionService.getTransferAmountInEUR(fundTransferRequest);
+    }
+}
@@ -3,7 +3,7 @@ package com.finadem;
 import com.finadem.entity.Account;
 import com.finadem.enums.*;
 import com.finadem.repository.AccountRepository;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -17,9 +17,11 @@ public class FinaDemApp {
         SpringApplication.run(FinaDemApp.class, args);
     }
 
+    // Seeded while the context is created, before the transaction journal replay, which books on top
+    // of the seeded balance and runs before the web server starts
     @Bean
-    public CommandLineRunner loadMockTransactions(AccountRepository accountRepository) {
-        return args -> {
+    public InitializingBean loadMockTransactions(AccountRepository accountRepository) {
+        return () -> {
             String iban = "DE89370400440532013000";
 
             if (accountRepository.count() == 0) {
@@ -0,0 +1,239 @@
+package com.finadem.archive;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import com.finadem.response.TransactionView;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable file of archived transactions, sorted by IBAN, timestamp and id. Rows are stored in
+ * blocks that are deflated and checksummed on their own. The sparse index at the end of the file
+ * holds the first and last IBAN of every block, so reading one account inflates only its blocks.
+ * <p>
+ * Layout: the blocks, then the block count and per block its first IBAN, last IBAN, offset,
+ * length and checksum, then the offset of the index and a magic number.
+ */
+final class ArchiveSegment {
+    static final int BLOCK_ROWS = 512;
+    private static final int MAGIC = 0x54584152;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private record Block(String firstIban, String lastIban, long offset, int length, int checksum) {
+    }
+
+    private final Path path;
+    private final List<Block> index;
+
+    private ArchiveSegment(Path path, List<Block> index) {
+        this.path = path;
+        this.index = index;
+    }
+
+    /**
+     * Writes the rows, which must be sorted by IBAN, timestamp and id, to a temporary file that is
+     * synced and then renamed to the path, so a segment is either complete or absent.
+     */
+    static ArchiveSegment write(Path path, List<TransactionView> rows) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        List<Block> index = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (int from = 0; from < rows.size(); from += BLOCK_ROWS) {
+                List<TransactionView> blockRows = rows.subList(from, Math.min(from + BLOCK_ROWS, rows.size()));
+                byte[] block = encodeBlock(blockRows);
+                CRC32 crc = new CRC32();
+                crc.update(block);
+                writeFully(channel, ByteBuffer.wrap(block));
+                index.add(new Block(blockRows.getFirst().iban(), blockRows.getLast().iban(), offset, block.length, (int) crc.getValue()));
+                offset += block.length;
+            }
+            ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(indexBytes)) {
+                out.writeInt(index.size());
+                for (Block entry : index) {
+                    out.writeUTF(entry.firstIban());
+                    out.writeUTF(entry.lastIban());
+                    out.writeLong(entry.offset());
+                    out.writeInt(entry.length());
+                    out.writeInt(entry.checksum());
+                }
+                out.writeLong(offset);
+                out.writeInt(MAGIC);
+            }
+            writeFully(channel, ByteBuffer.wrap(indexBytes.toByteArray()));
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        return new ArchiveSegment(path, index);
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long indexOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+            ByteBuffer indexBytes = readFully(channel, indexOffset, (int) (size - TRAILER_BYTES - indexOffset));
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(indexBytes.array()))) {
+                int blocks = in.readInt();
+                List<Block> index = new ArrayList<>(blocks);
+                for (int i = 0; i < blocks; i++) {
+                    index.add(new Block(in.readUTF(), in.readUTF(), in.readLong(), in.readInt(), in.readInt()));
+                }
+                return new ArchiveSegment(path, index);
+            }
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    boolean mayContain(String iban) {
+        return !index.isEmpty() && index.getFirst().firstIban().compareTo(iban) <= 0 && index.getLast().lastIban().compareTo(iban) >= 0;
+    }
+
+    /**
+     * Passes the rows of the account booked between from and to, both inclusive, to the consumer.
+     */
+    void read(String iban, LocalDateTime from, LocalDateTime to, Consumer<TransactionView> consumer) throws IOException {
+        if (!mayContain(iban)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int i = firstBlockEndingAtOrAfter(iban); i < index.size() && index.get(i).firstIban().compareTo(iban) <= 0; i++) {
+                for (TransactionView row : decodeBlock(channel, index.get(i))) {
+                    if (row.iban().equals(iban) && !row.timestamp().isBefore(from) && !row.timestamp().isAfter(to)) {
+                        consumer.accept(row);
+                    }
+                }
+            }
+        }
+    }
+
+    // Blocks are sorted, so the last IBANs are too
+    private int firstBlockEndingAtOrAfter(String iban) {
+        int low = 0;
+        int high = index.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.get(middle).lastIban().compareTo(iban) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<TransactionView> decodeBlock(FileChannel channel, Block block) throws IOException {
+        byte[] bytes = readFully(channel, block.offset(), block.length()).array();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != block.checksum()) {
+            throw new IOException("Corrupt block at offset " + block.offset() + " of archive segment " + path);
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            int rows = in.readInt();
+            List<TransactionView> decoded = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                decoded.add(decode(in));
+            }
+            return decoded;
+        }
+    }
+
+    private static byte[] encodeBlock(List<TransactionView> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(rows.size());
+            for (TransactionView row : rows) {
+                encode(out, row);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void encode(DataOutputStream out, TransactionView row) throws IOException {
+        out.writeLong(row.transactionId());
+        out.writeUTF(row.iban());
+        writeNullable(out, row.transactingAccount());
+        out.writeInt(row.amount().scale());
+        byte[] unscaled = row.amount().unscaledValue().toByteArray();
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+        out.writeUTF(row.type().name());
+        out.writeUTF(row.status().name());
+        out.writeUTF(row.source().name());
+        writeNullable(out, row.transactionRemarks());
+        out.writeUTF(row.currency().name());
+        out.writeLong(row.timestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(row.timestamp().getNano());
+    }
+
+    private static TransactionView decode(DataInputStream in) throws IOException {
+        long transactionId = in.readLong();
+        String iban = in.readUTF();
+        String transactingAccount = readNullable(in);
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readShort()];
+        in.readFully(unscaled);
+        return new TransactionView(transactionId, iban, transactingAccount,
+                new BigDecimal(new BigInteger(unscaled), scale),
+                TransactionType.valueOf(in.readUTF()),
+                TransactionStatus.valueOf(in.readUTF()),
+                TransactionSource.valueOf(in.readUTF()),
+                readNullable(in),
+                CurrencyEnum.valueOf(in.readUTF()),
+                LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive segment ends before offset " + (position + length));
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,182 @@
+package com.finadem.archive;
+
+import com.finadem.configurations.TransactionArchiveConfig;
+import com.finadem.response.TransactionView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+public interface TransactionArchive {
+    Comparator<TransactionView> OLDEST_FIRST = Comparator.comparing(TransactionView::timestamp)
+            .thenComparing(TransactionView::transactionId);
+
+    /**
+     * Writes transactions booked in the month, sorted by IBAN, timestamp and id, to a new segment.
+     */
+    void archive(YearMonth month, List<TransactionView> transactions);
+
+    /**
+     * Archived transactions of the account booked between from and to, both inclusive, oldest first.
+     */
+    List<TransactionView> read(String iban, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Up to limit archived transactions of the account ordered before the timestamp and id, newest
+     * first. Reads back one month at a time from the position and stops once the limit is reached.
+     */
+    List<TransactionView> readBefore(String iban, LocalDateTime timestamp, long transactionId, int limit);
+
+    /**
+     * Start of the month after the latest archived one, or null while the archive is empty. Only
+     * reads starting before it can find anything in the archive.
+     */
+    LocalDateTime getArchivedBefore();
+
+    /**
+     * Adds archived transactions to ones read from the Transaction table, in the given order. A row
+     * found in both tiers, because its deletion from the table was rolled back, is returned once.
+     */
+    static List<TransactionView> merge(List<TransactionView> transactions, List<TransactionView> archived,
+                                       Comparator<TransactionView> order) {
+        if (archived.isEmpty()) {
+            return transactions;
+        }
+        Map<Long, TransactionView> merged = new HashMap<>();
+        transactions.forEach(transaction -> merged.put(transaction.transactionId(), transaction));
+        archived.forEach(transaction -> merged.putIfAbsent(transaction.transactionId(), transaction));
+        return merged.values().stream().sorted(order).toList();
+    }
+}
+
+/**
+ * Segments in one directory, named after their month and numbered in the order they were written.
+ * The archive job writes one segment per month for every chunk of accounts it moves, a read skips
+ * the segments whose IBAN range does not include the account without opening them.
+ */
+@Component
+class FileTransactionArchive implements TransactionArchive {
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    Logger logger = LoggerFactory.getLogger(TransactionArchive.class);
+    private final Path directory;
+    // Replaced, never modified, so reads need no lock
+    private final NavigableMap<YearMonth, List<ArchiveSegment>> segments = new ConcurrentSkipListMap<>();
+    // Serializes writers; scheduled jobs may run on virtual threads, which a monitor held over file I/O would pin
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Autowired
+    public FileTransactionArchive(TransactionArchiveConfig transactionArchiveConfig) {
+        this(Path.of(transactionArchiveConfig.getDirectory()));
+    }
+
+    FileTransactionArchive(Path directory) {
+        this.directory = directory;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    // Left by a crash before the rename, its rows are still in the Transaction table
+                    Files.delete(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.merge(YearMonth.parse(name.substring(0, 7)), List.of(ArchiveSegment.open(file)), FileTransactionArchive::concat);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open transaction archive " + directory, e);
+        }
+        logger.info("Opened transaction archive {} with {} months", directory, segments.size());
+    }
+
+    @Override
+    public void archive(YearMonth month, List<TransactionView> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            int number = segments.getOrDefault(month, List.of()).size() + 1;
+            Path path = segmentPath(month, number);
+            while (Files.exists(path)) {
+                path = segmentPath(month, ++number);
+            }
+            try {
+                Files.createDirectories(directory);
+                segments.merge(month, List.of(ArchiveSegment.write(path, transactions)), FileTransactionArchive::concat);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write archive segment " + path, e);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionView> read(String iban, LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        Map<Long, TransactionView> rows = new HashMap<>();
+        for (List<ArchiveSegment> monthSegments : segments.subMap(YearMonth.from(from), true, YearMonth.from(to), true).values()) {
+            for (ArchiveSegment segment : monthSegments) {
+                try {
+                    segment.read(iban, from, to, row -> rows.putIfAbsent(row.transactionId(), row));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read archive segment " + segment.getPath(), e);
+                }
+            }
+        }
+        return rows.values().stream().sorted(OLDEST_FIRST).toList();
+    }
+
+    @Override
+    public List<TransactionView> readBefore(String iban, LocalDateTime timestamp, long transactionId, int limit) {
+        List<TransactionView> rows = new ArrayList<>();
+        for (YearMonth month : segments.headMap(YearMonth.from(timestamp), true).descendingKeySet()) {
+            if (rows.size() >= limit) {
+                break;
+            }
+            LocalDateTime endOfMonth = month.atEndOfMonth().atTime(LocalTime.MAX);
+            List<TransactionView> monthRows = read(iban, month.atDay(1).atStartOfDay(), timestamp.isBefore(endOfMonth) ? timestamp : endOfMonth);
+            for (int i = monthRows.size() - 1; i >= 0 && rows.size() < limit; i--) {
+                TransactionView row = monthRows.get(i);
+                // Read up to the timestamp, so a row that is not earlier has the same one
+                if (row.timestamp().isBefore(timestamp) || row.transactionId() < transactionId) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public LocalDateTime getArchivedBefore() {
+        Map.Entry<YearMonth, List<ArchiveSegment>> latest = segments.lastEntry();
+        return latest == null ? null : latest.getKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    private Path segmentPath(YearMonth month, int number) {
+        return directory.resolve(String.format("%s-%06d%s", month, number, SEGMENT_SUFFIX));
+    }
+
+    private static List<ArchiveSegment> concat(List<ArchiveSegment> existing, List<ArchiveSegment> added) {
+        List<ArchiveSegment> combined = new ArrayList<>(existing);
+        combined.addAll(added);
+        return List.copyOf(combined);
+    }
+}
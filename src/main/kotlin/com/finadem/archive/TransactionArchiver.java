@@ -0,0 +1,91 @@
+package com.finadem.archive;
+
+import com.finadem.configurations.TransactionArchiveConfig;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.response.TransactionView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Moves transactions booked before the hot months from the Transaction table into the archive, one
+ * chunk of accounts per database transaction. The chunk's accounts are locked like a booking locks
+ * them, so no transaction of the chunk is added while its rows are copied and deleted.
+ * <p>
+ * Segments are written before the rows are deleted. Should the deletion roll back, the rows are in
+ * both tiers until the next run archives them again; reads return them once.
+ */
+@Component
+class TransactionArchiver {
+    Logger logger = LoggerFactory.getLogger(TransactionArchiver.class);
+    private final TransactionArchive transactionArchive;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int hotMonths;
+    private final int chunkSize;
+
+    public TransactionArchiver(TransactionArchive transactionArchive,
+                               AccountRepository accountRepository,
+                               TransactionRepository transactionRepository,
+                               PlatformTransactionManager transactionManager,
+                               TransactionArchiveConfig transactionArchiveConfig) {
+        this.transactionArchive = transactionArchive;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hotMonths = Math.max(0, transactionArchiveConfig.getHotMonths());
+        this.chunkSize = Math.max(1, transactionArchiveConfig.getChunkSize());
+    }
+
+    @Scheduled(cron = "${transaction.archive.cron}")
+    void archiveColdTransactions() {
+        archiveBefore(YearMonth.now().minusMonths(hotMonths).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Archives every transaction booked before the cutoff and returns how many were moved.
+     */
+    int archiveBefore(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        int archived = 0;
+        String after = "";
+        List<String> chunk;
+        while (!(chunk = accountRepository.findIbansAfter(after, Limit.of(chunkSize))).isEmpty()) {
+            List<String> ibans = chunk;
+            archived += transactionTemplate.execute(status -> archiveChunk(ibans, cutoff));
+            after = ibans.getLast();
+        }
+        logger.info("Archived {} transactions booked before {} in {} ms", archived, cutoff, (System.nanoTime() - start) / 1_000_000);
+        return archived;
+    }
+
+    private int archiveChunk(List<String> ibans, LocalDateTime cutoff) {
+        accountRepository.lockAccountsInIbanOrder(ibans);
+        List<TransactionView> transactions = transactionRepository.findTransactionsToArchive(ibans, cutoff);
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        // Grouping keeps the IBAN, timestamp and id order of the query within each month
+        Map<YearMonth, List<TransactionView>> byMonth = transactions.stream()
+                .collect(Collectors.groupingBy(transaction -> YearMonth.from(transaction.timestamp()), TreeMap::new, Collectors.toList()));
+        byMonth.forEach(transactionArchive::archive);
+        int deleted = transactionRepository.deleteArchivedTransactions(ibans, cutoff);
+        if (deleted != transactions.size()) {
+            throw new IllegalStateException("Archived " + transactions.size() + " transactions but deleted " + deleted);
+        }
+        return deleted;
+    }
+}
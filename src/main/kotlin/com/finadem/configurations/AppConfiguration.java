@@ -3,12 +3,20 @@ package com.finadem.configurations;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
+@EnableScheduling
 public class AppConfiguration {
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder){
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CurrencyRateConfig currencyRateConfig){
+        // Bounded so an unreachable currency API cannot hold a rate refresh indefinitely
+        return builder
+                .connectTimeout(Duration.ofMillis(currencyRateConfig.getConnectTimeoutMillis()))
+                .readTimeout(Duration.ofMillis(currencyRateConfig.getReadTimeoutMillis()))
+                .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.finadem.configurations;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+    public static final String ACCOUNT_CACHE = "accounts";
+    public static final String IDEMPOTENCY_CACHE = "idempotency";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${account.cache.spec}") String accountCacheSpec,
+                                     @Value("${idempotency.cache.spec}") String idempotencyCacheSpec) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCacheSpecification(accountCacheSpec);
+        // Declared up front so actuator binds the cache metrics at startup
+        caffeineCacheManager.setCacheNames(List.of(ACCOUNT_CACHE));
+        caffeineCacheManager.setAllowNullValues(false);
+        // Bounded by its own spec, recorded responses must not push accounts out and vice versa
+        caffeineCacheManager.registerCustomCache(IDEMPOTENCY_CACHE, Caffeine.from(idempotencyCacheSpec).build());
+        // Puts and evictions issued inside a transaction are applied only after it commits
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,38 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Getter
+@Component
+public class CurrencyRateConfig {
+
+    // Currencies kept in the EUR based rate table
+    @Value("${currency.rates.currencies}")
+    private List<String> currencies;
+
+    // Rates older than this are refreshed on the calling thread before use
+    @Value("${currency.rates.ttl-seconds}")
+    private long ttlSeconds;
+
+    // Upper bound a caller waits on a rate fetch started by another request
+    @Value("${currency.rates.fetch-wait-ms}")
+    private long fetchWaitMillis;
+
+    // Expired rates are still served while the upstream is unavailable, up to this age
+    @Value("${currency.rates.max-staleness-seconds}")
+    private long maxStalenessSeconds;
+
+    // Local file holding the last fetched table, loaded at startup
+    @Value("${currency.rates.snapshot-path}")
+    private String snapshotPath;
+
+    @Value("${currency.api.connect-timeout-ms}")
+    private long connectTimeoutMillis;
+
+    @Value("${currency.api.read-timeout-ms}")
+    private long readTimeoutMillis;
+}
@@ -0,0 +1,13 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class FundTransferBatchConfig {
+    // Transfers accepted in one batch, larger batches are rejected as they run under one set of row locks
+    @Value("${transfer.batch.max-size}")
+    private int maxSize;
+}
@@ -0,0 +1,19 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class GroupCommitConfig {
+    public static final String GROUP_COMMIT_ENGINE = "group-commit";
+
+    // How long the first request of a batch waits for others to join before the batch commits
+    @Value("${transaction.group-commit.window-micros}")
+    private long windowMicros;
+
+    // A batch commits as soon as it holds this many requests, whatever is left of the window
+    @Value("${transaction.group-commit.max-batch-size}")
+    private int maxBatchSize;
+}
@@ -0,0 +1,17 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class IdempotencyConfig {
+    // How long a retry with the same Idempotency-Key still gets the recorded response
+    @Value("${idempotency.retention-hours}")
+    private long retentionHours;
+
+    // Upper bound a duplicate request waits for the first one with its key to finish
+    @Value("${idempotency.wait-ms}")
+    private long waitMillis;
+}
@@ -0,0 +1,36 @@
+package com.finadem.configurations;
+
+import com.finadem.enums.FsyncPolicy;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class LedgerConfig {
+    public static final String ENGINE_PROPERTY = "transaction.engine";
+    public static final String LEDGER_ENGINE = "ledger";
+
+    // Number of single-threaded shards the IBANs are partitioned across
+    @Value("${ledger.shards}")
+    private int shards;
+
+    // Append-only file every ledger booking is written to before it is acknowledged
+    @Value("${ledger.journal-path}")
+    private String journalPath;
+
+    // When ledger journal records are forced to disk, see FsyncPolicy
+    @Value("${ledger.fsync-policy}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${ledger.fsync-interval-ms}")
+    private long fsyncIntervalMillis;
+
+    // Maximum journal entries written to the database in one projection transaction
+    @Value("${ledger.projection-batch-size}")
+    private int projectionBatchSize;
+
+    // Upper bound a request waits for its booking to be applied by the shards
+    @Value("${ledger.request-timeout-ms}")
+    private long requestTimeoutMillis;
+}
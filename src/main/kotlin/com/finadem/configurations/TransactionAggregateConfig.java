@@ -0,0 +1,17 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class TransactionAggregateConfig {
+    // Accounts rebuilt concurrently, each worker recomputes one chunk of accounts per database transaction
+    @Value("${transaction.aggregate.rebuild-threads}")
+    private int rebuildThreads;
+
+    // Accounts locked, cleared and recomputed together by a rebuild worker
+    @Value("${transaction.aggregate.rebuild-chunk-size}")
+    private int rebuildChunkSize;
+}
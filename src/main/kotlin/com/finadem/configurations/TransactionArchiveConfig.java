@@ -0,0 +1,21 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class TransactionArchiveConfig {
+    // Directory holding the compressed archive segments, one or more per calendar month
+    @Value("${transaction.archive.directory}")
+    private String directory;
+
+    // Whole calendar months kept in the Transaction table besides the current one
+    @Value("${transaction.archive.hot-months}")
+    private int hotMonths;
+
+    // Accounts whose old transactions are moved to the archive in one database transaction
+    @Value("${transaction.archive.chunk-size}")
+    private int chunkSize;
+}
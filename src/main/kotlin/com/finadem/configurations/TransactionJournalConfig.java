@@ -0,0 +1,33 @@
+package com.finadem.configurations;
+
+import com.finadem.enums.FsyncPolicy;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class TransactionJournalConfig {
+    // The ledger engine journals its bookings itself, this journal records the other engines
+    public static final String ENABLED_CONDITION = "${transaction.journal.enabled} and '${"
+            + LedgerConfig.ENGINE_PROPERTY + "}' != '" + LedgerConfig.LEDGER_ENGINE + "'";
+
+    // Directory holding the journal segments, named after the first sequence they contain
+    @Value("${transaction.journal.directory}")
+    private String directory;
+
+    // Size a segment is preallocated and mapped with, a full segment is sealed and a new one started
+    @Value("${transaction.journal.segment-size-mb}")
+    private int segmentSizeMb;
+
+    @Value("${transaction.journal.fsync-policy}")
+    private FsyncPolicy fsyncPolicy;
+
+    // Upper bound on the age of records not yet forced to disk under the INTERVAL policy
+    @Value("${transaction.journal.fsync-interval-ms}")
+    private long fsyncIntervalMillis;
+
+    // Journal entries written to the database in one transaction while replaying at startup
+    @Value("${transaction.journal.replay-batch-size}")
+    private int replayBatchSize;
+}
@@ -0,0 +1,21 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class TransactionRetryConfig {
+
+    // Total executions of a conflicting transaction, including the first one
+    @Value("${transaction.retry.max-attempts}")
+    private int maxAttempts;
+
+    // Backoff ceiling before the first retry, doubled on every further retry
+    @Value("${transaction.retry.initial-backoff-ms}")
+    private long initialBackoffMillis;
+
+    @Value("${transaction.retry.max-backoff-ms}")
+    private long maxBackoffMillis;
+}
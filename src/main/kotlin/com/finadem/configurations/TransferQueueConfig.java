@@ -0,0 +1,25 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class TransferQueueConfig {
+    // Threads booking submitted transfers
+    @Value("${transfer.async.workers}")
+    private int workers;
+
+    // Submitted transfers waiting for a worker, further submissions are turned away until one finishes
+    @Value("${transfer.async.queue-capacity}")
+    private int queueCapacity;
+
+    // Sent with 503 responses to a full queue
+    @Value("${transfer.async.retry-after-seconds}")
+    private long retryAfterSeconds;
+
+    // How long the outcome of a transfer can still be polled
+    @Value("${transfer.async.retention-hours}")
+    private long retentionHours;
+}
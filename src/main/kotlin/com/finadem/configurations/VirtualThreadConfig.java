@@ -0,0 +1,17 @@
+package com.finadem.configurations;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class VirtualThreadConfig {
+    // A virtual thread holding on to its carrier for longer than this is reported as pinned
+    @Value("${virtual-threads.pinning-threshold-ms}")
+    private long pinningThresholdMillis;
+
+    // Frames logged with the first report of each pinning site
+    @Value("${virtual-threads.pinning-stack-depth}")
+    private int pinningStackDepth;
+}
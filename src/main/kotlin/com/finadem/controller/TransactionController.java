@@ -1,31 +1,70 @@
 package com.finadem.controller;
 
-import com.finadem.entity.Transaction;
+import com.finadem.enums.ExportFormat;
 import com.finadem.request.DepositWithdrawalRequest;
 import com.finadem.request.FundTransferRequest;
+import com.finadem.response.AccountStatement;
+import com.finadem.response.FundTransferResult;
+import com.finadem.response.TransactionHistoryPage;
+import com.finadem.response.TransactionSummary;
+import com.finadem.response.TransactionView;
+import com.finadem.response.TransferSubmissionStatus;
+import com.finadem.service.AccountStatementService;
+import com.finadem.service.FundTransferBatchService;
+import com.finadem.service.IdempotencyService;
+import com.finadem.service.TransactionAggregateService;
+import com.finadem.service.TransactionExportService;
 import com.finadem.service.TransactionService;
+import com.finadem.service.TransferSubmissionService;
 import com.finadem.helper.DateHelper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/${api.version}/transactions")
 public class TransactionController {
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
 
     private final TransactionService transactionService;
 
+    private final FundTransferBatchService fundTransferBatchService;
+
+    private final TransactionExportService transactionExportService;
+
+    private final AccountStatementService accountStatementService;
+
+    private final TransactionAggregateService transactionAggregateService;
+
+    private final IdempotencyService idempotencyService;
+
+    private final TransferSubmissionService transferSubmissionService;
+
     private final DateHelper dateHelper;
 
-    public TransactionController(TransactionService transactionService, DateHelper dateHelper) {
+    public TransactionController(TransactionService transactionService, FundTransferBatchService fundTransferBatchService,
+                                 TransactionExportService transactionExportService, AccountStatementService accountStatementService,
+                                 TransactionAggregateService transactionAggregateService, IdempotencyService idempotencyService,
+                                 TransferSubmissionService transferSubmissionService, DateHelper dateHelper) {
         this.transactionService = transactionService;
+        this.fundTransferBatchService = fundTransferBatchService;
+        this.transactionExportService = transactionExportService;
+        this.accountStatementService = accountStatementService;
+        this.transactionAggregateService = transactionAggregateService;
+        this.idempotencyService = idempotencyService;
+        this.transferSubmissionService = transferSubmissionService;
         this.dateHelper = dateHelper;
     }
 
@@ -33,29 +72,34 @@ public class TransactionController {
      * Handles deposit transactions for a specified account.
      *
      * @param depositRequest the request payload containing deposit details such as IBAN, amount, and currency
+     * @param idempotencyKey optional key making retries of the request return its first response instead of depositing again
      * @return ResponseEntity indicating success (OK) of the deposit transaction
      */
     @PostMapping("/deposit")
-    public ResponseEntity<String> depositFund(@Valid @RequestBody DepositWithdrawalRequest depositRequest) {
-        transactionService.createDepositTransaction(depositRequest.getIban(),
-                depositRequest.getCurrency(),
-                new BigDecimal(depositRequest.getAmount()),
-                depositRequest.getTransactionRemarks(),
-                depositRequest.getTransactionType(),
-                depositRequest.getTransactionSource());
-        return ResponseEntity.status(HttpStatus.OK).body("Deposit Successful.");
+    public ResponseEntity<String> depositFund(@Valid @RequestBody DepositWithdrawalRequest depositRequest,
+                                              @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, "deposit", depositRequest, "Deposit Successful.",
+                inTransaction -> transactionService.createDepositTransaction(depositRequest.getIban(),
+                        depositRequest.getCurrency(),
+                        new BigDecimal(depositRequest.getAmount()),
+                        depositRequest.getTransactionRemarks(),
+                        depositRequest.getTransactionType(),
+                        depositRequest.getTransactionSource(),
+                        inTransaction));
     }
 
     /**
      * Handles withdrawal transactions for a specified account.
      *
      * @param withdrawalRequest the request payload containing withdrawal details such as IBAN, amount, and currency
+     * @param idempotencyKey optional key making retries of the request return its first response instead of withdrawing again
      * @return ResponseEntity indicating success (OK) of the withdrawal transaction
      */
     @PostMapping("/withdraw")
-    public ResponseEntity<String> withdrawal(@Valid @RequestBody DepositWithdrawalRequest withdrawalRequest) {
-        transactionService.createWithdrawalTransaction(withdrawalRequest);
-        return ResponseEntity.status(HttpStatus.OK).body("Withdrawal successful.");
+    public ResponseEntity<String> withdrawal(@Valid @RequestBody DepositWithdrawalRequest withdrawalRequest,
+                                             @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, "withdraw", withdrawalRequest, "Withdrawal successful.",
+                inTransaction -> transactionService.createWithdrawalTransaction(withdrawalRequest, inTransaction));
     }
 
     /**
@@ -63,12 +107,56 @@ public class TransactionController {
      *
      * @param fundTransferRequest the request payload containing fund transfer details such as sender/receiver IBANs,
      *                            amount, and currency
+     * @param idempotencyKey optional key making retries of the request return its first response instead of transferring again
      * @return ResponseEntity indicating success (OK) of the fund transfer
      */
     @PostMapping("/transfer")
-    public ResponseEntity<String> transferFunds(@Valid @RequestBody FundTransferRequest fundTransferRequest) {
-        transactionService.createFundTransferTransaction(fundTransferRequest);
-        return ResponseEntity.status(HttpStatus.OK).body("Fund Transfer successful.");
+    public ResponseEntity<String> transferFunds(@Valid @RequestBody FundTransferRequest fundTransferRequest,
+                                                @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, "transfer", fundTransferRequest, "Fund Transfer successful.",
+                inTransaction -> transactionService.createFundTransferTransaction(fundTransferRequest, inTransaction));
+    }
+
+    /**
+     * Accepts a fund transfer for asynchronous booking, so the client does not wait for it under load.
+     * The transfer is stored before the response is sent and booked by a worker afterwards.
+     *
+     * @param fundTransferRequest the request payload containing fund transfer details such as sender/receiver IBANs,
+     *                            amount, and currency
+     * @return ResponseEntity with status ACCEPTED, the PENDING transfer and its status URL in the Location header,
+     *         or SERVICE_UNAVAILABLE with Retry-After while too many transfers are waiting
+     */
+    @PostMapping("/transfer/async")
+    public ResponseEntity<TransferSubmissionStatus> submitTransfer(@Valid @RequestBody FundTransferRequest fundTransferRequest) {
+        TransferSubmissionStatus submitted = transferSubmissionService.submit(fundTransferRequest);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{transferId}")
+                        .buildAndExpand(submitted.transferId()).toUri())
+                .body(submitted);
+    }
+
+    /**
+     * Reports the state of a transfer submitted to /transfer/async.
+     *
+     * @param transferId the id returned when the transfer was submitted
+     * @return ResponseEntity containing the status, PENDING, PROCESSING, SUCCESS or FAILED with the reason
+     */
+    @GetMapping("/transfer/async/{transferId}")
+    public ResponseEntity<TransferSubmissionStatus> getTransferStatus(@PathVariable String transferId) {
+        return ResponseEntity.ok(transferSubmissionService.getStatus(transferId));
+    }
+
+    /**
+     * Handles many fund transfers in one request, e.g. from payroll or settlement jobs. Every transfer is
+     * validated and booked on its own, so invalid or uncovered transfers do not stop the rest of the batch.
+     *
+     * @param fundTransferRequests the fund transfers to book, applied in the given order
+     * @return ResponseEntity containing the result of every transfer, in the order of the requests
+     */
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<List<FundTransferResult>> transferFundsInBatch(@RequestBody List<FundTransferRequest> fundTransferRequests) {
+        List<FundTransferResult> results = fundTransferBatchService.createFundTransfers(fundTransferRequests);
+        return ResponseEntity.status(HttpStatus.OK).body(results);
     }
 
     /**
@@ -79,11 +167,29 @@ public class TransactionController {
      * @return ResponseEntity containing a list of the last N transactions for the specified account
      */
     @GetMapping("/history/{iban}/{n}")
-    public ResponseEntity<List<Transaction>> getLastNTransactions(@PathVariable String iban, @PathVariable int n) {
-        List<Transaction> transactionHistory = transactionService.getLastNTransactionHistory(iban, n);
+    public ResponseEntity<List<TransactionView>> getLastNTransactions(@PathVariable String iban, @PathVariable int n) {
+        List<TransactionView> transactionHistory = transactionService.getLastNTransactionHistory(iban, n);
         return ResponseEntity.status(HttpStatus.OK).body(transactionHistory);
     }
 
+    /**
+     * Pages through the transaction history of a given account, newest first. Each page continues where the
+     * cursor of the previous one points, so deep pages cost as much as the first one.
+     *
+     * @param iban the unique identifier of the account
+     * @param cursor the nextCursor returned with the previous page, omitted for the first page
+     * @param limit the number of transactions per page, at most 500
+     * @return ResponseEntity containing the page of transactions and the cursor of the next page
+     */
+    @GetMapping("/history/{iban}")
+    public ResponseEntity<TransactionHistoryPage> getTransactionHistoryPage(@PathVariable String iban,
+                                                                            @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(defaultValue = "20") int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE);
+        TransactionHistoryPage historyPage = transactionService.getTransactionHistoryPage(iban, cursor, pageSize);
+        return ResponseEntity.status(HttpStatus.OK).body(historyPage);
+    }
+
     /**
      * Retrieves transaction history for a given account between specified dates.
      *
@@ -93,14 +199,105 @@ public class TransactionController {
      * @return ResponseEntity containing a list of transactions between the specified dates for the given account
      */
     @GetMapping("/history/{iban}/{fromDate}/{toDate}")
-    public ResponseEntity<List<Transaction>> getTransactionHistoryBetween(@PathVariable String iban, @PathVariable String fromDate, @PathVariable String toDate) {
+    public ResponseEntity<List<TransactionView>> getTransactionHistoryBetween(@PathVariable String iban, @PathVariable String fromDate, @PathVariable String toDate) {
+        LocalDateTime[] range = parseDateRange(fromDate, toDate);
+        List<TransactionView> transactionsHistory = transactionService.getTransactionHistoryBetween(iban, range[0], range[1]);
+        return ResponseEntity.status(HttpStatus.OK).body(transactionsHistory);
+    }
+
+    /**
+     * Streams the transaction history of an account between specified dates, oldest first, as NDJSON or CSV.
+     * Rows are written to the response as they are read, so any range can be exported without loading it into memory.
+     *
+     * @param iban the unique identifier of the account
+     * @param fromDate the start date of the transaction history in "dd-MM-yyyy" format
+     * @param toDate the end date of the transaction history in "dd-MM-yyyy" format
+     * @param format NDJSON (default) or CSV
+     * @return ResponseEntity streaming the transactions between the specified dates for the given account
+     */
+    @GetMapping("/history/{iban}/{fromDate}/{toDate}/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(@PathVariable String iban, @PathVariable String fromDate,
+                                                                          @PathVariable String toDate,
+                                                                          @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        LocalDateTime[] range = parseDateRange(fromDate, toDate);
+        StreamingResponseBody body = outputStream ->
+                transactionExportService.exportTransactionHistory(iban, range[0], range[1], format, outputStream);
+        return ResponseEntity.status(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, format.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + iban + "-transactions." + format.name().toLowerCase() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Retrieves the statement of an account for a date range: the balance at the start of the first day, the
+     * balance at the end of the last day and the transactions in between, oldest first.
+     *
+     * @param iban the unique identifier of the account
+     * @param fromDate the first day of the statement in "dd-MM-yyyy" format
+     * @param toDate the last day of the statement in "dd-MM-yyyy" format
+     * @return ResponseEntity containing the opening balance, closing balance and transactions of the range
+     */
+    @GetMapping("/statement/{iban}/{fromDate}/{toDate}")
+    public ResponseEntity<AccountStatement> getStatement(@PathVariable String iban, @PathVariable String fromDate, @PathVariable String toDate) {
+        LocalDateTime[] range = parseDateRange(fromDate, toDate);
+        AccountStatement statement = accountStatementService.getStatement(iban, range[0].toLocalDate(), range[1].toLocalDate());
+        return ResponseEntity.status(HttpStatus.OK).body(statement);
+    }
+
+    /**
+     * Retrieves the number and sum of the transactions of an account per month, transaction type and source.
+     * Served from aggregates kept up to date with every booking, so it does not read the transactions themselves.
+     *
+     * @param iban the unique identifier of the account
+     * @param fromMonth the first month of the summary in "MM-yyyy" format
+     * @param toMonth the last month of the summary in "MM-yyyy" format
+     * @return ResponseEntity containing one summary per month, type and source with transactions, oldest month first
+     */
+    @GetMapping("/summary/{iban}/{fromMonth}/{toMonth}")
+    public ResponseEntity<List<TransactionSummary>> getTransactionSummary(@PathVariable String iban, @PathVariable String fromMonth,
+                                                                          @PathVariable String toMonth) {
+        YearMonth startMonth = dateHelper.validateAndParseMonth(fromMonth);
+        YearMonth endMonth = dateHelper.validateAndParseMonth(toMonth);
+        dateHelper.isStartDateAfterEndDate(startMonth.atDay(1), endMonth.atDay(1));
+        List<TransactionSummary> summary = transactionAggregateService.getSummary(iban, startMonth, endMonth);
+        return ResponseEntity.status(HttpStatus.OK).body(summary);
+    }
+
+    /**
+     * Recomputes the monthly transaction summaries of all accounts from their transactions, e.g. after a data
+     * correction. Bookings of an account wait while its summaries are replaced.
+     *
+     * @return ResponseEntity containing the number of accounts rebuilt
+     */
+    @PostMapping("/summary/rebuild")
+    public ResponseEntity<String> rebuildTransactionSummaries() {
+        int accounts = transactionAggregateService.rebuildAggregates();
+        return ResponseEntity.status(HttpStatus.OK).body("Rebuilt transaction summaries of " + accounts + " accounts.");
+    }
+
+    // Start of the first day and end of the last day of a "dd-MM-yyyy" date range
+    private LocalDateTime[] parseDateRange(String fromDate, String toDate) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         LocalDate startDate = dateHelper.validateAndParseDate(fromDate, formatter);
         LocalDate endDate = dateHelper.validateAndParseDate(toDate, formatter);
         dateHelper.isStartDateAfterEndDate(startDate, endDate);
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        List<Transaction> transactionsHistory = transactionService.getTransactionHistoryBetween(iban, startDateTime, endDateTime);
-        return ResponseEntity.status(HttpStatus.OK).body(transactionsHistory);
+        return new LocalDateTime[]{startDate.atStartOfDay(), endDate.atTime(23, 59, 59)};
+    }
+
+    // Without a key every request books; a replayed response is marked so clients can tell. The booking
+    // runs the work it is handed in its own database transaction
+    private ResponseEntity<String> idempotent(String idempotencyKey, String operation, Object request, String response,
+                                              Consumer<Runnable> booking) {
+        if (idempotencyKey == null) {
+            booking.accept(() -> {
+            });
+            return ResponseEntity.status(HttpStatus.OK).body(response);
+        }
+        IdempotencyService.IdempotentResult result = idempotencyService.execute(idempotencyKey, operation, request, response, booking);
+        ResponseEntity.BodyBuilder recorded = ResponseEntity.status(HttpStatus.OK);
+        if (result.replayed()) {
+            recorded.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return recorded.body(result.body());
     }
 }
@@ -44,6 +44,13 @@ public class Account {
     @Builder.Default
     private AccountStatus status = AccountStatus.ACTIVE;
 
+    // Balances are only changed by the delta update in AccountRepository, which bumps the version too,
+    // so an Account loaded before a balance change cannot be saved back over it
+    @Version
+    @Column(nullable = false)
+    @Builder.Default
+    private Long version = 0L;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
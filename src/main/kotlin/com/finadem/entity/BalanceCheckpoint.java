@@ -0,0 +1,39 @@
+package com.finadem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Balance of an account at the end of a day on which it changed. Kept up to date in the same
+ * database transaction as every balance change, so the balance at any date is the closing balance
+ * of the latest checkpoint on or before it, and days without changes need no row.
+ */
+@Entity
+@Table(name = "BalanceCheckpoint")
+@IdClass(BalanceCheckpoint.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+    @Id
+    @Column(length = 34)
+    private String iban;
+
+    @Id
+    private LocalDate businessDate;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal closingBalance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String iban;
+        private LocalDate businessDate;
+    }
+}
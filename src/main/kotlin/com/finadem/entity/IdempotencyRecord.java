@@ -0,0 +1,36 @@
+package com.finadem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of a booking request sent with an Idempotency-Key, returned again to retries of the
+ * request instead of booking it twice. Kept for idempotency.retention-hours.
+ */
+@Entity
+@Table(name = "IdempotencyRecord", indexes = {
+        // The purge job deletes by age
+        @Index(name = "idx_idempotency_record_created_at", columnList = "createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    public static final int MAX_KEY_LENGTH = 64;
+
+    @Id
+    @Column(length = MAX_KEY_LENGTH)
+    private String idempotencyKey;
+
+    // SHA-256 of the operation and request body, a retry has to send the same request
+    @Column(nullable = false, length = 32)
+    private byte[] requestHash;
+
+    @Column(nullable = false)
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
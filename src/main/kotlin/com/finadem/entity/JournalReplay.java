@@ -0,0 +1,30 @@
+package com.finadem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a database that already holds the bookings of the transaction journal. Written in the same
+ * database transaction as the replayed rows; a database without it, like a fresh in-memory one
+ * after a restart, is rebuilt from the journal on startup.
+ */
+@Entity
+@Table(name = "JournalReplay")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalReplay {
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    // Last journal sequence the database was rebuilt up to, 0 when the journal was empty
+    @Column(nullable = false)
+    private Long replayedSequence;
+
+    @Column(nullable = false)
+    private LocalDateTime replayedAt;
+}
@@ -0,0 +1,23 @@
+package com.finadem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Highest journal sequence already written to the Account and Transaction tables. Updated in the
+ * same database transaction as the projected rows, so replay after a restart resumes exactly there.
+ */
+@Entity
+@Table(name = "LedgerProjection")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerProjection {
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long lastSequence;
+}
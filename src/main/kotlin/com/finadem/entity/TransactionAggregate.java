@@ -0,0 +1,62 @@
+package com.finadem.entity;
+
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Number and sum of the transactions of an account in one month, per transaction type and source.
+ * Updated with every Transaction row written and rebuilt from the raw rows on demand.
+ */
+@Entity
+@Table(name = "TransactionAggregate")
+@IdClass(TransactionAggregate.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionAggregate {
+    @Id
+    @Column(length = 34)
+    private String iban;
+
+    // First day of the month
+    @Id
+    private LocalDate periodStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TransactionType type;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TransactionSource source;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    // Built by the rebuild query, which groups the raw rows by calendar year and month
+    public TransactionAggregate(String iban, Integer year, Integer month, TransactionType type, TransactionSource source,
+                                Long transactionCount, BigDecimal totalAmount) {
+        this(iban, LocalDate.of(year, month, 1), type, source, transactionCount, totalAmount);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String iban;
+        private LocalDate periodStart;
+        private TransactionType type;
+        private TransactionSource source;
+    }
+}
@@ -0,0 +1,66 @@
+package com.finadem.entity;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fund transfer submitted to /transfer/async, stored PENDING before it is acknowledged and booked
+ * later by a worker, which records the outcome. Pending submissions are picked up again after a
+ * restart, as far as the datasource keeps them: an in-memory database does not. Completed ones are
+ * kept for transfer.async.retention-hours.
+ */
+@Entity
+@Table(name = "TransferSubmission", indexes = {
+        // Pending submissions are resumed in the order they were submitted
+        @Index(name = "idx_transfer_submission_status_submitted_at", columnList = "status, submittedAt"),
+        // The purge job deletes by age
+        @Index(name = "idx_transfer_submission_completed_at", columnList = "completedAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferSubmission {
+    public static final int MAX_FAILURE_REASON_LENGTH = 255;
+
+    @Id
+    @Column(length = 36)
+    private String transferId;
+
+    @Column(nullable = false)
+    private String customerAccountNumber;
+
+    @Column(nullable = false)
+    private String transactingAccountNumber;
+
+    private String transactingAccountBIC;
+
+    // As submitted, converted to EUR when the transfer is booked
+    @Column(nullable = false)
+    private String amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CurrencyEnum currencyType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionStatus status;
+
+    @Column(length = MAX_FAILURE_REASON_LENGTH)
+    private String failureReason;
+
+    @Column(nullable = false)
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime completedAt;
+}
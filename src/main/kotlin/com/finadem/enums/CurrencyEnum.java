@@ -2,8 +2,9 @@ package com.finadem.enums;
 
 public enum CurrencyEnum {
     USD,
-    EUR;
-    // GBP; // If GBP is needed
+    EUR,
+    GBP;
+
     public static boolean isValid(CurrencyEnum currency) {
         for (CurrencyEnum curr : values()) {
             if (curr == currency) {
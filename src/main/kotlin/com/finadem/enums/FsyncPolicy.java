@@ -0,0 +1,22 @@
+package com.finadem.enums;
+
+/**
+ * When appended journal records are forced from the page cache to disk. Records are in the page
+ * cache as soon as they are appended and survive a crash of the process either way, the policy
+ * only decides how much is lost when the machine goes down.
+ * <p>
+ * Records of the transaction journal are appended after the database commit, before the booking
+ * request returns. A process crash between the two loses a booking that was committed but never
+ * acknowledged. Against an in-memory database it is gone with the rest; a file-backed one keeps it,
+ * but a database rebuilt from the journal later would not. The ledger journal is appended before
+ * its bookings reach the database at all.
+ */
+public enum FsyncPolicy {
+    // Every record is forced before the append returns
+    ALWAYS,
+    // Records are forced in the background every transaction.journal.fsync-interval-ms, or
+    // ledger.fsync-interval-ms for the ledger journal
+    INTERVAL,
+    // Left to the operating system's writeback
+    NEVER
+}
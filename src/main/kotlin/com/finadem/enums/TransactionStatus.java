@@ -3,4 +3,8 @@ package com.finadem.enums;
 public enum TransactionStatus {
     SUCCESS,
     FAILED,
+    // Submitted for asynchronous booking, not processed yet
+    PENDING,
+    // Claimed by a worker for booking, only ever left behind by a crash and pending again on restart
+    PROCESSING,
 }
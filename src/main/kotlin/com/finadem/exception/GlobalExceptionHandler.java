@@ -2,6 +2,8 @@ package com.finadem.exception;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.finadem.exception.exceptions.*;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.NoTransactionException;
@@ -24,9 +26,12 @@ public class GlobalExceptionHandler {
             InvalidIbanException.class,
             InvalidTransactionType.class,
             TransferToSelfException.class,
+            TransferBatchTooLargeException.class,
+            InvalidCursorException.class,
             TransactionForbiddenException.class,
             AccountCreationFailedException.class,
-            AccountDataUpdateFailedException.class
+            AccountDataUpdateFailedException.class,
+            InvalidIdempotencyKeyException.class
     })
     public ResponseEntity<String> handleBadRequestExceptions(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
@@ -67,10 +72,36 @@ public class GlobalExceptionHandler {
     // no transactions for the IBAN exist in the database
     @ExceptionHandler({
             IbanNotFoundException.class,
+            TransferNotFoundException.class,
             NoTransactionException.class
     })
     public ResponseEntity<String> handleNotFoundExceptions(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
-}
 
+    // A retry must repeat the request its Idempotency-Key was first sent with
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handleUnprocessableExceptions(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+
+    // Backpressure of the asynchronous transfer queue
+    @ExceptionHandler(TransferQueueFullException.class)
+    public ResponseEntity<String> handleServiceUnavailableExceptions(TransferQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    // A booking still queued when the request gave up waiting, it may yet be applied
+    @ExceptionHandler(BookingPendingException.class)
+    public ResponseEntity<String> handleAcceptedExceptions(BookingPendingException ex) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ex.getMessage());
+    }
+
+    // Concurrent updates kept conflicting after the configured retries
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<String> handleConflictExceptions(ConcurrencyFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("The account is being updated concurrently, please retry the request.");
+    }
+}
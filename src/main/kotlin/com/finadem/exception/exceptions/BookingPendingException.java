@@ -0,0 +1,7 @@
+package com.finadem.exception.exceptions;
+
+public class BookingPendingException extends RuntimeException {
+    public BookingPendingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.finadem.exception.exceptions;
+
+public class TransferBatchTooLargeException extends RuntimeException {
+    public TransferBatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.finadem.exception.exceptions;
+
+public class TransferNotFoundException extends RuntimeException {
+    public TransferNotFoundException(String message) {
+        super(message);
+    }
+}
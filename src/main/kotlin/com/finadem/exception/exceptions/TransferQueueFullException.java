@@ -0,0 +1,13 @@
+package com.finadem.exception.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class TransferQueueFullException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TransferQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -19,6 +20,14 @@ public class DateHelper {
         }
     }
 
+    public YearMonth validateAndParseMonth(String month) throws InvalidDateFormatException {
+        try {
+            return YearMonth.parse(month, DateTimeFormatter.ofPattern("MM-yyyy"));
+        } catch (DateTimeParseException e) {
+            throw new InvalidDateFormatException("Invalid month format for "+month+". Expected format: MM-yyyy");
+        }
+    }
+
     public void isStartDateAfterEndDate(LocalDate fromDate, LocalDate toDate) {
         if (fromDate.isAfter(toDate)) {
             throw new StartDateAfterEndDateException("From date cannot be after To date.");
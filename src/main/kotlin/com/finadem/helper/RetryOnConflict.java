@@ -0,0 +1,17 @@
+package com.finadem.helper;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the annotated transactional method when it fails with a
+ * {@link org.springframework.dao.ConcurrencyFailureException}, i.e. a lock timeout or a
+ * deadlock. Attempts and backoff come from {@code transaction.retry.*}.
+ * The method must start its own transaction, as a conflict can only be retried after rollback.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,79 @@
+package com.finadem.helper;
+
+import com.finadem.configurations.TransactionRetryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ordered ahead of the transaction interceptor so every attempt runs in a fresh transaction.
+ * The conflict rate is {@code transaction.retry.conflicts} over {@code transaction.retry.attempts}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RetryOnConflictAspect {
+    Logger logger = LoggerFactory.getLogger(RetryOnConflictAspect.class);
+    private final TransactionRetryConfig transactionRetryConfig;
+    private final MeterRegistry meterRegistry;
+
+    public RetryOnConflictAspect(TransactionRetryConfig transactionRetryConfig, MeterRegistry meterRegistry) {
+        this.transactionRetryConfig = transactionRetryConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.finadem.helper.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inside a caller's transaction the conflict has to roll back the whole unit of work
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().getName();
+        int maxAttempts = Math.max(1, transactionRetryConfig.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            counter("transaction.retry.attempts", method).increment();
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                counter("transaction.retry.conflicts", method).increment();
+                if (attempt >= maxAttempts) {
+                    counter("transaction.retry.exhausted", method).increment();
+                    logger.warn("{} still conflicting after {} attempts", method, attempt);
+                    throw e;
+                }
+                logger.debug("{} conflicted on attempt {}, retrying", method, attempt, e);
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    // Full jitter: a random pause up to an exponentially growing, capped ceiling. Interrupted, it gives up
+    // with the conflict, as the advised methods do not declare InterruptedException
+    private void backoff(int attempt, ConcurrencyFailureException conflict) {
+        long ceiling = Math.min(transactionRetryConfig.getMaxBackoffMillis(),
+                transactionRetryConfig.getInitialBackoffMillis() << Math.min(attempt - 1, 20));
+        if (ceiling > 0) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw conflict;
+            }
+        }
+    }
+
+    private Counter counter(String name, String method) {
+        return meterRegistry.counter(name, "method", method);
+    }
+}
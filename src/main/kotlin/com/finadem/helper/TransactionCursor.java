@@ -0,0 +1,40 @@
+package com.finadem.helper;
+
+import com.finadem.exception.exceptions.InvalidCursorException;
+import com.finadem.response.TransactionView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an account's history, newest first: the booking time and id of the last transaction
+ * a client has seen. Handed out as an opaque URL-safe token, so clients cannot build or rely on its format.
+ */
+public record TransactionCursor(LocalDateTime timestamp, long transactionId) {
+    private static final char SEPARATOR = '|';
+
+    public static TransactionCursor after(TransactionView transaction) {
+        return new TransactionCursor(transaction.timestamp(), transaction.transactionId());
+    }
+
+    public String encode() {
+        String position = timestamp.toString() + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            return new TransactionCursor(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
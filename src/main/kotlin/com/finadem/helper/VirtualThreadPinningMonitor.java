@@ -0,0 +1,102 @@
+package com.finadem.helper;
+
+import com.finadem.configurations.VirtualThreadConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, e.g. inside a synchronized
+ * block or a native frame, as a pinned virtual thread takes a carrier away from all the others.
+ * Streams the JDK's jdk.VirtualThreadPinned flight recorder events in process and records each one
+ * in the jvm.threads.virtual.pinned timer, tagged with the application frame it happened in. The
+ * first event of a site is logged with its stack trace, later ones are only counted.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+class VirtualThreadPinningMonitor {
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    static final String PINNED_METRIC = "jvm.threads.virtual.pinned";
+    private static final String APPLICATION_PACKAGE = "com.finadem.";
+
+    Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final int stackDepth;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream recordingStream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(VirtualThreadConfig virtualThreadConfig, MeterRegistry meterRegistry) {
+        this(meterRegistry, Duration.ofMillis(virtualThreadConfig.getPinningThresholdMillis()), virtualThreadConfig.getPinningStackDepth());
+    }
+
+    VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold, int stackDepth) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+        this.stackDepth = Math.max(1, stackDepth);
+    }
+
+    @PostConstruct
+    void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        logger.info("Reporting virtual threads pinned for longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = siteOf(frames);
+        Timer.builder(PINNED_METRIC)
+                .description("Time virtual threads spent blocked while pinned to their carrier thread")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reportedSites.add(site)) {
+            logger.warn("Virtual thread #{} was pinned to its carrier for {} ms at {}, further pinning there is only counted:\n\tat {}",
+                    event.getThread() == null ? "?" : event.getThread().getJavaThreadId(), event.getDuration().toMillis(), site,
+                    frames.stream().limit(stackDepth).map(VirtualThreadPinningMonitor::describe).collect(Collectors.joining("\n\tat ")));
+        }
+    }
+
+    // The innermost application frame says which of our code to change; the JDK frames above it are
+    // where the thread parked, the same for every site
+    static String siteOf(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(frame -> frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .or(() -> frames.stream().filter(RecordedFrame::isJavaFrame).findFirst())
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse("unknown");
+    }
+
+    private static String describe(RecordedFrame frame) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+}
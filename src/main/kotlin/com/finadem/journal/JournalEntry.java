@@ -0,0 +1,64 @@
+package com.finadem.journal;
+
+import com.finadem.enums.AccountStatus;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One booking against one account, as written to the journal and projected into the
+ * Account and Transaction tables. The two legs of a transfer between local accounts are
+ * separate entries sharing a transferId, the debit leg always being written first.
+ * <p>
+ * An {@link Kind#ACCOUNT_OPENED} entry records a created account instead, with its opening balance
+ * as delta and without type and source.
+ */
+@Value
+@Builder
+@With
+public class JournalEntry {
+    public enum Kind {
+        BOOKING,
+        ACCOUNT_OPENED
+    }
+
+    // Assigned by the journal on append, strictly increasing in file order
+    long sequence;
+    Instant bookedAt;
+    String iban;
+    String transactingAccount;
+    // Signed change applied to the balance of iban
+    BigDecimal delta;
+    CurrencyEnum currency;
+    TransactionType type;
+    TransactionSource source;
+    String remarks;
+    String transferId;
+    // The booking created the account, the projection has to insert it
+    boolean accountOpened;
+    @Builder.Default
+    Kind kind = Kind.BOOKING;
+    // Account data of ACCOUNT_OPENED entries, as requested on creation
+    Long customerId;
+    String accountHolderName;
+    String taxId;
+    AccountStatus accountStatus;
+
+    public BigDecimal getAmount() {
+        return delta.abs();
+    }
+
+    public boolean isAccountOpening() {
+        return kind == Kind.ACCOUNT_OPENED;
+    }
+
+    public boolean isTransferLeg() {
+        return transferId != null;
+    }
+}
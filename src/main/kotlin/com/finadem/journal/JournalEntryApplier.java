@@ -0,0 +1,102 @@
+package com.finadem.journal;
+
+import com.finadem.entity.Transaction;
+import com.finadem.enums.AccountStatus;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.service.AccountService;
+import com.finadem.service.TransactionAggregateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes journal entries into the Account and Transaction tables, in the order given. Shared by the
+ * ledger projection and the startup replay of the transaction journal.
+ */
+@Component
+public class JournalEntryApplier {
+    Logger logger = LoggerFactory.getLogger(JournalEntryApplier.class);
+    private final AccountService accountService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionAggregateService transactionAggregateService;
+
+    public JournalEntryApplier(AccountService accountService,
+                               TransactionRepository transactionRepository,
+                               TransactionAggregateService transactionAggregateService) {
+        this.accountService = accountService;
+        this.transactionRepository = transactionRepository;
+        this.transactionAggregateService = transactionAggregateService;
+    }
+
+    /**
+     * Applies the entries and returns how many of them were booked. An entry of an account that does
+     * not exist is logged and skipped, one its account cannot cover fails the caller's transaction.
+     * Account openings are applied too but not counted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int apply(List<JournalEntry> entries) {
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) {
+            LocalDateTime bookedAt = LocalDateTime.ofInstant(entry.getBookedAt(), ZoneId.systemDefault());
+            // Opened empty and credited like any other booking, so the balance checkpoint
+            // of the day the entry was booked is updated, not the one of the projection
+            if (entry.isAccountOpening()) {
+                accountService.restoreAccount(AccountDataRequest.builder()
+                        .customerId(entry.getCustomerId())
+                        .iban(entry.getIban())
+                        .accountHolderName(entry.getAccountHolderName())
+                        .taxId(entry.getTaxId())
+                        .currency(entry.getCurrency())
+                        .status(entry.getAccountStatus())
+                        .currentBalance(BigDecimal.ZERO)
+                        .build());
+                if (entry.getDelta().signum() != 0) {
+                    accountService.applyBalanceDelta(entry.getIban(), entry.getDelta(), bookedAt.toLocalDate());
+                }
+                continue;
+            }
+            if (entry.isAccountOpened()) {
+                accountService.restoreAccount(AccountDataRequest.builder()
+                        .iban(entry.getIban())
+                        .accountHolderName(entry.getIban())
+                        .currency(CurrencyEnum.EUR)
+                        .status(AccountStatus.ACTIVE_KYC_NOT_COMPLETED)
+                        .currentBalance(BigDecimal.ZERO)
+                        .build());
+            }
+            if (accountService.applyBalanceDelta(entry.getIban(), entry.getDelta(), bookedAt.toLocalDate()) == null) {
+                logger.warn("Skipped journal entry {}, account {} does not exist", entry.getSequence(), entry.getIban());
+                continue;
+            }
+            transactions.add(toTransaction(entry, bookedAt));
+        }
+        transactionRepository.saveAll(transactions);
+        transactionAggregateService.recordTransactions(transactions);
+        return transactions.size();
+    }
+
+    private Transaction toTransaction(JournalEntry entry, LocalDateTime bookedAt) {
+        return Transaction.builder()
+                .iban(entry.getIban())
+                .transactingAccount(entry.getTransactingAccount())
+                .amount(entry.getAmount())
+                .type(entry.getType())
+                .source(entry.getSource())
+                .status(TransactionStatus.SUCCESS)
+                .currency(entry.getCurrency())
+                .transactionRemarks(entry.getRemarks())
+                .timestamp(bookedAt)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.finadem.journal;
+
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.TransactionType;
+import com.finadem.request.AccountDataRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Journals the accounts and bookings of the direct and group-commit engines. Entries are appended
+ * once the database transaction that saved the rows has committed, so a rolled back booking is never
+ * in the journal. Does nothing while the transaction journal is disabled.
+ * {@link com.finadem.enums.FsyncPolicy} describes what a crash between commit and append loses.
+ */
+@Component
+public class JournalRecorder {
+    private final TransactionJournal transactionJournal;
+
+    public JournalRecorder(Optional<MappedTransactionJournal> transactionJournal) {
+        this.transactionJournal = transactionJournal.orElse(null);
+    }
+
+    public boolean isEnabled() {
+        return transactionJournal != null;
+    }
+
+    /**
+     * Journals a created account with the balance it was opened with. Holder name and tax id are
+     * taken from the request, so creating the account again from the entry stores the same values.
+     */
+    public void recordAccountOpened(Account account, AccountDataRequest accountDataRequest) {
+        if (isEnabled()) {
+            append(List.of(JournalEntry.builder()
+                    .kind(JournalEntry.Kind.ACCOUNT_OPENED)
+                    .bookedAt(Instant.now())
+                    .iban(account.getIban())
+                    .delta(account.getCurrentBalance() == null ? BigDecimal.ZERO : account.getCurrentBalance())
+                    .currency(account.getCurrency())
+                    .customerId(account.getCustomerId())
+                    .accountHolderName(accountDataRequest.getAccountHolderName())
+                    .taxId(accountDataRequest.getTaxId())
+                    .accountStatus(account.getStatus())
+                    .build()));
+        }
+    }
+
+    /**
+     * Journals a saved Transaction row that changed the balance of its account by delta.
+     */
+    public void record(Transaction transaction, BigDecimal delta) {
+        if (isEnabled()) {
+            append(List.of(toEntry(transaction, delta)));
+        }
+    }
+
+    /**
+     * Journals saved transfer legs, each crediting or debiting its account by its amount.
+     */
+    public void recordTransfers(Collection<Transaction> transactions) {
+        if (isEnabled() && !transactions.isEmpty()) {
+            append(transactions.stream()
+                    .map(transaction -> toEntry(transaction, TransactionType.CREDIT.equals(transaction.getType())
+                            ? transaction.getAmount() : transaction.getAmount().negate()))
+                    .toList());
+        }
+    }
+
+    private void append(List<JournalEntry> entries) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entries.forEach(transactionJournal::append);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entries.forEach(transactionJournal::append);
+            }
+        });
+    }
+
+    private JournalEntry toEntry(Transaction transaction, BigDecimal delta) {
+        return JournalEntry.builder()
+                .bookedAt(transaction.getTimestamp().atZone(ZoneId.systemDefault()).toInstant())
+                .iban(transaction.getIban())
+                .transactingAccount(transaction.getTransactingAccount())
+                .delta(delta)
+                .currency(transaction.getCurrency())
+                .type(transaction.getType())
+                .source(transaction.getSource())
+                .remarks(transaction.getTransactionRemarks())
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.finadem.journal;
+
+import com.finadem.configurations.TransactionJournalConfig;
+import com.finadem.entity.JournalReplay;
+import com.finadem.repository.JournalReplayRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Rebuilds a database that does not hold the journal's bookings yet, e.g. the in-memory one after a
+ * restart, by applying the account openings and then the bookings of the journal, each in order.
+ * Runs after the demo account is seeded, as the journal continues from its opening balance, and
+ * before the web server accepts requests, which would otherwise read and book against a database
+ * that is not replayed yet. Everything is replayed in one database transaction together with the
+ * {@link JournalReplay} marker, so a failed replay leaves nothing behind and stops the start.
+ */
+@Component
+@ConditionalOnExpression(TransactionJournalConfig.ENABLED_CONDITION)
+class JournalReplayer implements SmartLifecycle {
+    // Started before the web server and the transfer workers, like the ledger engine it stands in for
+    static final int PHASE = 0;
+
+    Logger logger = LoggerFactory.getLogger(JournalReplayer.class);
+    private final TransactionJournal transactionJournal;
+    private final JournalEntryApplier journalEntryApplier;
+    private final JournalReplayRepository journalReplayRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private volatile boolean running;
+
+    public JournalReplayer(MappedTransactionJournal transactionJournal,
+                           JournalEntryApplier journalEntryApplier,
+                           JournalReplayRepository journalReplayRepository,
+                           EntityManager entityManager,
+                           PlatformTransactionManager transactionManager,
+                           TransactionJournalConfig transactionJournalConfig) {
+        this.transactionJournal = transactionJournal;
+        this.journalEntryApplier = journalEntryApplier;
+        this.journalReplayRepository = journalReplayRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, transactionJournalConfig.getReplayBatchSize());
+    }
+
+    @Override
+    public void start() {
+        replay();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Replays the journal unless the database already holds it and returns the number of entries booked.
+     */
+    int replay() {
+        if (journalReplayRepository.existsById(JournalReplay.SINGLETON_ID)) {
+            logger.info("Database already holds the transaction journal, skipping replay");
+            return 0;
+        }
+        long start = System.nanoTime();
+        long lastSequence = transactionJournal.getLastSequence();
+        int booked = transactionTemplate.execute(status -> {
+            // Every account is opened before the first booking, which may have been journaled
+            // ahead of its account's opening by a concurrent request
+            replayEntries(lastSequence, JournalEntry::isAccountOpening);
+            int applied = replayEntries(lastSequence, entry -> !entry.isAccountOpening());
+            journalReplayRepository.save(new JournalReplay(JournalReplay.SINGLETON_ID, lastSequence, LocalDateTime.now()));
+            return applied;
+        });
+        logger.info("Replayed {} of {} transaction journal entries in {} ms", booked, lastSequence,
+                (System.nanoTime() - start) / 1_000_000);
+        return booked;
+    }
+
+    private int replayEntries(long lastSequence, Predicate<JournalEntry> filter) {
+        int[] applied = new int[1];
+        List<JournalEntry> batch = new ArrayList<>(batchSize);
+        // Entries appended while replaying belong to bookings the database already has
+        transactionJournal.replay(0, entry -> {
+            if (entry.getSequence() > lastSequence || !filter.test(entry)) {
+                return;
+            }
+            batch.add(entry);
+            if (batch.size() == batchSize) {
+                applied[0] += applyBatch(batch);
+            }
+        });
+        applied[0] += applyBatch(batch);
+        return applied[0];
+    }
+
+    // Flushing and clearing per batch keeps the persistence context small however long the journal is
+    private int applyBatch(List<JournalEntry> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int applied = journalEntryApplier.apply(batch);
+        entityManager.flush();
+        entityManager.clear();
+        batch.clear();
+        return applied;
+    }
+}
@@ -0,0 +1,265 @@
+package com.finadem.journal;
+
+import com.finadem.configurations.TransactionJournalConfig;
+import com.finadem.enums.FsyncPolicy;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The record format of {@link FileTransactionJournal}, written through a memory-mapped segment
+ * instead of a write call per record. Segments are preallocated with zeros, so the first zero
+ * length marks the end of the records. A full segment is forced and sealed, the next one is named
+ * after the sequence of its first record.
+ * <p>
+ * A record cut short by a crash fails its checksum; it and anything after it in the last segment
+ * is zeroed on the next start.
+ * <p>
+ * Appends run on request threads after commit and may wait for an fsync, so the journal is guarded by
+ * a {@link ReentrantLock}: a virtual thread blocked in a monitor would hold on to its carrier thread.
+ */
+@Component
+@ConditionalOnExpression(TransactionJournalConfig.ENABLED_CONDITION)
+class MappedTransactionJournal implements TransactionJournal, Closeable {
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+    private final Path directory;
+    private final int segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final ScheduledExecutorService fsyncExecutor;
+    // First sequence of each segment, the last one is mapped for appending
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // Bytes of the active segment already forced to disk
+    private int forcedPosition;
+    // Written under the lock, read without it
+    private volatile long lastSequence;
+
+    @Autowired
+    public MappedTransactionJournal(TransactionJournalConfig transactionJournalConfig) {
+        this(Path.of(transactionJournalConfig.getDirectory()), transactionJournalConfig.getSegmentSizeMb() * 1024 * 1024,
+                transactionJournalConfig.getFsyncPolicy(), transactionJournalConfig.getFsyncIntervalMillis());
+    }
+
+    MappedTransactionJournal(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, segmentBytes);
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .forEach(file -> segments.put(firstSequence(file), file));
+            }
+            if (segments.isEmpty()) {
+                startSegment(1);
+            } else {
+                openLastSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open transaction journal " + directory, e);
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long intervalMillis = Math.max(1, fsyncIntervalMillis);
+            fsyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncExecutor.scheduleWithFixedDelay(this::force, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            fsyncExecutor = null;
+        }
+        logger.info("Opened transaction journal {} with {} segments at sequence {}, fsync {}",
+                directory, segments.size(), lastSequence, fsyncPolicy);
+    }
+
+    @Override
+    public JournalEntry append(JournalEntry entry) {
+        lock.lock();
+        try {
+            JournalEntry sequenced = entry.withSequence(lastSequence + 1);
+            try {
+                byte[] payload = FileTransactionJournal.encode(sequenced);
+                if (HEADER_BYTES + payload.length > segmentBytes) {
+                    throw new IllegalArgumentException("Journal record of " + payload.length + " bytes does not fit a segment");
+                }
+                if (HEADER_BYTES + payload.length > buffer.remaining()) {
+                    sealSegment();
+                    startSegment(sequenced.getSequence());
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to transaction journal " + directory, e);
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                force();
+            }
+            lastSequence = sequenced.getSequence();
+            return sequenced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(long afterSequence, Consumer<JournalEntry> consumer) {
+        lock.lock();
+        try {
+            Consumer<JournalEntry> after = entry -> {
+                if (entry.getSequence() > afterSequence) {
+                    consumer.accept(entry);
+                }
+            };
+            for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+                // A segment ends right before the first sequence of the next one
+                Long next = segments.higherKey(segment.getKey());
+                if (next != null && next <= afterSequence + 1) {
+                    continue;
+                }
+                if (next == null) {
+                    scan(buffer.duplicate().flip(), after);
+                    continue;
+                }
+                try (FileChannel sealed = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                    scan(sealed.map(FileChannel.MapMode.READ_ONLY, 0, sealed.size()), after);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read journal segment " + segment.getValue(), e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdownNow();
+        }
+        lock.lock();
+        try {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                force();
+            }
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forces what was appended to the active segment since the last call
+    private void force() {
+        lock.lock();
+        try {
+            int position = buffer.position();
+            if (position > forcedPosition) {
+                buffer.force(forcedPosition, position - forcedPosition);
+                forcedPosition = position;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sealSegment() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            force();
+        }
+        channel.close();
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the file to the full segment size
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        forcedPosition = 0;
+        segments.put(firstSequence, path);
+    }
+
+    private void openLastSegment() throws IOException {
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        channel = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Segments keep the size they were written with, whatever the configuration says now
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size() > 0 ? channel.size() : segmentBytes);
+        lastSequence = last.getKey() - 1;
+        int validEnd = scan(buffer.duplicate(), entry -> lastSequence = entry.getSequence());
+        if (validEnd + HEADER_BYTES <= buffer.capacity() && buffer.getLong(validEnd) != 0) {
+            logger.warn("Zeroing incomplete journal records after position {} of {}", validEnd, last.getValue());
+            for (int position = validEnd; position < buffer.capacity(); position++) {
+                buffer.put(position, (byte) 0);
+            }
+            buffer.force();
+        }
+        buffer.position(validEnd);
+        forcedPosition = validEnd;
+    }
+
+    // Reads records from the start of the buffer and returns the length of the valid prefix
+    private static int scan(ByteBuffer records, Consumer<JournalEntry> consumer) {
+        int position = 0;
+        while (position + HEADER_BYTES <= records.limit()) {
+            int length = records.getInt(position);
+            int checksum = records.getInt(position + Integer.BYTES);
+            if (length <= 0 || position + HEADER_BYTES + length > records.limit()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            records.get(position + HEADER_BYTES, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            try {
+                consumer.accept(FileTransactionJournal.decode(payload));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not decode journal record at position " + position, e);
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,282 @@
+package com.finadem.journal;
+
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.enums.AccountStatus;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.FsyncPolicy;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public interface TransactionJournal {
+    /**
+     * Appends the entry and returns it with its assigned sequence number.
+     */
+    JournalEntry append(JournalEntry entry);
+
+    /**
+     * Passes every entry with a sequence above {@code afterSequence} to the consumer, in append order.
+     */
+    void replay(long afterSequence, Consumer<JournalEntry> consumer);
+
+    long getLastSequence();
+}
+
+/**
+ * Length-prefixed, checksummed records in a single file. A record cut short by a crash fails
+ * its checksum and is truncated on the next start, together with anything after it.
+ * <p>
+ * Records are forced to disk according to the {@link FsyncPolicy}. Appends may wait for an fsync, so the
+ * journal is guarded by a {@link ReentrantLock} rather than a monitor, as {@link MappedTransactionJournal} is.
+ */
+@Component
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = LedgerConfig.LEDGER_ENGINE)
+class FileTransactionJournal implements TransactionJournal, Closeable {
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+    private final Path journalPath;
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final ScheduledExecutorService fsyncExecutor;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Whether records were appended since the last force
+    private boolean unforced;
+    // Written under the lock, read without it
+    private volatile long lastSequence;
+
+    @Autowired
+    public FileTransactionJournal(LedgerConfig ledgerConfig) {
+        this(Path.of(ledgerConfig.getJournalPath()), ledgerConfig.getFsyncPolicy(), ledgerConfig.getFsyncIntervalMillis());
+    }
+
+    FileTransactionJournal(Path journalPath, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.journalPath = journalPath;
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            if (journalPath.getParent() != null) {
+                Files.createDirectories(journalPath.getParent());
+            }
+            this.channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long validLength = scan(entry -> lastSequence = entry.getSequence());
+            if (validLength < channel.size()) {
+                logger.warn("Truncating {} bytes of incomplete journal records in {}", channel.size() - validLength, journalPath);
+                channel.truncate(validLength);
+            }
+            channel.position(validLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open transaction journal " + journalPath, e);
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long intervalMillis = Math.max(1, fsyncIntervalMillis);
+            fsyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-journal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncExecutor.scheduleWithFixedDelay(this::force, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            fsyncExecutor = null;
+        }
+    }
+
+    @Override
+    public JournalEntry append(JournalEntry entry) {
+        lock.lock();
+        try {
+            JournalEntry sequenced = entry.withSequence(lastSequence + 1);
+            try {
+                byte[] payload = encode(sequenced);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+                record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to transaction journal " + journalPath, e);
+            }
+            unforced = true;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                force();
+            }
+            lastSequence = sequenced.getSequence();
+            return sequenced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(long afterSequence, Consumer<JournalEntry> consumer) {
+        lock.lock();
+        try {
+            scan(entry -> {
+                if (entry.getSequence() > afterSequence) {
+                    consumer.accept(entry);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transaction journal " + journalPath, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdownNow();
+        }
+        lock.lock();
+        try {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                force();
+            }
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forces what was appended since the last call
+    private void force() {
+        lock.lock();
+        try {
+            if (unforced && channel.isOpen()) {
+                channel.force(false);
+                unforced = false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not force transaction journal " + journalPath, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reads records from the start of the file and returns the length of the valid prefix
+    private long scan(Consumer<JournalEntry> consumer) throws IOException {
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            consumer.accept(decode(payload.array()));
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    static byte[] encode(JournalEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(entry.getSequence());
+            out.writeLong(entry.getBookedAt().toEpochMilli());
+            out.writeUTF(entry.getIban());
+            writeNullable(out, entry.getTransactingAccount());
+            out.writeInt(entry.getDelta().scale());
+            byte[] unscaled = entry.getDelta().unscaledValue().toByteArray();
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+            out.writeUTF(entry.getCurrency().name());
+            // Empty for account openings, which have neither
+            out.writeUTF(entry.getType() == null ? "" : entry.getType().name());
+            out.writeUTF(entry.getSource() == null ? "" : entry.getSource().name());
+            writeNullable(out, entry.getRemarks());
+            writeNullable(out, entry.getTransferId());
+            out.writeBoolean(entry.isAccountOpened());
+            // Bookings end here, as they did before entries had a kind
+            if (entry.isAccountOpening()) {
+                out.writeUTF(entry.getKind().name());
+                out.writeLong(entry.getCustomerId());
+                out.writeUTF(entry.getAccountHolderName());
+                writeNullable(out, entry.getTaxId());
+                out.writeUTF(entry.getAccountStatus().name());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalEntry decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            JournalEntry.JournalEntryBuilder entry = JournalEntry.builder()
+                    .sequence(in.readLong())
+                    .bookedAt(Instant.ofEpochMilli(in.readLong()))
+                    .iban(in.readUTF())
+                    .transactingAccount(readNullable(in));
+            int scale = in.readInt();
+            byte[] unscaled = new byte[in.readShort()];
+            in.readFully(unscaled);
+            entry.delta(new BigDecimal(new BigInteger(unscaled), scale))
+                    .currency(CurrencyEnum.valueOf(in.readUTF()));
+            String type = in.readUTF();
+            String source = in.readUTF();
+            entry.type(type.isEmpty() ? null : TransactionType.valueOf(type))
+                    .source(source.isEmpty() ? null : TransactionSource.valueOf(source))
+                    .remarks(readNullable(in))
+                    .transferId(readNullable(in))
+                    .accountOpened(in.readBoolean());
+            if (in.available() > 0) {
+                entry.kind(JournalEntry.Kind.valueOf(in.readUTF()))
+                        .customerId(in.readLong())
+                        .accountHolderName(in.readUTF())
+                        .taxId(readNullable(in))
+                        .accountStatus(AccountStatus.valueOf(in.readUTF()));
+            }
+            return entry.build();
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
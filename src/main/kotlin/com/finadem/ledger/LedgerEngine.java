@@ -0,0 +1,248 @@
+package com.finadem.ledger;
+
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.journal.JournalEntry;
+import com.finadem.journal.TransactionJournal;
+import com.finadem.repository.AccountRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps account balances in memory, partitioned by IBAN across single-threaded shards. A booking is
+ * applied by the shard owning the account, appended to the journal and acknowledged; the database
+ * is brought up to date afterwards by the {@link LedgerProjector}.
+ * <p>
+ * Transfers between shards run as two legs. The debit leg is checked and applied first on the
+ * sender's shard; the credit leg follows on the recipient's shard and cannot fail, as accounts are
+ * never removed and credits have no limit. A debit leg found in the journal without its credit leg
+ * after a crash is completed during startup replay.
+ */
+@Component
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = LedgerConfig.LEDGER_ENGINE)
+public class LedgerEngine implements SmartLifecycle {
+    Logger logger = LoggerFactory.getLogger(LedgerEngine.class);
+    private final TransactionJournal transactionJournal;
+    private final LedgerProjector ledgerProjector;
+    private final LedgerShard[] shards;
+    private final int projectionBatchSize;
+    // Held across the journal's fsync, which a monitor would pin a virtual thread's carrier for
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private volatile boolean running;
+
+    public LedgerEngine(TransactionJournal transactionJournal,
+                        LedgerProjector ledgerProjector,
+                        AccountRepository accountRepository,
+                        LedgerConfig ledgerConfig,
+                        MeterRegistry meterRegistry) {
+        this.transactionJournal = transactionJournal;
+        this.ledgerProjector = ledgerProjector;
+        this.projectionBatchSize = Math.max(1, ledgerConfig.getProjectionBatchSize());
+        this.shards = new LedgerShard[Math.max(1, ledgerConfig.getShards())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, accountRepository::findCurrentBalanceByAccountNumber);
+        }
+        Gauge.builder("ledger.projection.lag", this, engine -> engine.transactionJournal.getLastSequence() - engine.ledgerProjector.getProjectedSequence())
+                .description("Journal entries booked by the ledger but not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Credits the account, opening it if it does not exist yet. Completes with the new balance.
+     */
+    public CompletableFuture<BigDecimal> deposit(JournalEntry entry) {
+        return shardOf(entry.getIban()).submit(shard -> {
+            BigDecimal balance = shard.getBalance(entry.getIban());
+            if (balance == null) {
+                record(entry.withAccountOpened(true));
+                shard.setBalance(entry.getIban(), entry.getDelta());
+                return entry.getDelta();
+            }
+            return book(shard, balance, entry);
+        });
+    }
+
+    /**
+     * Applies a signed booking to an existing account. Completes with the new balance, or null if
+     * the account does not exist, and fails with {@link InsufficientBalanceException} if the balance
+     * would drop below zero.
+     */
+    public CompletableFuture<BigDecimal> post(JournalEntry entry) {
+        return shardOf(entry.getIban()).submit(shard -> {
+            BigDecimal balance = shard.getBalance(entry.getIban());
+            return balance == null ? null : book(shard, balance, entry);
+        });
+    }
+
+    /**
+     * Moves money between a local customer account and a counterparty that may be held at another
+     * bank, in which case only the customer's leg is booked. The customer is debited for DEBIT
+     * transfers and credited for CREDIT transfers.
+     */
+    public CompletableFuture<Void> transfer(JournalEntry customerLeg, JournalEntry counterpartyLeg) {
+        String customerIban = customerLeg.getIban();
+        boolean customerIsDebited = customerLeg.getDelta().signum() < 0;
+        return exists(counterpartyLeg.getIban()).thenCompose(counterpartyIsLocal -> {
+            String transferId = counterpartyIsLocal ? UUID.randomUUID().toString() : null;
+            JournalEntry customer = customerLeg.withTransferId(transferId);
+            JournalEntry counterparty = counterpartyLeg.withTransferId(transferId);
+            if (customerIsDebited) {
+                return requireApplied(post(customer), customerIban)
+                        .thenCompose(ignored -> counterpartyIsLocal ? post(counterparty) : CompletableFuture.completedFuture(null));
+            }
+            // The customer must exist before the counterparty is debited, the credit leg cannot be refused
+            return exists(customerIban).thenCompose(customerExists -> {
+                if (!customerExists) {
+                    throw new IbanNotFoundException("Account with IBAN " + customerIban + " not found.");
+                }
+                CompletableFuture<BigDecimal> debit = counterpartyIsLocal ? post(counterparty) : CompletableFuture.completedFuture(null);
+                return debit.thenCompose(ignored -> post(customer));
+            });
+        }).thenApply(ignored -> null);
+    }
+
+    /**
+     * Waits until everything booked so far has been written to the database.
+     */
+    public boolean awaitProjection(long timeoutMillis) throws InterruptedException {
+        return ledgerProjector.awaitProjected(transactionJournal.getLastSequence(), timeoutMillis);
+    }
+
+    @Override
+    public void start() {
+        replayJournal();
+        ledgerProjector.start();
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+        running = true;
+        logger.info("Ledger engine started with {} shards at journal sequence {}", shards.length, transactionJournal.getLastSequence());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            for (LedgerShard shard : shards) {
+                shard.stop();
+            }
+            ledgerProjector.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stopped after the web server, started before it
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private CompletableFuture<Boolean> exists(String iban) {
+        return shardOf(iban).submit(shard -> shard.getBalance(iban) != null);
+    }
+
+    private CompletableFuture<BigDecimal> requireApplied(CompletableFuture<BigDecimal> booking, String iban) {
+        return booking.thenApply(balance -> {
+            if (balance == null) {
+                throw new IbanNotFoundException("Account with IBAN " + iban + " not found.");
+            }
+            return balance;
+        });
+    }
+
+    private BigDecimal book(LedgerShard shard, BigDecimal balance, JournalEntry entry) {
+        BigDecimal updated = balance.add(entry.getDelta());
+        if (updated.signum() < 0) {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
+        record(entry);
+        shard.setBalance(entry.getIban(), updated);
+        return updated;
+    }
+
+    // Appending and queueing under one lock keeps the projector's input in journal order
+    private void record(JournalEntry entry) {
+        journalLock.lock();
+        try {
+            ledgerProjector.enqueue(transactionJournal.append(entry));
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private LedgerShard shardOf(String iban) {
+        return shards[Math.floorMod(iban.hashCode(), shards.length)];
+    }
+
+    /**
+     * Projects everything the database has not seen yet before any shard loads a balance from it,
+     * and completes transfers whose credit leg was never written.
+     */
+    private void replayJournal() {
+        long projectedSequence = ledgerProjector.loadProjectedSequence();
+        Map<String, JournalEntry> openTransfers = new LinkedHashMap<>();
+        List<JournalEntry> batch = new ArrayList<>(projectionBatchSize);
+        transactionJournal.replay(0, entry -> {
+            if (entry.isTransferLeg()) {
+                if (openTransfers.remove(entry.getTransferId()) == null) {
+                    openTransfers.put(entry.getTransferId(), entry);
+                }
+            }
+            if (entry.getSequence() > projectedSequence) {
+                batch.add(entry);
+                if (batch.size() == projectionBatchSize) {
+                    ledgerProjector.project(List.copyOf(batch));
+                    batch.clear();
+                }
+            }
+        });
+        for (JournalEntry firstLeg : openTransfers.values()) {
+            logger.warn("Completing transfer {} from {} to {} interrupted before its second leg",
+                    firstLeg.getTransferId(), firstLeg.getIban(), firstLeg.getTransactingAccount());
+            batch.add(transactionJournal.append(secondLegOf(firstLeg)));
+        }
+        ledgerProjector.project(List.copyOf(batch));
+        if (transactionJournal.getLastSequence() > projectedSequence) {
+            logger.info("Replayed ledger journal from sequence {} to {}", projectedSequence, transactionJournal.getLastSequence());
+        }
+    }
+
+    private JournalEntry secondLegOf(JournalEntry firstLeg) {
+        return JournalEntry.builder()
+                .bookedAt(Instant.now())
+                .iban(firstLeg.getTransactingAccount())
+                .transactingAccount(firstLeg.getIban())
+                .delta(firstLeg.getDelta().negate())
+                .currency(CurrencyEnum.EUR)
+                .type(firstLeg.getDelta().signum() < 0 ? TransactionType.CREDIT : TransactionType.DEBIT)
+                .source(TransactionSource.ONLINE_FUND_TRANSFER)
+                .remarks("Online fund transfer " + (firstLeg.getDelta().signum() < 0 ? "from" : "to") + " account " + firstLeg.getIban())
+                .transferId(firstLeg.getTransferId())
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.finadem.ledger;
+
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.entity.LedgerProjection;
+import com.finadem.journal.JournalEntry;
+import com.finadem.journal.JournalEntryApplier;
+import com.finadem.repository.LedgerProjectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes journal entries into the Account and Transaction tables in batches, off the request path.
+ * Entries arrive in journal order, so each account sees its bookings in the order the shard applied them.
+ */
+@Component
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = LedgerConfig.LEDGER_ENGINE)
+class LedgerProjector implements Runnable {
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    Logger logger = LoggerFactory.getLogger(LedgerProjector.class);
+    private final BlockingQueue<JournalEntry> pending = new LinkedBlockingQueue<>();
+    private final JournalEntryApplier journalEntryApplier;
+    private final LedgerProjectionRepository ledgerProjectionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    // Not a monitor: a virtual thread waiting on one would hold on to its carrier thread
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+    private volatile long projectedSequence;
+    private volatile boolean running;
+    private Thread worker;
+
+    public LedgerProjector(JournalEntryApplier journalEntryApplier,
+                           LedgerProjectionRepository ledgerProjectionRepository,
+                           TransactionTemplate transactionTemplate,
+                           LedgerConfig ledgerConfig) {
+        this.journalEntryApplier = journalEntryApplier;
+        this.ledgerProjectionRepository = ledgerProjectionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, ledgerConfig.getProjectionBatchSize());
+    }
+
+    long loadProjectedSequence() {
+        projectedSequence = ledgerProjectionRepository.findById(LedgerProjection.SINGLETON_ID)
+                .map(LedgerProjection::getLastSequence)
+                .orElse(0L);
+        return projectedSequence;
+    }
+
+    long getProjectedSequence() {
+        return projectedSequence;
+    }
+
+    void start() {
+        running = true;
+        worker = new Thread(this, "ledger-projector");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join();
+        }
+    }
+
+    void enqueue(JournalEntry entry) {
+        pending.add(entry);
+    }
+
+    /**
+     * Waits until every entry up to the sequence is in the database.
+     */
+    boolean awaitProjected(long sequence, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        progressLock.lock();
+        try {
+            while (projectedSequence < sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = progress.awaitNanos(remaining);
+            }
+        } finally {
+            progressLock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        List<JournalEntry> batch = new ArrayList<>(batchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    JournalEntry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    pending.drainTo(batch, batchSize - 1);
+                }
+                project(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Shutdown: keep draining what is already queued
+                running = false;
+            } catch (RuntimeException e) {
+                // The batch is kept and retried, later entries must not overtake it. Whatever is
+                // left at shutdown is still in the journal and projected again on the next start.
+                logger.error("Ledger projection of {} entries failed, retrying", batch.size(), e);
+                if (!running) {
+                    break;
+                }
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    running = false;
+                }
+            }
+        }
+    }
+
+    void project(List<JournalEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long lastSequence = batch.getLast().getSequence();
+        transactionTemplate.executeWithoutResult(status -> {
+            journalEntryApplier.apply(batch);
+            ledgerProjectionRepository.save(new LedgerProjection(LedgerProjection.SINGLETON_ID, lastSequence));
+        });
+        progressLock.lock();
+        try {
+            projectedSequence = lastSequence;
+            progress.signalAll();
+        } finally {
+            progressLock.unlock();
+        }
+    }
+}
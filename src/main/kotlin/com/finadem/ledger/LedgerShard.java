@@ -0,0 +1,92 @@
+package com.finadem.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Owns the balances of one partition of IBANs. Every read and write of those balances runs on the
+ * shard's own thread, taken from a lock-free inbox, so no locking is needed around them.
+ */
+class LedgerShard implements Runnable {
+    Logger logger = LoggerFactory.getLogger(LedgerShard.class);
+    private final ConcurrentLinkedQueue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+    private final Map<String, BigDecimal> balances = new HashMap<>();
+    private final Function<String, BigDecimal> balanceLoader;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    LedgerShard(int index, Function<String, BigDecimal> balanceLoader) {
+        this.balanceLoader = balanceLoader;
+        this.worker = new Thread(this, "ledger-shard-" + index);
+        this.worker.setDaemon(true);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * Runs the operation on the shard thread. The operation gets exclusive access to the shard's balances.
+     */
+    <T> CompletableFuture<T> submit(Function<LedgerShard, T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        inbox.offer(() -> {
+            try {
+                result.complete(operation.apply(this));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        LockSupport.unpark(worker);
+        return result;
+    }
+
+    /**
+     * Current balance, loaded from the database on first access. Null if the account does not exist.
+     * Must only be called from an operation running on this shard.
+     */
+    BigDecimal getBalance(String iban) {
+        BigDecimal balance = balances.get(iban);
+        if (balance == null) {
+            balance = balanceLoader.apply(iban);
+            if (balance != null) {
+                balances.put(iban, balance);
+            }
+        }
+        return balance;
+    }
+
+    void setBalance(String iban, BigDecimal balance) {
+        balances.put(iban, balance);
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join();
+    }
+
+    @Override
+    public void run() {
+        while (running || !inbox.isEmpty()) {
+            Runnable operation = inbox.poll();
+            if (operation == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                operation.run();
+            } catch (RuntimeException e) {
+                logger.error("Ledger operation failed on {}", worker.getName(), e);
+            }
+        }
+    }
+}
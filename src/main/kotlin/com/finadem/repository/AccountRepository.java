@@ -2,11 +2,51 @@ package com.finadem.repository;
 
 
 import com.finadem.entity.Account;
+import com.finadem.response.VersionedAccountData;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface AccountRepository extends JpaRepository<Account, Integer> {
     @Query("FROM Account a WHERE a.iban = :accountNumber")
     Account findAccountInformationByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // Account data for reads, selected without loading a managed Account entity
+    @Query("SELECT new com.finadem.response.VersionedAccountData(a.customerId, a.iban, a.accountHolderName, a.taxId, " +
+            "a.currency, a.currentBalance, a.status, a.version) FROM Account a WHERE a.iban = :accountNumber")
+    VersionedAccountData findAccountDataByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // Locks all given accounts in one statement. Rows are taken in IBAN order, so two transactions
+    // locking the same pair can only queue behind each other and never deadlock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("FROM Account a WHERE a.iban IN :accountNumbers ORDER BY a.iban")
+    List<Account> lockAccountsInIbanOrder(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // Keyset page of IBANs, for jobs that walk every account in chunks
+    @Query("SELECT a.iban FROM Account a WHERE a.iban > :after ORDER BY a.iban")
+    List<String> findIbansAfter(@Param("after") String after, Limit limit);
+
+    @Query("SELECT a.currentBalance FROM Account a WHERE a.iban = :accountNumber")
+    BigDecimal findCurrentBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("SELECT a.createdAt FROM Account a WHERE a.iban = :accountNumber")
+    LocalDateTime findCreatedAtByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // Applies a signed delta in one statement. Returns 0 when the account does not exist or the
+    // balance would drop below zero, so no separate read is needed to enforce the constraint. The
+    // persistence context is left alone, AccountService refreshes the one Account it may hold.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.currentBalance = a.currentBalance + :delta, a.updatedAt = CURRENT_TIMESTAMP, " +
+            "a.version = a.version + 1 " +
+            "WHERE a.iban = :accountNumber AND a.currentBalance + :delta >= 0")
+    int applyBalanceDelta(@Param("accountNumber") String accountNumber, @Param("delta") BigDecimal delta);
 }
@@ -0,0 +1,39 @@
+package com.finadem.repository;
+
+import com.finadem.entity.BalanceCheckpoint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, BalanceCheckpoint.Key> {
+    @Modifying
+    @Query("UPDATE BalanceCheckpoint c SET c.closingBalance = c.closingBalance + :delta " +
+            "WHERE c.iban = :iban AND c.businessDate = :businessDate")
+    int addToClosingBalance(@Param("iban") String iban, @Param("businessDate") LocalDate businessDate, @Param("delta") BigDecimal delta);
+
+    // Only back-dated changes, e.g. ledger journal entries projected after midnight, find later checkpoints
+    @Modifying
+    @Query("UPDATE BalanceCheckpoint c SET c.closingBalance = c.closingBalance + :delta " +
+            "WHERE c.iban = :iban AND c.businessDate > :businessDate")
+    int addToLaterClosingBalances(@Param("iban") String iban, @Param("businessDate") LocalDate businessDate, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("INSERT INTO BalanceCheckpoint (iban, businessDate, closingBalance) VALUES (:iban, :businessDate, :closingBalance)")
+    int insertCheckpoint(@Param("iban") String iban, @Param("businessDate") LocalDate businessDate,
+                         @Param("closingBalance") BigDecimal closingBalance);
+
+    boolean existsByIban(String iban);
+
+    // Newest first, so Limit.of(1) reads a single index entry however old the checkpoint is
+    @Query("SELECT c.closingBalance FROM BalanceCheckpoint c WHERE c.iban = :iban AND c.businessDate <= :businessDate " +
+            "ORDER BY c.businessDate DESC")
+    List<BigDecimal> findClosingBalancesUpTo(@Param("iban") String iban, @Param("businessDate") LocalDate businessDate, Limit limit);
+}
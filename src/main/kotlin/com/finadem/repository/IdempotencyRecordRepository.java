@@ -0,0 +1,27 @@
+package com.finadem.repository;
+
+import com.finadem.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // A plain insert, save() would look the key up first
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO IdempotencyRecord (idempotencyKey, requestHash, responseBody, createdAt) " +
+            "VALUES (:idempotencyKey, :requestHash, :responseBody, :createdAt)")
+    int insertRecord(@Param("idempotencyKey") String idempotencyKey, @Param("requestHash") byte[] requestHash,
+                     @Param("responseBody") String responseBody, @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
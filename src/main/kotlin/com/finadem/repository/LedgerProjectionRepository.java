@@ -0,0 +1,9 @@
+package com.finadem.repository;
+
+import com.finadem.entity.LedgerProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerProjectionRepository extends JpaRepository<LedgerProjection, Integer> {
+}
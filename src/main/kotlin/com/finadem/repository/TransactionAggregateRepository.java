@@ -0,0 +1,41 @@
+package com.finadem.repository;
+
+import com.finadem.entity.TransactionAggregate;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.response.TransactionSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransactionAggregateRepository extends JpaRepository<TransactionAggregate, TransactionAggregate.Key> {
+    @Modifying
+    @Query("UPDATE TransactionAggregate a SET a.transactionCount = a.transactionCount + :count, a.totalAmount = a.totalAmount + :amount " +
+            "WHERE a.iban = :iban AND a.periodStart = :periodStart AND a.type = :type AND a.source = :source")
+    int addToAggregate(@Param("iban") String iban, @Param("periodStart") LocalDate periodStart, @Param("type") TransactionType type,
+                       @Param("source") TransactionSource source, @Param("count") long count, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("INSERT INTO TransactionAggregate (iban, periodStart, type, source, transactionCount, totalAmount) " +
+            "VALUES (:iban, :periodStart, :type, :source, :count, :amount)")
+    int insertAggregate(@Param("iban") String iban, @Param("periodStart") LocalDate periodStart, @Param("type") TransactionType type,
+                        @Param("source") TransactionSource source, @Param("count") long count, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT new com.finadem.response.TransactionSummary(a.periodStart, a.type, a.source, a.transactionCount, a.totalAmount) " +
+            "FROM TransactionAggregate a WHERE a.iban = :iban AND a.periodStart BETWEEN :fromPeriod AND :toPeriod " +
+            "ORDER BY a.periodStart, a.type, a.source")
+    List<TransactionSummary> findSummaries(@Param("iban") String iban, @Param("fromPeriod") LocalDate fromPeriod,
+                                           @Param("toPeriod") LocalDate toPeriod);
+
+    @Modifying
+    @Query("DELETE FROM TransactionAggregate a WHERE a.iban IN :ibans AND a.periodStart >= :fromPeriod")
+    int deleteByIbansFrom(@Param("ibans") Collection<String> ibans, @Param("fromPeriod") LocalDate fromPeriod);
+}
@@ -2,25 +2,89 @@ package com.finadem.repository;
 
 import com.finadem.entity.Account;
 import com.finadem.entity.Transaction;
+import com.finadem.entity.TransactionAggregate;
+import com.finadem.response.TransactionView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    // History reads select plain records, which Hibernate neither manages nor snapshots
+    String SELECT_VIEW = "SELECT new com.finadem.response.TransactionView(t.transactionId, t.iban, t.transactingAccount, " +
+            "t.amount, t.type, t.status, t.source, t.transactionRemarks, t.currency, t.timestamp) FROM Transaction t ";
 
-    @Query("FROM Transaction t WHERE t.iban = :iban ORDER BY t.timestamp DESC")
+    @Query("FROM Transaction t WHERE t.iban = :iban ORDER BY t.timestamp DESC, t.transactionId DESC")
     Page<Transaction> getTransactionByAccountNumber(@Param("iban") String iban, Pageable pageable);
 
-    @Query("FROM Transaction t WHERE t.iban = :iban AND t.timestamp BETWEEN :startDate AND :endDate ORDER BY t.timestamp DESC")
-    List<Transaction> getTransactionHistoryBetween(
+    // Keyset pagination, newest first. Both read a range of the (iban, timestamp, transactionId) index
+    // and stop after the limit, without counting rows or skipping an offset. The redundant
+    // "timestamp <=" bound lets the index seek to the cursor, the OR alone only matches on iban.
+    @Query(SELECT_VIEW + "WHERE t.iban = :iban ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<TransactionView> findLatestTransactions(@Param("iban") String iban, Limit limit);
+
+    @Query(SELECT_VIEW + "WHERE t.iban = :iban AND t.timestamp <= :timestamp AND (t.timestamp < :timestamp " +
+            "OR (t.timestamp = :timestamp AND t.transactionId < :transactionId)) " +
+            "ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<TransactionView> findTransactionsBefore(
+            @Param("iban") String iban,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("transactionId") Long transactionId,
+            Limit limit);
+
+    @Query(SELECT_VIEW + "WHERE t.iban = :iban AND t.timestamp BETWEEN :startDate AND :endDate " +
+            "ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<TransactionView> getTransactionHistoryBetween(
+            @Param("iban") String iban,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    // Statement lines in booking order; the end is exclusive so whole days match the balance checkpoints
+    @Query(SELECT_VIEW + "WHERE t.iban = :iban AND t.timestamp >= :from AND t.timestamp < :until " +
+            "ORDER BY t.timestamp, t.transactionId")
+    List<TransactionView> findTransactionsFromUntil(
+            @Param("iban") String iban,
+            @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
+
+    // Forward-only cursor over the range in booking order, fetched in chunks and not tracked for
+    // dirty checking. Must be consumed inside a transaction and closed by the caller.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("FROM Transaction t WHERE t.iban = :iban AND t.timestamp BETWEEN :startDate AND :endDate ORDER BY t.timestamp, t.transactionId")
+    Stream<Transaction> streamTransactionHistoryBetween(
             @Param("iban") String iban,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
+
+    // Monthly aggregates recomputed from the raw rows, used to rebuild the TransactionAggregate table
+    @Query("SELECT new com.finadem.entity.TransactionAggregate(t.iban, year(t.timestamp), month(t.timestamp), t.type, t.source, " +
+            "count(t), sum(t.amount)) FROM Transaction t WHERE t.iban IN :ibans AND t.timestamp >= :from " +
+            "GROUP BY t.iban, year(t.timestamp), month(t.timestamp), t.type, t.source")
+    List<TransactionAggregate> aggregateByMonth(@Param("ibans") Collection<String> ibans, @Param("from") LocalDateTime from);
+
+    // Rows moved to the archive, in the order of the archive segments
+    @Query(SELECT_VIEW + "WHERE t.iban IN :ibans AND t.timestamp < :cutoff ORDER BY t.iban, t.timestamp, t.transactionId")
+    List<TransactionView> findTransactionsToArchive(@Param("ibans") Collection<String> ibans, @Param("cutoff") LocalDateTime cutoff);
+
+    // The archiver reads the rows as projections, so no managed Transaction of them is left to evict
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Transaction t WHERE t.iban IN :ibans AND t.timestamp < :cutoff")
+    int deleteArchivedTransactions(@Param("ibans") Collection<String> ibans, @Param("cutoff") LocalDateTime cutoff);
 }
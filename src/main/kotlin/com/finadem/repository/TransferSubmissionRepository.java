@@ -0,0 +1,46 @@
+package com.finadem.repository;
+
+import com.finadem.entity.TransferSubmission;
+import com.finadem.enums.TransactionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransferSubmissionRepository extends JpaRepository<TransferSubmission, String> {
+    @Query("SELECT s.transferId FROM TransferSubmission s WHERE s.status = :status ORDER BY s.submittedAt")
+    List<String> findIdsByStatus(@Param("status") TransactionStatus status);
+
+    // Returns 0 if the submission was already claimed, so only one worker books it
+    @Transactional
+    @Modifying
+    @Query("UPDATE TransferSubmission s SET s.status = com.finadem.enums.TransactionStatus.PROCESSING " +
+            "WHERE s.transferId = :transferId AND s.status = com.finadem.enums.TransactionStatus.PENDING")
+    int claim(@Param("transferId") String transferId);
+
+    // Claims held when the last run stopped, their bookings never committed
+    @Transactional
+    @Modifying
+    @Query("UPDATE TransferSubmission s SET s.status = com.finadem.enums.TransactionStatus.PENDING " +
+            "WHERE s.status = com.finadem.enums.TransactionStatus.PROCESSING")
+    int releaseClaims();
+
+    // Only a claimed submission is completed, so an outcome is never overwritten
+    @Transactional
+    @Modifying
+    @Query("UPDATE TransferSubmission s SET s.status = :status, s.failureReason = :failureReason, s.completedAt = :completedAt " +
+            "WHERE s.transferId = :transferId AND s.status = com.finadem.enums.TransactionStatus.PROCESSING")
+    int complete(@Param("transferId") String transferId, @Param("status") TransactionStatus status,
+                 @Param("failureReason") String failureReason, @Param("completedAt") LocalDateTime completedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TransferSubmission s WHERE s.completedAt < :cutoff")
+    int deleteCompletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -39,7 +39,7 @@ public class FundTransferRequest {
     private String amount;
 
     @NotNull(message = "Currency cannot be null.")
-    @AcceptedCurrency(message = "Only EUR and USD currency are accepted")
+    @AcceptedCurrency(message = "Only EUR, USD and GBP currency are accepted")
     private CurrencyEnum currencyType;
 
     @NotNull(message = "Transaction Type should not be null")
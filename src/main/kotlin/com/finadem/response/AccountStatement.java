@@ -0,0 +1,25 @@
+package com.finadem.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountStatement {
+    private String iban;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    // Balance at the start of fromDate and at the end of toDate
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    // Oldest first
+    private List<TransactionView> transactions;
+}
@@ -0,0 +1,26 @@
+package com.finadem.response;
+
+import com.finadem.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FundTransferResult {
+    // Position of the transfer in the submitted batch
+    private int index;
+    private TransactionStatus status;
+    private String message;
+
+    public static FundTransferResult succeeded(int index) {
+        return new FundTransferResult(index, TransactionStatus.SUCCESS, "Fund Transfer successful.");
+    }
+
+    public static FundTransferResult failed(int index, String message) {
+        return new FundTransferResult(index, TransactionStatus.FAILED, message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.finadem.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryPage {
+    private List<TransactionView> transactions;
+    // Pass as cursor to get the following page, null on the last page
+    private String nextCursor;
+}
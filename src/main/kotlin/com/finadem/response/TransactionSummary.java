@@ -0,0 +1,24 @@
+package com.finadem.response;
+
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Number and sum of the transactions of one type and source booked in a month.
+ */
+public record TransactionSummary(
+        YearMonth month,
+        TransactionType type,
+        TransactionSource source,
+        long transactionCount,
+        BigDecimal totalAmount) {
+
+    public TransactionSummary(LocalDate periodStart, TransactionType type, TransactionSource source, long transactionCount,
+                              BigDecimal totalAmount) {
+        this(YearMonth.from(periodStart), type, source, transactionCount, totalAmount);
+    }
+}
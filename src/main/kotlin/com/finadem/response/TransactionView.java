@@ -0,0 +1,25 @@
+package com.finadem.response;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only row of the transaction history, selected straight into this record by the history
+ * queries so reads do not create managed Transaction entities. Serializes like the entity.
+ */
+public record TransactionView(Long transactionId,
+                              String iban,
+                              String transactingAccount,
+                              BigDecimal amount,
+                              TransactionType type,
+                              TransactionStatus status,
+                              TransactionSource source,
+                              String transactionRemarks,
+                              CurrencyEnum currency,
+                              LocalDateTime timestamp) {
+}
@@ -0,0 +1,22 @@
+package com.finadem.response;
+
+import com.finadem.entity.TransferSubmission;
+import com.finadem.enums.TransactionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a transfer submitted to /transfer/async: PENDING until a worker claims it, PROCESSING
+ * until it is booked, then SUCCESS, or FAILED with the reason the transfer was refused.
+ */
+public record TransferSubmissionStatus(String transferId,
+                                       TransactionStatus status,
+                                       String failureReason,
+                                       LocalDateTime submittedAt,
+                                       LocalDateTime completedAt) {
+
+    public static TransferSubmissionStatus of(TransferSubmission submission) {
+        return new TransferSubmissionStatus(submission.getTransferId(), submission.getStatus(), submission.getFailureReason(),
+                submission.getSubmittedAt(), submission.getCompletedAt());
+    }
+}
@@ -0,0 +1,19 @@
+package com.finadem.response;
+
+import com.finadem.enums.AccountStatus;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.request.AccountDataRequest;
+
+import java.math.BigDecimal;
+
+/**
+ * Account data together with the row version it was read at, selected straight into this record so
+ * the account cache can tell which of two reads of the same account is the newer one.
+ */
+public record VersionedAccountData(AccountDataRequest account, long version) {
+
+    public VersionedAccountData(Long customerId, String iban, String accountHolderName, String taxId,
+                                CurrencyEnum currency, BigDecimal currentBalance, AccountStatus status, Long version) {
+        this(new AccountDataRequest(customerId, iban, accountHolderName, taxId, currency, currentBalance, status), version);
+    }
+}
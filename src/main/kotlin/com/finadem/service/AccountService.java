@@ -1,24 +1,71 @@
 package com.finadem.service;
 
+import com.finadem.configurations.CacheConfiguration;
 import com.finadem.entity.Account;
 import com.finadem.exception.exceptions.AccountCreationFailedException;
-import com.finadem.exception.exceptions.AccountDataUpdateFailedException;
-import com.finadem.exception.exceptions.InvalidIbanException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
 import com.finadem.request.AccountDataRequest;
 import com.finadem.repository.AccountRepository;
 import com.finadem.helper.AccountHelper;
+import com.finadem.journal.JournalRecorder;
+import com.finadem.response.VersionedAccountData;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public interface AccountService {
+    /**
+     * Creates the account; an account that already exists with the IBAN is left unchanged. A created
+     * account is journaled once the transaction commits, while the transaction journal is enabled.
+     */
     String createNewAccount(AccountDataRequest accountDataRequest);
 
-    void updateAccountBalance(String accountNumber, BigDecimal accountBalance);
+    /**
+     * As {@link #createNewAccount(AccountDataRequest)} without journaling, for accounts read back
+     * from a journal.
+     */
+    String restoreAccount(AccountDataRequest accountDataRequest);
 
+    /**
+     * Adds a signed amount to the account balance with a single conditional update.
+     *
+     * @return the balance after the update, or null if no account exists for the IBAN
+     * @throws InsufficientBalanceException if the update would take the balance below zero
+     */
+    BigDecimal applyBalanceDelta(String accountNumber, BigDecimal delta);
+
+    /**
+     * As {@link #applyBalanceDelta(String, BigDecimal)}, for a change booked on an earlier day, e.g.
+     * a ledger journal entry projected later. The balance checkpoint of that day is updated.
+     */
+    BigDecimal applyBalanceDelta(String accountNumber, BigDecimal delta, LocalDate bookingDate);
+
+    /**
+     * Takes row locks on all given accounts in canonical IBAN order for the rest of the caller's transaction.
+     *
+     * @return the IBANs that exist locally and are now locked
+     */
+    Set<String> lockAccounts(Collection<String> accountNumbers);
+
+    /**
+     * Returns the account data for the IBAN, served from the account cache when present.
+     * The returned instance may be shared with other callers and must not be modified.
+     */
     AccountDataRequest getAccountInformationByAccountNumber(String accountNumber);
 
 }
@@ -28,15 +75,42 @@ class AccountServiceImpl implements AccountService {
     Logger logger = LoggerFactory.getLogger(AccountService.class);
     private final AccountRepository accountRepository;
     private final AccountHelper accountHelper;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final JournalRecorder journalRecorder;
+    private final EntityManager entityManager;
+    private final Cache<String, VersionedAccountData> accountCache;
     final String UNKNOWN = "Unknown";
 
-    public AccountServiceImpl(AccountRepository accountRepository, AccountHelper accountHelper) {
+    public AccountServiceImpl(AccountRepository accountRepository, AccountHelper accountHelper,
+                              BalanceCheckpointService balanceCheckpointService, JournalRecorder journalRecorder,
+                              EntityManager entityManager, CacheManager cacheManager) {
         this.accountRepository = accountRepository;
         this.accountHelper = accountHelper;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.journalRecorder = journalRecorder;
+        this.entityManager = entityManager;
+        // Used natively for its per-key atomic load and merge, which the cache annotations do not offer
+        @SuppressWarnings("unchecked")
+        Cache<String, VersionedAccountData> accountCache = (Cache<String, VersionedAccountData>)
+                cacheManager.getCache(CacheConfiguration.ACCOUNT_CACHE).getNativeCache();
+        this.accountCache = accountCache;
     }
 
+    @Override
     @Transactional(rollbackFor = Exception.class)
+    @CacheEvict(cacheNames = CacheConfiguration.ACCOUNT_CACHE, key = "#accountDataRequest.iban", condition = "#accountDataRequest.iban != null")
     public String createNewAccount(AccountDataRequest accountDataRequest) {
+        return saveAccount(accountDataRequest, true);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    @CacheEvict(cacheNames = CacheConfiguration.ACCOUNT_CACHE, key = "#accountDataRequest.iban", condition = "#accountDataRequest.iban != null")
+    public String restoreAccount(AccountDataRequest accountDataRequest) {
+        return saveAccount(accountDataRequest, false);
+    }
+
+    private String saveAccount(AccountDataRequest accountDataRequest, boolean journal) {
         String newAccountNumber;
         boolean isExists = accountRepository.findAccountInformationByAccountNumber(accountDataRequest.getIban()) != null;
         Account accountEntity = new Account();
@@ -67,6 +141,12 @@ class AccountServiceImpl implements AccountService {
         try {
             accountRepository.save(accountEntity);
             newAccountNumber = accountEntity.getIban();
+            if (!isExists && accountEntity.getCurrentBalance() != null) {
+                balanceCheckpointService.recordBalanceChange(newAccountNumber, LocalDate.now(), accountEntity.getCurrentBalance());
+            }
+            if (!isExists && journal) {
+                journalRecorder.recordAccountOpened(accountEntity, accountDataRequest);
+            }
         } catch (AccountCreationFailedException e) {
             logger.error("Error while creating account for account number {}", accountDataRequest.getIban(), e);
             throw new AccountCreationFailedException("Error while creating account for account number: " + accountDataRequest.getIban());
@@ -76,35 +156,72 @@ class AccountServiceImpl implements AccountService {
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void updateAccountBalance(String accountNumber, BigDecimal accountBalance) {
-        try {
-            com.finadem.entity.Account account = accountRepository.findAccountInformationByAccountNumber(accountNumber);
-            if (account == null) {
-                logger.error("Account with account number {} not found", accountNumber);
-                throw new InvalidIbanException("Account with account number {} not found", accountNumber);
+    public BigDecimal applyBalanceDelta(String accountNumber, BigDecimal delta) {
+        return applyBalanceDelta(accountNumber, delta, LocalDate.now());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BigDecimal applyBalanceDelta(String accountNumber, BigDecimal delta, LocalDate bookingDate) {
+        int updatedRows = accountRepository.applyBalanceDelta(accountNumber, delta);
+        VersionedAccountData updated = accountRepository.findAccountDataByAccountNumber(accountNumber);
+        if (updated == null) {
+            return null;
+        }
+        if (updatedRows == 0) {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
+        refreshIfManaged(updated.account().getCustomerId());
+        // The update above holds the account row lock, which orders checkpoint writes per account
+        balanceCheckpointService.recordBalanceChange(accountNumber, bookingDate, delta);
+        cacheAfterCommit(updated);
+        return updated.account().getCurrentBalance();
+    }
+
+    // Writes the state read back after the update through to the account cache once the caller's
+    // transaction commits; a rolled back update leaves the cache alone
+    private void cacheAfterCommit(VersionedAccountData updated) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(updated);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache(updated);
             }
-            account.setCurrentBalance(accountBalance);
-            accountRepository.save(account);
-        } catch (AccountDataUpdateFailedException e) {
-            logger.error("Error while updating account balance for account number {}", accountNumber, e);
-            throw new AccountDataUpdateFailedException("Error while updating account balance for account number: " + accountNumber);
+        });
+    }
+
+    // Writes of one account commit in row lock order but can reach the cache in any order, and a
+    // lookup may have loaded the account before the last of them committed. The higher version wins.
+    private void cache(VersionedAccountData accountData) {
+        accountCache.asMap().merge(accountData.account().getIban(), accountData,
+                (cached, written) -> written.version() > cached.version() ? written : cached);
+    }
+
+    // Brings an Account the caller's persistence context already holds, e.g. one locked for a
+    // transfer, up to date with the delta update. Nothing is loaded for a context that holds none.
+    private void refreshIfManaged(Long customerId) {
+        Account account = entityManager.getReference(Account.class, customerId);
+        if (Hibernate.isInitialized(account)) {
+            entityManager.refresh(account);
         }
     }
 
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<String> lockAccounts(Collection<String> accountNumbers) {
+        return accountRepository.lockAccountsInIbanOrder(accountNumbers).stream()
+                .map(Account::getIban)
+                .collect(Collectors.toSet());
+    }
+
+    @Transactional(readOnly = true)
     public AccountDataRequest getAccountInformationByAccountNumber(String accountNumber) {
-        Account accountEntity = accountRepository.findAccountInformationByAccountNumber(accountNumber);
-        if (accountEntity != null) {
-            AccountDataRequest accountDataRequest = new AccountDataRequest();
-            accountDataRequest.setCustomerId(accountEntity.getCustomerId());
-            accountDataRequest.setAccountHolderName(accountEntity.getAccountHolderName());
-            accountDataRequest.setIban(accountEntity.getIban());
-            accountDataRequest.setCurrentBalance(accountEntity.getCurrentBalance());
-            accountDataRequest.setCurrency(accountEntity.getCurrency());
-            accountDataRequest.setTaxId(accountEntity.getTaxId());
-            accountDataRequest.setStatus(accountEntity.getStatus());
-            return accountDataRequest;
-        } else {
-            return null;
-        }
+        // Loaded under the cache's lock on the IBAN, so a balance write committing meanwhile waits for
+        // the load and replaces it rather than the load landing over the write. Misses are not cached.
+        VersionedAccountData accountData = accountCache.get(accountNumber, accountRepository::findAccountDataByAccountNumber);
+        return accountData == null ? null : accountData.account();
     }
 }
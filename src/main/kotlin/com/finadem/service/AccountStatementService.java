@@ -0,0 +1,67 @@
+package com.finadem.service;
+
+import com.finadem.archive.TransactionArchive;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.response.AccountStatement;
+import com.finadem.response.TransactionView;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+public interface AccountStatementService {
+    /**
+     * Opening and closing balance of the account for the date range, both inclusive, with the
+     * transactions booked in between. Reads two balance checkpoints and the transactions of the
+     * range, however long the account has existed.
+     */
+    AccountStatement getStatement(String iban, LocalDate fromDate, LocalDate toDate);
+}
+
+@Service
+class AccountStatementServiceImpl implements AccountStatementService {
+    private final AccountService accountService;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+
+    public AccountStatementServiceImpl(AccountService accountService,
+                                       BalanceCheckpointService balanceCheckpointService,
+                                       TransactionRepository transactionRepository,
+                                       TransactionArchive transactionArchive) {
+        this.accountService = accountService;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AccountStatement getStatement(String iban, LocalDate fromDate, LocalDate toDate) {
+        if (accountService.getAccountInformationByAccountNumber(iban) == null) {
+            throw new IbanNotFoundException("Account with IBAN " + iban + " not found.");
+        }
+        BigDecimal openingBalance = balanceCheckpointService.getClosingBalance(iban, fromDate.minusDays(1));
+        BigDecimal closingBalance = balanceCheckpointService.getClosingBalance(iban, toDate);
+        List<TransactionView> transactions = transactionRepository.findTransactionsFromUntil(
+                iban, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay());
+        LocalDateTime archivedBefore = transactionArchive.getArchivedBefore();
+        if (archivedBefore != null && fromDate.atStartOfDay().isBefore(archivedBefore)) {
+            transactions = TransactionArchive.merge(transactions,
+                    transactionArchive.read(iban, fromDate.atStartOfDay(), toDate.atTime(LocalTime.MAX)), TransactionArchive.OLDEST_FIRST);
+        }
+        return AccountStatement.builder()
+                .iban(iban)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .openingBalance(openingBalance)
+                .closingBalance(closingBalance)
+                .transactions(transactions)
+                .build();
+    }
+}
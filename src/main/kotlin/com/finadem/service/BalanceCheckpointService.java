@@ -0,0 +1,94 @@
+package com.finadem.service;
+
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.BalanceCheckpointRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BalanceCheckpointService {
+    /**
+     * Adds a balance change to the closing balance of the booking day and of any later day with a
+     * checkpoint. Must run in the transaction that changes the balance, after the account row is
+     * locked by that change, so concurrent changes of one account update its checkpoints in turn.
+     * The account balance must already include the change, as it opens the checkpoints of an
+     * account that has none yet.
+     */
+    void recordBalanceChange(String iban, LocalDate bookingDate, BigDecimal delta);
+
+    /**
+     * Balance at the end of the day, read from the latest checkpoint on or before it. Zero if the
+     * account had no balance yet. An account without any checkpoint, e.g. one seeded before
+     * checkpoints were kept, has held its current balance since the day it was created.
+     */
+    BigDecimal getClosingBalance(String iban, LocalDate date);
+}
+
+@Service
+class BalanceCheckpointServiceImpl implements BalanceCheckpointService {
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final AccountRepository accountRepository;
+
+    public BalanceCheckpointServiceImpl(BalanceCheckpointRepository balanceCheckpointRepository,
+                                        AccountRepository accountRepository) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBalanceChange(String iban, LocalDate bookingDate, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        // Usually a single update, the first change of a day adds a lookup and an insert
+        int updatedRows = balanceCheckpointRepository.addToClosingBalance(iban, bookingDate, delta);
+        if (updatedRows == 0 && backfillOpeningCheckpoint(iban, delta)) {
+            updatedRows = balanceCheckpointRepository.addToClosingBalance(iban, bookingDate, delta);
+        }
+        if (updatedRows == 0) {
+            BigDecimal previousBalance = getClosingBalance(iban, bookingDate.minusDays(1));
+            balanceCheckpointRepository.insertCheckpoint(iban, bookingDate, previousBalance.add(delta));
+        }
+        if (bookingDate.isBefore(LocalDate.now())) {
+            balanceCheckpointRepository.addToLaterClosingBalances(iban, bookingDate, delta);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal getClosingBalance(String iban, LocalDate date) {
+        List<BigDecimal> closingBalances = balanceCheckpointRepository.findClosingBalancesUpTo(iban, date, Limit.of(1));
+        if (!closingBalances.isEmpty()) {
+            return closingBalances.getFirst();
+        }
+        if (balanceCheckpointRepository.existsByIban(iban)) {
+            return BigDecimal.ZERO;
+        }
+        LocalDateTime createdAt = accountRepository.findCreatedAtByAccountNumber(iban);
+        BigDecimal currentBalance = accountRepository.findCurrentBalanceByAccountNumber(iban);
+        return createdAt == null || currentBalance == null || date.isBefore(createdAt.toLocalDate())
+                ? BigDecimal.ZERO : currentBalance;
+    }
+
+    // Accounts saved without a recorded change, such as seeded rows, have no checkpoint until their
+    // first change. The balance they held before it opens their checkpoints on the day they were created.
+    private boolean backfillOpeningCheckpoint(String iban, BigDecimal delta) {
+        if (balanceCheckpointRepository.existsByIban(iban)) {
+            return false;
+        }
+        LocalDateTime createdAt = accountRepository.findCreatedAtByAccountNumber(iban);
+        BigDecimal currentBalance = accountRepository.findCurrentBalanceByAccountNumber(iban);
+        if (createdAt == null || currentBalance == null || currentBalance.compareTo(delta) == 0) {
+            return false;
+        }
+        balanceCheckpointRepository.insertCheckpoint(iban, createdAt.toLocalDate(), currentBalance.subtract(delta));
+        return true;
+    }
+}
@@ -1,45 +1,169 @@
 package com.finadem.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.finadem.configurations.CurrencyRateConfig;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.helper.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 public interface CurrencyConverterService{
     BigDecimal getExchangeRate(String baseCurrency, String toCurrency);
+
+    void refreshExchangeRates();
+
+    Duration getRateStaleness();
 }
 
 @Service
 class CurrencyConverterServiceImpl implements CurrencyConverterService {
-    @Value("${currency.api.key_secured}")
-    private String apiKey;
-
-    @Value("${currency.api.url}")
-    private String apiUrl;
+    static final String BASE_CURRENCY = CurrencyEnum.EUR.toString();
 
-    private final RestTemplate restTemplate;
+    Logger logger = LoggerFactory.getLogger(CurrencyConverterService.class);
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final CurrencyRateConfig currencyRateConfig;
+    private final ExchangeRateSnapshotStore exchangeRateSnapshotStore;
+    private final SingleFlight<String, ExchangeRateTable> tableLoads = new SingleFlight<>();
+    private final Counter coalescedFetches;
+    private volatile ExchangeRateTable exchangeRateTable = ExchangeRateTable.EMPTY;
 
-    public CurrencyConverterServiceImpl(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public CurrencyConverterServiceImpl(ExchangeRateProvider exchangeRateProvider,
+                                        CurrencyRateConfig currencyRateConfig,
+                                        ExchangeRateSnapshotStore exchangeRateSnapshotStore,
+                                        MeterRegistry meterRegistry) {
+        this.exchangeRateProvider = exchangeRateProvider;
+        this.currencyRateConfig = currencyRateConfig;
+        this.exchangeRateSnapshotStore = exchangeRateSnapshotStore;
+        // Start warm from the last persisted table; the scheduled refresh replaces it in the background
+        exchangeRateSnapshotStore.load().ifPresent(table -> {
+            exchangeRateTable = table;
+            logger.info("Loaded exchange rate snapshot for currencies {} fetched at {}", table.getRates().keySet(), table.getFetchedAt());
+        });
+        Gauge.builder("currency.rates.staleness", this, CurrencyConverterServiceImpl::getStalenessSeconds)
+                .description("Age of the exchange rate table currently in use")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.coalescedFetches = Counter.builder("currency.rates.fetch.coalesced")
+                .description("Rate lookups that joined a fetch already in flight instead of calling the upstream API")
+                .register(meterRegistry);
     }
 
+    /**
+     * Returns the rate from the in-memory table. The upstream API is only called on the request
+     * thread when the table is empty or older than the configured TTL; concurrent callers share
+     * that single fetch and fall back to the last known rate if it fails or takes too long, as long
+     * as that rate is within the configured maximum staleness.
+     * Pairs that do not involve EUR are derived from the EUR rates of both currencies.
+     */
+    @Override
     public BigDecimal getExchangeRate(String baseCurrency, String toCurrency) {
-        String finalUrl = String.format("%s?apikey=%s&base_currency=%s&currencies=%s", apiUrl, apiKey, baseCurrency, toCurrency);
+        if (baseCurrency.equals(toCurrency)) {
+            return BigDecimal.ONE;
+        }
+        ExchangeRateTable table = exchangeRateTable;
+        BigDecimal lastKnownRate = table.getCrossRate(BASE_CURRENCY, baseCurrency, toCurrency);
+        if (lastKnownRate != null && !isExpired(table)) {
+            return lastKnownRate;
+        }
+        try {
+            BigDecimal rate = awaitTableLoad().getCrossRate(BASE_CURRENCY, baseCurrency, toCurrency);
+            if (rate != null) {
+                return rate;
+            }
+        } catch (RuntimeException e) {
+            if (lastKnownRate == null || isBeyondMaxStaleness(table)) {
+                throw e;
+            }
+            logger.warn("Exchange rate refresh failed, using last known {}/{} rate from {}", baseCurrency, toCurrency, table.getFetchedAt(), e);
+            return lastKnownRate;
+        }
+        throw new IllegalArgumentException("Exchange rate not available for " + baseCurrency + "/" + toCurrency);
+    }
+
+    @Scheduled(fixedDelayString = "${currency.rates.refresh-interval-ms}")
+    void scheduledRefresh() {
+        try {
+            refreshExchangeRates();
+        } catch (RuntimeException e) {
+            logger.warn("Exchange rate refresh failed, serving rates from {}", exchangeRateTable.getFetchedAt(), e);
+        }
+    }
 
-        Map<String,Object> response = restTemplate.getForObject(finalUrl, Map.class);
+    @Override
+    public void refreshExchangeRates() {
+        awaitTableLoad();
+    }
 
-        if (response == null || !response.containsKey("data")) {
-            throw new IllegalArgumentException("Invalid response from currency API");
+    @Override
+    public Duration getRateStaleness() {
+        ExchangeRateTable table = exchangeRateTable;
+        if (table.isEmpty()) {
+            return Duration.ZERO;
         }
-        Map<String, Object> data = (Map<String, Object>) response.get("data");
-        Object rateObject = data.get(toCurrency);
+        return table.getAge(Instant.now());
+    }
 
-        if (rateObject instanceof Number) {
-            return BigDecimal.valueOf(((Number) rateObject).doubleValue());
-        } else {
-            throw new IllegalArgumentException("Exchange rate is not a valid number");
+    private ExchangeRateTable awaitTableLoad() {
+        return await(tableLoads, BASE_CURRENCY, this::loadExchangeRateTable);
+    }
+
+    private <T> T await(SingleFlight<String, T> singleFlight, String key, Supplier<T> loader) {
+        if (singleFlight.isInFlight(key)) {
+            coalescedFetches.increment();
+        }
+        CompletableFuture<T> future = singleFlight.execute(key, loader);
+        try {
+            return future.get(currencyRateConfig.getFetchWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Exchange rate fetch failed for " + key, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for exchange rate fetch for " + key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for exchange rate fetch for " + key, e);
         }
     }
+
+    private ExchangeRateTable loadExchangeRateTable() {
+        Instant fetchedAt = Instant.now();
+        List<String> currencies = currencyRateConfig.getCurrencies().stream()
+                .filter(currency -> !BASE_CURRENCY.equals(currency))
+                .toList();
+        Map<String, BigDecimal> rates = exchangeRateProvider.fetchRates(BASE_CURRENCY, currencies);
+        ExchangeRateTable table = new ExchangeRateTable(rates, fetchedAt);
+        exchangeRateTable = table;
+        exchangeRateSnapshotStore.save(table);
+        logger.info("Exchange rate table refreshed for currencies {}", rates.keySet());
+        return table;
+    }
+
+    private double getStalenessSeconds() {
+        return exchangeRateTable.isEmpty() ? Double.NaN : getRateStaleness().toMillis() / 1000.0;
+    }
+
+    private boolean isExpired(ExchangeRateTable table) {
+        return table.getAge(Instant.now()).getSeconds() >= currencyRateConfig.getTtlSeconds();
+    }
+
+    private boolean isBeyondMaxStaleness(ExchangeRateTable table) {
+        return table.getAge(Instant.now()).getSeconds() > currencyRateConfig.getMaxStalenessSeconds();
+    }
 }
@@ -0,0 +1,58 @@
+package com.finadem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Source of live exchange rates. Only the rate table in {@link CurrencyConverterService}
+ * talks to the provider, so request threads never wait on the upstream API while rates are fresh.
+ * All requested currencies are fetched in a single call.
+ */
+public interface ExchangeRateProvider {
+    Map<String, BigDecimal> fetchRates(String baseCurrency, Collection<String> currencies);
+}
+
+@Component
+class FreeCurrencyApiRateProvider implements ExchangeRateProvider {
+    @Value("${currency.api.key_secured}")
+    private String apiKey;
+
+    @Value("${currency.api.url}")
+    private String apiUrl;
+
+    private final RestTemplate restTemplate;
+
+    public FreeCurrencyApiRateProvider(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    @Override
+    public Map<String, BigDecimal> fetchRates(String baseCurrency, Collection<String> currencies) {
+        String finalUrl = String.format("%s?apikey=%s&base_currency=%s&currencies=%s", apiUrl, apiKey, baseCurrency,
+                String.join(",", currencies));
+
+        Map<String,Object> response = restTemplate.getForObject(finalUrl, Map.class);
+
+        if (response == null || !response.containsKey("data")) {
+            throw new IllegalArgumentException("Invalid response from currency API");
+        }
+        Map<String, Object> data = (Map<String, Object>) response.get("data");
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String currency : currencies) {
+            Object rateObject = data.get(currency);
+            if (rateObject instanceof Number) {
+                // Parse the decimal text rather than going through double arithmetic
+                rates.put(currency, new BigDecimal(rateObject.toString()));
+            } else {
+                throw new IllegalArgumentException("Exchange rate for " + currency + " is not a valid number");
+            }
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,87 @@
+package com.finadem.service;
+
+import com.finadem.configurations.CurrencyRateConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the last exchange rate table on local disk so a restarted instance starts with warm rates
+ * instead of waiting on the upstream API. The file is a small binary record:
+ * magic, version, fetch time, then currency code, scale and unscaled value per rate.
+ * It is written to a temporary file and moved into place, so a crash never leaves a torn snapshot.
+ */
+@Component
+public class ExchangeRateSnapshotStore {
+    private static final int MAGIC = 0x46584554; // "FXET"
+    private static final byte VERSION = 1;
+
+    Logger logger = LoggerFactory.getLogger(ExchangeRateSnapshotStore.class);
+    private final CurrencyRateConfig currencyRateConfig;
+
+    public ExchangeRateSnapshotStore(CurrencyRateConfig currencyRateConfig) {
+        this.currencyRateConfig = currencyRateConfig;
+    }
+
+    public Optional<ExchangeRateTable> load() {
+        Path snapshotPath = Path.of(currencyRateConfig.getSnapshotPath());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                logger.warn("Ignoring exchange rate snapshot {} with unknown format", snapshotPath);
+                return Optional.empty();
+            }
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            int count = in.readUnsignedShort();
+            Map<String, BigDecimal> rates = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String currency = in.readUTF();
+                int scale = in.readInt();
+                byte[] unscaledValue = new byte[in.readUnsignedByte()];
+                in.readFully(unscaledValue);
+                rates.put(currency, new BigDecimal(new BigInteger(unscaledValue), scale));
+            }
+            return Optional.of(new ExchangeRateTable(rates, fetchedAt));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Could not read exchange rate snapshot {}", snapshotPath, e);
+            return Optional.empty();
+        }
+    }
+
+    public void save(ExchangeRateTable table) {
+        Path snapshotPath = Path.of(currencyRateConfig.getSnapshotPath()).toAbsolutePath();
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            Path tempFile = Files.createTempFile(snapshotPath.getParent(), snapshotPath.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(table.getFetchedAt().toEpochMilli());
+                out.writeShort(table.getRates().size());
+                for (Map.Entry<String, BigDecimal> rate : table.getRates().entrySet()) {
+                    byte[] unscaledValue = rate.getValue().unscaledValue().toByteArray();
+                    out.writeUTF(rate.getKey());
+                    out.writeInt(rate.getValue().scale());
+                    out.writeByte(unscaledValue.length);
+                    out.write(unscaledValue);
+                }
+            }
+            Files.move(tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write exchange rate snapshot {}", snapshotPath, e);
+        }
+    }
+}
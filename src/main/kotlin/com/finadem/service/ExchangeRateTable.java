@@ -0,0 +1,60 @@
+package com.finadem.service;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable set of exchange rates quoted against a single base currency, together with
+ * the instant the rates were fetched. A new table is published on every refresh so readers
+ * never observe a partially updated set of rates. Rates between two non-base currencies are
+ * derived from their base rates, so they never need an upstream call of their own.
+ */
+@Getter
+public final class ExchangeRateTable {
+    static final ExchangeRateTable EMPTY = new ExchangeRateTable(Map.of(), Instant.EPOCH);
+    static final MathContext CROSS_RATE_CONTEXT = MathContext.DECIMAL128;
+
+    private final Map<String, BigDecimal> rates;
+    private final Instant fetchedAt;
+
+    public ExchangeRateTable(Map<String, BigDecimal> rates, Instant fetchedAt) {
+        this.rates = Map.copyOf(rates);
+        this.fetchedAt = fetchedAt;
+    }
+
+    public BigDecimal getRate(String currency) {
+        return rates.get(currency);
+    }
+
+    /**
+     * Rate for converting from {@code fromCurrency} to {@code toCurrency}, where either side may be the
+     * base currency. Returns null when one of the currencies is not in the table.
+     */
+    public BigDecimal getCrossRate(String baseCurrency, String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal baseToTarget = baseCurrency.equals(toCurrency) ? BigDecimal.ONE : rates.get(toCurrency);
+        if (baseCurrency.equals(fromCurrency)) {
+            return baseToTarget;
+        }
+        BigDecimal baseToSource = rates.get(fromCurrency);
+        if (baseToTarget == null || baseToSource == null) {
+            return null;
+        }
+        return baseToTarget.divide(baseToSource, CROSS_RATE_CONTEXT);
+    }
+
+    public boolean isEmpty() {
+        return rates.isEmpty();
+    }
+
+    public Duration getAge(Instant now) {
+        return Duration.between(fetchedAt, now);
+    }
+}
@@ -0,0 +1,222 @@
+package com.finadem.service;
+
+import com.finadem.configurations.FundTransferBatchConfig;
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.TransferBatchTooLargeException;
+import com.finadem.helper.RetryOnConflict;
+import com.finadem.journal.JournalRecorder;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.FundTransferResult;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public interface FundTransferBatchService {
+    /**
+     * Books many fund transfers at once. Transfers are applied in the given order, a transfer that
+     * is invalid or cannot be covered is skipped without affecting the others.
+     *
+     * @return one result per transfer, in the order of the requests
+     * @throws TransferBatchTooLargeException when the batch holds more than transfer.batch.max-size transfers
+     */
+    List<FundTransferResult> createFundTransfers(List<FundTransferRequest> fundTransferRequests);
+}
+
+@Service
+class FundTransferBatchServiceImpl implements FundTransferBatchService {
+    private static final int LOCK_CHUNK_SIZE = 1_000;
+    // Rows persisted between flushes, a multiple of hibernate.jdbc.batch_size
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    Logger logger = LoggerFactory.getLogger(FundTransferBatchService.class);
+    private final AccountService accountService;
+    private final AccountRepository accountRepository;
+    private final CurrencyConverterService currencyConverterService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionAggregateService transactionAggregateService;
+    private final JournalRecorder journalRecorder;
+    private final FundTransferBatchConfig fundTransferBatchConfig;
+    private final EntityManager entityManager;
+    private final Validator validator;
+
+    public FundTransferBatchServiceImpl(AccountService accountService,
+                                        AccountRepository accountRepository,
+                                        CurrencyConverterService currencyConverterService,
+                                        TransactionRepository transactionRepository,
+                                        TransactionAggregateService transactionAggregateService,
+                                        JournalRecorder journalRecorder,
+                                        FundTransferBatchConfig fundTransferBatchConfig,
+                                        EntityManager entityManager,
+                                        Validator validator) {
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.currencyConverterService = currencyConverterService;
+        this.transactionRepository = transactionRepository;
+        this.transactionAggregateService = transactionAggregateService;
+        this.journalRecorder = journalRecorder;
+        this.fundTransferBatchConfig = fundTransferBatchConfig;
+        this.entityManager = entityManager;
+        this.validator = validator;
+    }
+
+    /**
+     * Locks and reads every account involved up front, checks each transfer against the running
+     * balances in memory, then writes one balance update per account and inserts all Transaction
+     * rows in JDBC batches.
+     */
+    @Override
+    @RetryOnConflict
+    @Transactional(rollbackFor = Exception.class)
+    public List<FundTransferResult> createFundTransfers(List<FundTransferRequest> fundTransferRequests) {
+        if (fundTransferRequests.size() > fundTransferBatchConfig.getMaxSize()) {
+            throw new TransferBatchTooLargeException("A batch can hold at most " + fundTransferBatchConfig.getMaxSize()
+                    + " transfers, got " + fundTransferRequests.size() + ".");
+        }
+        FundTransferResult[] results = new FundTransferResult[fundTransferRequests.size()];
+        Map<Integer, BigDecimal> amounts = new LinkedHashMap<>();
+        Set<String> accountNumbers = new TreeSet<>();
+        for (int i = 0; i < fundTransferRequests.size(); i++) {
+            FundTransferRequest request = fundTransferRequests.get(i);
+            String rejection = validate(validator, request);
+            if (rejection != null) {
+                results[i] = FundTransferResult.failed(i, rejection);
+                continue;
+            }
+            BigDecimal amount = toEUR(request);
+            if (amount == null) {
+                results[i] = FundTransferResult.failed(i, "Exchange rate for " + request.getCurrencyType() + " is not available.");
+                continue;
+            }
+            amounts.put(i, amount);
+            accountNumbers.add(request.getCustomerAccountNumber());
+            accountNumbers.add(request.getTransactingAccountNumber());
+        }
+
+        Map<String, BigDecimal> openingBalances = lockBalances(accountNumbers);
+        Map<String, BigDecimal> balances = new HashMap<>(openingBalances);
+        List<Transaction> rows = new ArrayList<>();
+        amounts.forEach((index, amount) -> {
+            FundTransferRequest request = fundTransferRequests.get(index);
+            results[index] = book(index, request, amount, balances, rows);
+        });
+
+        balances.forEach((iban, balance) -> {
+            BigDecimal delta = balance.subtract(openingBalances.get(iban));
+            if (delta.signum() != 0) {
+                accountService.applyBalanceDelta(iban, delta);
+            }
+        });
+        insertTransactions(rows);
+        logger.info("Booked {} of {} batched fund transfers", Arrays.stream(results)
+                .filter(result -> result.getStatus() == TransactionStatus.SUCCESS).count(), results.length);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Bean validation and the single transfer rules, as a message for the caller, or null if the request is valid.
+     */
+    static String validate(Validator validator, FundTransferRequest fundTransferRequest) {
+        Set<ConstraintViolation<FundTransferRequest>> violations = validator.validate(fundTransferRequest);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(" "));
+        }
+        try {
+            TransactionServiceImpl.validateFundTransferRequest(fundTransferRequest);
+            return null;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    // A failed rate lookup only fails the transfers in that currency
+    private BigDecimal toEUR(FundTransferRequest request) {
+        try {
+            return TransactionServiceImpl.convertToEUR(currencyConverterService, new BigDecimal(request.getAmount()), request.getCurrencyType());
+        } catch (RuntimeException e) {
+            logger.warn("Could not convert batched transfer from {}", request.getCurrencyType(), e);
+            return null;
+        }
+    }
+
+    // IBANs are locked in ascending order across all chunks, like single transfers lock their pair
+    private Map<String, BigDecimal> lockBalances(Set<String> accountNumbers) {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        List<String> sorted = new ArrayList<>(accountNumbers);
+        for (int from = 0; from < sorted.size(); from += LOCK_CHUNK_SIZE) {
+            List<String> chunk = sorted.subList(from, Math.min(from + LOCK_CHUNK_SIZE, sorted.size()));
+            for (Account account : accountRepository.lockAccountsInIbanOrder(chunk)) {
+                balances.put(account.getIban(), account.getCurrentBalance());
+            }
+        }
+        return balances;
+    }
+
+    private FundTransferResult book(int index, FundTransferRequest request, BigDecimal amount,
+                                    Map<String, BigDecimal> balances, List<Transaction> rows) {
+        String customer = request.getCustomerAccountNumber();
+        String counterparty = request.getTransactingAccountNumber();
+        if (!balances.containsKey(customer)) {
+            return FundTransferResult.failed(index, "Account with IBAN " + customer + " not found.");
+        }
+        boolean isLocalRecipient = balances.containsKey(counterparty);
+        boolean isCreditTransfer = TransactionType.CREDIT.equals(request.getTransactionType());
+        String debitedAccount = isCreditTransfer ? counterparty : customer;
+        // A counterparty held at another bank is not debited here
+        if (balances.containsKey(debitedAccount) && balances.get(debitedAccount).compareTo(amount) < 0) {
+            return FundTransferResult.failed(index, "Insufficient balance");
+        }
+        BigDecimal customerDelta = isCreditTransfer ? amount : amount.negate();
+        balances.merge(customer, customerDelta, BigDecimal::add);
+        rows.add(transaction(customer, counterparty, amount,
+                isCreditTransfer ? TransactionType.CREDIT : TransactionType.DEBIT,
+                "Fund transfer " + (isCreditTransfer ? "from " : "to ") + counterparty));
+        if (isLocalRecipient) {
+            balances.merge(counterparty, customerDelta.negate(), BigDecimal::add);
+            rows.add(transaction(counterparty, customer, amount,
+                    isCreditTransfer ? TransactionType.DEBIT : TransactionType.CREDIT,
+                    "Online fund transfer " + (isCreditTransfer ? "to" : "from") + " account " + customer));
+        }
+        return FundTransferResult.succeeded(index);
+    }
+
+    // Pooled Transaction ids let Hibernate batch these inserts; flushing in chunks keeps the
+    // persistence context small for large batches. The aggregates are updated and the rows journaled
+    // once for the whole batch.
+    private void insertTransactions(List<Transaction> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_CHUNK_SIZE) {
+            transactionRepository.saveAll(rows.subList(from, Math.min(from + INSERT_CHUNK_SIZE, rows.size())));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        transactionAggregateService.recordTransactions(rows);
+        journalRecorder.recordTransfers(rows);
+    }
+
+    private Transaction transaction(String iban, String transactingAccount, BigDecimal amount, TransactionType type, String remarks) {
+        return Transaction.builder()
+                .iban(iban)
+                .transactingAccount(transactingAccount)
+                .amount(amount)
+                .type(type)
+                .source(TransactionSource.ONLINE_FUND_TRANSFER)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR)
+                .transactionRemarks(remarks)
+                .build();
+    }
+}
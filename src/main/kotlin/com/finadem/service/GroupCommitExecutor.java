@@ -0,0 +1,258 @@
+package com.finadem.service;
+
+import com.finadem.configurations.GroupCommitConfig;
+import com.finadem.configurations.LedgerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs writes submitted by concurrent requests in shared database transactions, so one commit
+ * covers a whole batch. A failing write is reported to its own caller only, the rest of the batch
+ * still commits. Callers are completed only after the commit. Writes are expected to do their
+ * slow preparation, such as exchange rate lookups, on the caller's thread before submitting,
+ * since everything submitted runs on the single group-commit thread while row locks are held.
+ * <p>
+ * Each write names the accounts it touches. A batch locks all of them in IBAN order before its first
+ * write, so it cannot deadlock with another transaction locking the same accounts in IBAN order.
+ */
+@Component
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = GroupCommitConfig.GROUP_COMMIT_ENGINE)
+class GroupCommitExecutor implements Runnable {
+    Logger logger = LoggerFactory.getLogger(GroupCommitExecutor.class);
+    private final BlockingQueue<PendingWrite> pending = new LinkedBlockingQueue<>();
+    private final TransactionTemplate batchTransaction;
+    private final EntityManager entityManager;
+    private final AccountService accountService;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Counter commits;
+    private final DistributionSummary batchSizes;
+    private final Counter replays;
+    private volatile boolean running;
+    private Thread worker;
+
+    private record PendingWrite(Collection<String> accounts, Supplier<RuntimeException> check, Runnable work,
+                                CompletableFuture<Void> result) {
+    }
+
+    private record FailedWrite(PendingWrite write, RuntimeException failure) {
+    }
+
+    @Autowired
+    public GroupCommitExecutor(PlatformTransactionManager transactionManager,
+                               EntityManager entityManager,
+                               AccountService accountService,
+                               GroupCommitConfig groupCommitConfig,
+                               MeterRegistry meterRegistry) {
+        this(transactionManager, entityManager, accountService, groupCommitConfig.getWindowMicros(),
+                groupCommitConfig.getMaxBatchSize(), meterRegistry);
+    }
+
+    GroupCommitExecutor(PlatformTransactionManager transactionManager,
+                        EntityManager entityManager,
+                        AccountService accountService,
+                        long windowMicros,
+                        int maxBatchSize,
+                        MeterRegistry meterRegistry) {
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.accountService = accountService;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.commits = Counter.builder("transaction.group-commit.commits")
+                .description("Database commits issued for grouped transaction requests")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("transaction.group-commit.batch.size")
+                .description("Transaction requests covered by one database commit")
+                .register(meterRegistry);
+        this.replays = Counter.builder("transaction.group-commit.replays")
+                .description("Batches run again after one of their requests failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a write to the given accounts, which are locked together with those of the rest of the batch.
+     */
+    CompletableFuture<Void> submit(Collection<String> accounts, Runnable work) {
+        return submit(accounts, () -> null, work);
+    }
+
+    /**
+     * Like {@link #submit(Collection, Runnable)}, with a check run in the batch transaction right before
+     * the write. A failure returned by the check is reported to the caller without running the write,
+     * and without rolling back and replaying the rest of the batch.
+     */
+    CompletableFuture<Void> submit(Collection<String> accounts, Supplier<RuntimeException> check, Runnable work) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        pending.add(new PendingWrite(accounts, check, work, result));
+        return result;
+    }
+
+    double getCommitCount() {
+        return commits.count();
+    }
+
+    double getReplayCount() {
+        return replays.count();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this, "group-commit");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingWrite first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, System.nanoTime() + windowNanos);
+                commit(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                logger.error("Group commit of {} requests failed", batch.size(), e);
+                batch.forEach(write -> write.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingWrite> batch, long deadline) throws InterruptedException {
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                pending.drainTo(batch, maxBatchSize - batch.size());
+                return;
+            }
+            PendingWrite next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Runs the batch in one transaction. Writes whose check fails are skipped and reported once the
+     * batch commits. A write that throws rolls the transaction back and is reported to its caller,
+     * the batch is then replayed without it; nothing of the rolled back attempt is visible, so every
+     * pass either commits all remaining writes or drops one.
+     */
+    private void commit(List<PendingWrite> batch) {
+        List<PendingWrite> remaining = new ArrayList<>(batch);
+        while (!remaining.isEmpty()) {
+            // Rejections depend on the writes before them, so they only stand once the pass commits
+            List<FailedWrite> rejected = new ArrayList<>();
+            FailedWrite failed;
+            try {
+                failed = batchTransaction.execute(status -> {
+                    lockAccounts(remaining);
+                    for (PendingWrite write : remaining) {
+                        try {
+                            RuntimeException rejection = write.check().get();
+                            if (rejection != null) {
+                                rejected.add(new FailedWrite(write, rejection));
+                                continue;
+                            }
+                            write.work().run();
+                            // Surface constraint violations here, against the write causing them
+                            entityManager.flush();
+                        } catch (RuntimeException e) {
+                            status.setRollbackOnly();
+                            return new FailedWrite(write, e);
+                        }
+                    }
+                    return null;
+                });
+            } catch (RuntimeException commitFailure) {
+                logger.warn("Commit of {} grouped requests failed, running them one by one", remaining.size(), commitFailure);
+                commitIndividually(remaining);
+                return;
+            }
+            if (failed == null) {
+                commits.increment();
+                batchSizes.record(remaining.size());
+                for (FailedWrite rejection : rejected) {
+                    rejection.write().result().completeExceptionally(rejection.failure());
+                    remaining.remove(rejection.write());
+                }
+                remaining.forEach(write -> write.result().complete(null));
+                return;
+            }
+            failed.write().result().completeExceptionally(failed.failure());
+            remaining.remove(failed.write());
+            if (!remaining.isEmpty()) {
+                replays.increment();
+            }
+        }
+    }
+
+    private void commitIndividually(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            try {
+                batchTransaction.executeWithoutResult(status -> {
+                    lockAccounts(List.of(write));
+                    RuntimeException rejection = write.check().get();
+                    if (rejection != null) {
+                        throw rejection;
+                    }
+                    write.work().run();
+                });
+                commits.increment();
+                batchSizes.record(1);
+                write.result().complete(null);
+            } catch (RuntimeException e) {
+                write.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    // Taken up front rather than by each write in arrival order, which differs from batch to batch
+    private void lockAccounts(List<PendingWrite> writes) {
+        SortedSet<String> accounts = new TreeSet<>();
+        writes.forEach(write -> accounts.addAll(write.accounts()));
+        if (!accounts.isEmpty()) {
+            accountService.lockAccounts(accounts);
+        }
+    }
+}
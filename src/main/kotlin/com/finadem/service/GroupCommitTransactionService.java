@@ -0,0 +1,147 @@
+package com.finadem.service;
+
+import com.finadem.configurations.GroupCommitConfig;
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.repository.AccountRepository;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransactionHistoryPage;
+import com.finadem.response.TransactionView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs the regular {@link TransactionServiceImpl} write paths through the {@link GroupCommitExecutor},
+ * so concurrent deposits, withdrawals and transfers share database commits. Enabled with
+ * {@code transaction.engine=group-commit}. Amounts are converted to EUR on the caller's thread, and
+ * unknown accounts and uncovered debits are turned away by a check against the balances in the batch
+ * rather than by failing, and replaying, the shared transaction.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = GroupCommitConfig.GROUP_COMMIT_ENGINE)
+class GroupCommitTransactionService implements TransactionService {
+    private final TransactionServiceImpl transactionServiceImpl;
+    private final GroupCommitExecutor groupCommitExecutor;
+    private final CurrencyConverterService currencyConverterService;
+    private final AccountRepository accountRepository;
+
+    public GroupCommitTransactionService(TransactionServiceImpl transactionServiceImpl,
+                                         GroupCommitExecutor groupCommitExecutor,
+                                         CurrencyConverterService currencyConverterService,
+                                         AccountRepository accountRepository) {
+        this.transactionServiceImpl = transactionServiceImpl;
+        this.groupCommitExecutor = groupCommitExecutor;
+        this.currencyConverterService = currencyConverterService;
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    public List<TransactionView> getLastNTransactionHistory(String iban, int lastNTransactions) {
+        return transactionServiceImpl.getLastNTransactionHistory(iban, lastNTransactions);
+    }
+
+    @Override
+    public List<TransactionView> getTransactionHistoryBetween(String iban, LocalDateTime startDate, LocalDateTime endDate) {
+        return transactionServiceImpl.getTransactionHistoryBetween(iban, startDate, endDate);
+    }
+
+    @Override
+    public TransactionHistoryPage getTransactionHistoryPage(String iban, String cursor, int limit) {
+        return transactionServiceImpl.getTransactionHistoryPage(iban, cursor, limit);
+    }
+
+    @Override
+    public void createDepositTransaction(String customerIban, CurrencyEnum currencyType, BigDecimal amount, String transactionRemarks,
+                                         TransactionType transactionType, TransactionSource transactionSource) {
+        createDepositTransaction(customerIban, currencyType, amount, transactionRemarks, transactionType, transactionSource, () -> {
+        });
+    }
+
+    @Override
+    public void createDepositTransaction(String customerIban, CurrencyEnum currencyType, BigDecimal amount, String transactionRemarks,
+                                         TransactionType transactionType, TransactionSource transactionSource,
+                                         Runnable inTransaction) {
+        // Deposits are booked in EUR, converting here keeps the rate lookup off the group-commit thread
+        BigDecimal amountInEUR = TransactionServiceImpl.convertToEUR(currencyConverterService, amount, currencyType);
+        await(groupCommitExecutor.submit(List.of(customerIban), () -> transactionServiceImpl.createDepositTransaction(
+                customerIban, CurrencyEnum.EUR, amountInEUR, transactionRemarks, transactionType, transactionSource, inTransaction)));
+    }
+
+    @Override
+    public void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest) {
+        createWithdrawalTransaction(withdrawalRequest, () -> {
+        });
+    }
+
+    @Override
+    public void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest, Runnable inTransaction) {
+        String iban = withdrawalRequest.getIban();
+        BigDecimal amount = new BigDecimal(withdrawalRequest.getAmount());
+        await(groupCommitExecutor.submit(List.of(iban), () -> {
+            BigDecimal balance = accountRepository.findCurrentBalanceByAccountNumber(iban);
+            if (balance == null) {
+                return new IbanNotFoundException("Account with IBAN " + iban + " not found. To open a new account please contact the banking team.");
+            }
+            return balance.compareTo(amount) < 0 ? new InsufficientBalanceException("Insufficient balance") : null;
+        }, () -> transactionServiceImpl.createWithdrawalTransaction(withdrawalRequest, inTransaction)));
+    }
+
+    @Override
+    public void createFundTransferTransaction(FundTransferRequest fundTransferRequest) {
+        createFundTransferTransaction(fundTransferRequest, () -> {
+        });
+    }
+
+    @Override
+    public void createFundTransferTransaction(FundTransferRequest fundTransferRequest, Runnable inTransaction) {
+        TransactionServiceImpl.validateFundTransferRequest(fundTransferRequest);
+        BigDecimal amountInEUR = transactionServiceImpl.getTransferAmountInEUR(fundTransferRequest);
+        // Replayed with the booking when the batch is retried without a failed write
+        List<String> accounts = List.of(fundTransferRequest.getCustomerAccountNumber(), fundTransferRequest.getTransactingAccountNumber());
+        await(groupCommitExecutor.submit(accounts, () -> checkTransfer(fundTransferRequest, amountInEUR), () -> {
+            transactionServiceImpl.bookFundTransfer(fundTransferRequest, amountInEUR);
+            inTransaction.run();
+        }));
+    }
+
+    // Runs in the batch transaction, so the balances include the writes booked before it in the batch
+    private RuntimeException checkTransfer(FundTransferRequest fundTransferRequest, BigDecimal amount) {
+        String customer = fundTransferRequest.getCustomerAccountNumber();
+        BigDecimal customerBalance = accountRepository.findCurrentBalanceByAccountNumber(customer);
+        if (customerBalance == null) {
+            return new IbanNotFoundException("Account with IBAN " + customer + " not found.");
+        }
+        BigDecimal debitedBalance = TransactionType.CREDIT.equals(fundTransferRequest.getTransactionType())
+                ? accountRepository.findCurrentBalanceByAccountNumber(fundTransferRequest.getTransactingAccountNumber())
+                : customerBalance;
+        // A counterparty held at another bank is not debited here
+        return debitedBalance != null && debitedBalance.compareTo(amount) < 0 ? new InsufficientBalanceException("Insufficient balance") : null;
+    }
+
+    private void await(CompletableFuture<Void> write) {
+        try {
+            write.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Grouped transaction request failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the grouped commit", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.finadem.service;
+
+import com.finadem.configurations.CacheConfiguration;
+import com.finadem.configurations.IdempotencyConfig;
+import com.finadem.entity.IdempotencyRecord;
+import com.finadem.exception.exceptions.IdempotencyKeyReusedException;
+import com.finadem.exception.exceptions.InvalidIdempotencyKeyException;
+import com.finadem.helper.SingleFlight;
+import com.finadem.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public interface IdempotencyService {
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    record IdempotentResult(String body, boolean replayed) {
+    }
+
+    /**
+     * Runs the booking once per key and records its response. The booking is handed the insert of the
+     * record to run in its database transaction, so the booking and its record commit together or not
+     * at all. A retry with the key gets the recorded response without running the booking again, a
+     * duplicate arriving while the first one runs waits for it. A booking that fails is not recorded,
+     * so a retry runs it again.
+     *
+     * @param operation names the endpoint, a key reused for another operation or request is rejected
+     * @param request   the request body, compared with the one the response was recorded for
+     * @param response  the body answered to the request and recorded for its retries
+     */
+    IdempotentResult execute(String idempotencyKey, String operation, Object request, String response, Consumer<Runnable> booking);
+
+    /**
+     * Deletes recorded responses older than the retention and returns how many.
+     */
+    int purgeExpired();
+}
+
+@Service
+class IdempotencyServiceImpl implements IdempotencyService {
+    Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Cache recordedResponses;
+    private final IdempotencyConfig idempotencyConfig;
+    private final SingleFlight<String, RecordedResponse> inFlight = new SingleFlight<>();
+
+    private record RecordedResponse(byte[] requestHash, String body) {
+    }
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  CacheManager cacheManager,
+                                  IdempotencyConfig idempotencyConfig) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.recordedResponses = cacheManager.getCache(CacheConfiguration.IDEMPOTENCY_CACHE);
+        this.idempotencyConfig = idempotencyConfig;
+    }
+
+    @Override
+    public IdempotentResult execute(String idempotencyKey, String operation, Object request, String response, Consumer<Runnable> booking) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be 1 to " + IdempotencyRecord.MAX_KEY_LENGTH + " characters long.");
+        }
+        byte[] requestHash = hash(operation, request);
+        // The common retry: a map lookup, no database and no booking
+        RecordedResponse recorded = recordedResponses.get(idempotencyKey, RecordedResponse.class);
+        if (recorded != null) {
+            return replay(idempotencyKey, recorded, requestHash);
+        }
+        AtomicBoolean booked = new AtomicBoolean();
+        CompletableFuture<RecordedResponse> first = inFlight.execute(idempotencyKey,
+                () -> loadOrBook(idempotencyKey, requestHash, response, booking, booked));
+        recorded = await(idempotencyKey, first);
+        return booked.get() ? new IdempotentResult(recorded.body(), false) : replay(idempotencyKey, recorded, requestHash);
+    }
+
+    @Override
+    @Scheduled(cron = "${idempotency.purge-cron}")
+    public int purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(idempotencyConfig.getRetentionHours()));
+        logger.info("Purged {} expired idempotency records", purged);
+        return purged;
+    }
+
+    // Runs once per key at a time; duplicates of the key wait for it in execute
+    private RecordedResponse loadOrBook(String idempotencyKey, byte[] requestHash, String response,
+                                        Consumer<Runnable> booking, AtomicBoolean booked) {
+        RecordedResponse recorded = recordedResponses.get(idempotencyKey, RecordedResponse.class);
+        if (recorded != null) {
+            return recorded;
+        }
+        // Evicted from memory but still within the retention
+        recorded = idempotencyRecordRepository.findById(idempotencyKey)
+                .map(record -> new RecordedResponse(record.getRequestHash(), record.getResponseBody()))
+                .orElse(null);
+        if (recorded == null) {
+            try {
+                booking.accept(() -> idempotencyRecordRepository.insertRecord(idempotencyKey, requestHash, response, LocalDateTime.now()));
+                booked.set(true);
+                recorded = new RecordedResponse(requestHash, response);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance recorded the key meanwhile and rolled this booking back with the
+                // insert; its response is replayed, or the violation was the booking's own
+                logger.warn("Idempotency-Key {} was recorded concurrently", idempotencyKey);
+                recorded = idempotencyRecordRepository.findById(idempotencyKey)
+                        .map(record -> new RecordedResponse(record.getRequestHash(), record.getResponseBody()))
+                        .orElseThrow(() -> e);
+            }
+        }
+        recordedResponses.put(idempotencyKey, recorded);
+        return recorded;
+    }
+
+    private IdempotentResult replay(String idempotencyKey, RecordedResponse recorded, byte[] requestHash) {
+        if (!MessageDigest.isEqual(recorded.requestHash(), requestHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key " + idempotencyKey + " was already used for a different request.");
+        }
+        return new IdempotentResult(recorded.body(), true);
+    }
+
+    private RecordedResponse await(String idempotencyKey, CompletableFuture<RecordedResponse> first) {
+        try {
+            return first.get(idempotencyConfig.getWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The first request failed and booked nothing, its duplicates fail alike
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Request with Idempotency-Key " + idempotencyKey + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConcurrencyFailureException("Timed out waiting for the request with Idempotency-Key " + idempotencyKey, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the request with Idempotency-Key " + idempotencyKey, e);
+        }
+    }
+
+    // Request DTOs print every field, enums by name, so the hash is stable across restarts
+    private static byte[] hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return digest.digest(String.valueOf(request).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
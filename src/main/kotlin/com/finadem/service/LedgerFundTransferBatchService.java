@@ -0,0 +1,49 @@
+package com.finadem.service;
+
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.FundTransferResult;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Books batched transfers one by one through the ledger, which owns the balances when
+ * {@code transaction.engine=ledger} and must not be bypassed by direct database updates.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = LedgerConfig.LEDGER_ENGINE)
+class LedgerFundTransferBatchService implements FundTransferBatchService {
+    private final TransactionService transactionService;
+    private final Validator validator;
+
+    public LedgerFundTransferBatchService(TransactionService transactionService, Validator validator) {
+        this.transactionService = transactionService;
+        this.validator = validator;
+    }
+
+    @Override
+    public List<FundTransferResult> createFundTransfers(List<FundTransferRequest> fundTransferRequests) {
+        List<FundTransferResult> results = new ArrayList<>(fundTransferRequests.size());
+        for (int i = 0; i < fundTransferRequests.size(); i++) {
+            FundTransferRequest request = fundTransferRequests.get(i);
+            String rejection = FundTransferBatchServiceImpl.validate(validator, request);
+            if (rejection != null) {
+                results.add(FundTransferResult.failed(i, rejection));
+                continue;
+            }
+            try {
+                transactionService.createFundTransferTransaction(request);
+                results.add(FundTransferResult.succeeded(i));
+            } catch (RuntimeException e) {
+                results.add(FundTransferResult.failed(i, e.getMessage()));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,183 @@
+package com.finadem.service;
+
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.BookingPendingException;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.journal.JournalEntry;
+import com.finadem.ledger.LedgerEngine;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransactionHistoryPage;
+import com.finadem.response.TransactionView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Books deposits, withdrawals and transfers through the in-memory {@link LedgerEngine} instead of
+ * updating the database per request. Enabled with {@code transaction.engine=ledger}. History reads
+ * still come from the Transaction table, which trails the ledger by the projection lag.
+ * <p>
+ * A booking the shards have not applied within {@code ledger.request-timeout-ms} may still be
+ * applied, so the request ends with {@link BookingPendingException} instead of failing, and the work
+ * meant for the booking's transaction runs once the booking is journaled.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = LedgerConfig.ENGINE_PROPERTY, havingValue = LedgerConfig.LEDGER_ENGINE)
+class LedgerTransactionService implements TransactionService {
+    Logger logger = LoggerFactory.getLogger(TransactionService.class);
+    private final LedgerEngine ledgerEngine;
+    private final TransactionServiceImpl transactionServiceImpl;
+    private final CurrencyConverterService currencyConverterService;
+    private final LedgerConfig ledgerConfig;
+
+    public LedgerTransactionService(LedgerEngine ledgerEngine,
+                                    TransactionServiceImpl transactionServiceImpl,
+                                    CurrencyConverterService currencyConverterService,
+                                    LedgerConfig ledgerConfig) {
+        this.ledgerEngine = ledgerEngine;
+        this.transactionServiceImpl = transactionServiceImpl;
+        this.currencyConverterService = currencyConverterService;
+        this.ledgerConfig = ledgerConfig;
+    }
+
+    @Override
+    public List<TransactionView> getLastNTransactionHistory(String iban, int lastNTransactions) {
+        return transactionServiceImpl.getLastNTransactionHistory(iban, lastNTransactions);
+    }
+
+    @Override
+    public List<TransactionView> getTransactionHistoryBetween(String iban, LocalDateTime startDate, LocalDateTime endDate) {
+        return transactionServiceImpl.getTransactionHistoryBetween(iban, startDate, endDate);
+    }
+
+    @Override
+    public TransactionHistoryPage getTransactionHistoryPage(String iban, String cursor, int limit) {
+        return transactionServiceImpl.getTransactionHistoryPage(iban, cursor, limit);
+    }
+
+    @Override
+    public void createDepositTransaction(String customerIban, CurrencyEnum currencyType, BigDecimal amount, String transactionRemarks,
+                                         TransactionType transactionType, TransactionSource transactionSource) {
+        createDepositTransaction(customerIban, currencyType, amount, transactionRemarks, transactionType, transactionSource, () -> {
+        });
+    }
+
+    @Override
+    public void createDepositTransaction(String customerIban, CurrencyEnum currencyType, BigDecimal amount, String transactionRemarks,
+                                         TransactionType transactionType, TransactionSource transactionSource,
+                                         Runnable inTransaction) {
+        BigDecimal depositAmount = TransactionServiceImpl.convertToEUR(currencyConverterService, amount, currencyType);
+        await(ledgerEngine.deposit(JournalEntry.builder()
+                .bookedAt(Instant.now())
+                .iban(customerIban)
+                .transactingAccount(customerIban)
+                .delta(depositAmount)
+                .currency(CurrencyEnum.EUR)
+                .type(TransactionType.DEPOSIT)
+                .source(transactionSource)
+                .remarks(transactionRemarks)
+                .build()), inTransaction);
+    }
+
+    @Override
+    public void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest) {
+        createWithdrawalTransaction(withdrawalRequest, () -> {
+        });
+    }
+
+    @Override
+    public void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest, Runnable inTransaction) {
+        String customerIban = withdrawalRequest.getIban();
+        await(ledgerEngine.post(JournalEntry.builder()
+                .bookedAt(Instant.now())
+                .iban(customerIban)
+                .transactingAccount(customerIban)
+                .delta(new BigDecimal(withdrawalRequest.getAmount()).negate())
+                .currency(withdrawalRequest.getCurrency())
+                .type(withdrawalRequest.getTransactionType())
+                .source(withdrawalRequest.getTransactionSource())
+                .remarks(withdrawalRequest.getTransactionRemarks())
+                .build()).thenApply(updatedBalance -> {
+            if (updatedBalance == null) {
+                logger.error("No account found for IBAN: " + customerIban);
+                throw new IbanNotFoundException("Account with IBAN " + customerIban + " not found. To open a new account please contact the banking team.");
+            }
+            return updatedBalance;
+        }), inTransaction);
+    }
+
+    @Override
+    public void createFundTransferTransaction(FundTransferRequest fundTransferRequest) {
+        createFundTransferTransaction(fundTransferRequest, () -> {
+        });
+    }
+
+    @Override
+    public void createFundTransferTransaction(FundTransferRequest fundTransferRequest, Runnable inTransaction) {
+        TransactionServiceImpl.validateFundTransferRequest(fundTransferRequest);
+        BigDecimal transferAmount = TransactionServiceImpl.convertToEUR(currencyConverterService,
+                new BigDecimal(fundTransferRequest.getAmount()), fundTransferRequest.getCurrencyType());
+        String customerIban = fundTransferRequest.getCustomerAccountNumber();
+        String counterpartyIban = fundTransferRequest.getTransactingAccountNumber();
+        boolean isCreditTransfer = TransactionType.CREDIT.equals(fundTransferRequest.getTransactionType());
+        Instant bookedAt = Instant.now();
+        JournalEntry customerLeg = transferLeg(customerIban, counterpartyIban, bookedAt,
+                isCreditTransfer ? transferAmount : transferAmount.negate(),
+                isCreditTransfer ? "Fund transfer from " + counterpartyIban : "Fund transfer to " + counterpartyIban);
+        JournalEntry counterpartyLeg = transferLeg(counterpartyIban, customerIban, bookedAt,
+                isCreditTransfer ? transferAmount.negate() : transferAmount,
+                "Online fund transfer " + (isCreditTransfer ? "to" : "from") + " account " + customerIban);
+        await(ledgerEngine.transfer(customerLeg, counterpartyLeg), inTransaction);
+    }
+
+    private JournalEntry transferLeg(String iban, String transactingAccount, Instant bookedAt, BigDecimal delta, String remarks) {
+        return JournalEntry.builder()
+                .bookedAt(bookedAt)
+                .iban(iban)
+                .transactingAccount(transactingAccount)
+                .delta(delta)
+                .currency(CurrencyEnum.EUR)
+                .type(delta.signum() < 0 ? TransactionType.DEBIT : TransactionType.CREDIT)
+                .source(TransactionSource.ONLINE_FUND_TRANSFER)
+                .remarks(remarks)
+                .build();
+    }
+
+    // Runs afterBooking once the booking is journaled, also when that is after the request gave up waiting
+    private <T> void await(CompletableFuture<T> booking, Runnable afterBooking) {
+        try {
+            booking.get(ledgerConfig.getRequestTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ledger booking failed", e.getCause());
+        } catch (TimeoutException e) {
+            booking.thenRunAsync(afterBooking).exceptionally(failure -> {
+                logger.error("Could not complete the ledger booking applied after its request timed out", failure);
+                return null;
+            });
+            throw new BookingPendingException("The booking has not been applied yet. Check the transaction history before repeating the request.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger booking", e);
+        }
+        afterBooking.run();
+    }
+}
@@ -0,0 +1,158 @@
+package com.finadem.service;
+
+import com.finadem.archive.TransactionArchive;
+import com.finadem.configurations.TransactionAggregateConfig;
+import com.finadem.entity.Transaction;
+import com.finadem.entity.TransactionAggregate;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionAggregateRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.response.TransactionSummary;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public interface TransactionAggregateService {
+    /**
+     * Adds freshly saved Transaction rows to the monthly aggregates of their accounts. Must run in
+     * the transaction that saved them, after the account rows are locked, so concurrent bookings of
+     * one account update its aggregates in turn.
+     */
+    void recordTransactions(Collection<Transaction> transactions);
+
+    /**
+     * Number and sum of the transactions of the account per month, type and source, from the first
+     * to the last month inclusive. Reads one row per bucket, however many transactions it covers.
+     */
+    List<TransactionSummary> getSummary(String iban, YearMonth fromMonth, YearMonth toMonth);
+
+    /**
+     * Recomputes the aggregates of the months not yet archived from the Transaction table, chunks of
+     * accounts in parallel.
+     *
+     * @return the number of accounts rebuilt
+     */
+    int rebuildAggregates();
+}
+
+@Service
+class TransactionAggregateServiceImpl implements TransactionAggregateService {
+    Logger logger = LoggerFactory.getLogger(TransactionAggregateService.class);
+    private final AccountService accountService;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionAggregateRepository transactionAggregateRepository;
+    private final TransactionArchive transactionArchive;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildThreads;
+    private final int rebuildChunkSize;
+
+    private record Bucket(TransactionAggregate.Key key, long count, BigDecimal amount) {
+        Bucket add(Transaction transaction) {
+            return new Bucket(key, count + 1, amount.add(transaction.getAmount()));
+        }
+    }
+
+    public TransactionAggregateServiceImpl(AccountService accountService,
+                                           AccountRepository accountRepository,
+                                           TransactionRepository transactionRepository,
+                                           TransactionAggregateRepository transactionAggregateRepository,
+                                           TransactionArchive transactionArchive,
+                                           EntityManager entityManager,
+                                           PlatformTransactionManager transactionManager,
+                                           TransactionAggregateConfig transactionAggregateConfig) {
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionAggregateRepository = transactionAggregateRepository;
+        this.transactionArchive = transactionArchive;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildThreads = Math.max(1, transactionAggregateConfig.getRebuildThreads());
+        this.rebuildChunkSize = Math.max(1, transactionAggregateConfig.getRebuildChunkSize());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransactions(Collection<Transaction> transactions) {
+        // A batch touches each bucket once, however many of its rows fall into it
+        Map<TransactionAggregate.Key, Bucket> buckets = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            TransactionAggregate.Key key = new TransactionAggregate.Key(transaction.getIban(),
+                    transaction.getTimestamp().toLocalDate().withDayOfMonth(1), transaction.getType(), transaction.getSource());
+            buckets.merge(key, new Bucket(key, 1, transaction.getAmount()), (bucket, ignored) -> bucket.add(transaction));
+        }
+        // Usually a single update, the first booking of a bucket adds an insert
+        for (Bucket bucket : buckets.values()) {
+            TransactionAggregate.Key key = bucket.key();
+            if (transactionAggregateRepository.addToAggregate(key.getIban(), key.getPeriodStart(), key.getType(), key.getSource(),
+                    bucket.count(), bucket.amount()) == 0) {
+                transactionAggregateRepository.insertAggregate(key.getIban(), key.getPeriodStart(), key.getType(), key.getSource(),
+                        bucket.count(), bucket.amount());
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionSummary> getSummary(String iban, YearMonth fromMonth, YearMonth toMonth) {
+        if (accountService.getAccountInformationByAccountNumber(iban) == null) {
+            throw new IbanNotFoundException("Account with IBAN " + iban + " not found.");
+        }
+        return transactionAggregateRepository.findSummaries(iban, fromMonth.atDay(1), toMonth.atDay(1));
+    }
+
+    @Override
+    public int rebuildAggregates() {
+        long start = System.nanoTime();
+        int accounts = 0;
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads)) {
+            // Accounts are paged by IBAN, so chunks neither overlap nor shift while accounts are opened
+            String after = "";
+            List<String> chunk;
+            while (!(chunk = accountRepository.findIbansAfter(after, Limit.of(rebuildChunkSize))).isEmpty()) {
+                List<String> ibans = chunk;
+                chunks.add(CompletableFuture.runAsync(() -> rebuildChunk(ibans), executor));
+                accounts += ibans.size();
+                after = ibans.getLast();
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        }
+        logger.info("Rebuilt transaction aggregates of {} accounts in {} ms", accounts, (System.nanoTime() - start) / 1_000_000);
+        return accounts;
+    }
+
+    // Locking the accounts holds off bookings of the chunk until its aggregates are replaced. Months
+    // already moved to the archive are no longer in the Transaction table and keep their aggregates.
+    private void rebuildChunk(List<String> ibans) {
+        LocalDateTime archivedBefore = transactionArchive.getArchivedBefore();
+        LocalDateTime from = archivedBefore == null ? LocalDate.EPOCH.atStartOfDay() : archivedBefore;
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.lockAccountsInIbanOrder(ibans);
+            transactionAggregateRepository.deleteByIbansFrom(ibans, from.toLocalDate());
+            for (TransactionAggregate aggregate : transactionRepository.aggregateByMonth(ibans, from)) {
+                entityManager.persist(aggregate);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package com.finadem.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.finadem.archive.TransactionArchive;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.ExportFormat;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.response.TransactionView;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TransactionExportService {
+    /**
+     * Writes the transactions of the account in the date range, archived ones included, to the
+     * output, oldest first, one row at a time.
+     * The output is flushed but not closed.
+     *
+     * @return the number of transactions written
+     */
+    long exportTransactionHistory(String iban, LocalDateTime startDate, LocalDateTime endDate,
+                                  ExportFormat format, OutputStream outputStream) throws IOException;
+}
+
+@Service
+class TransactionExportServiceImpl implements TransactionExportService {
+    private static final String CSV_HEADER = "transactionId,iban,transactingAccount,amount,currency,type,status,source,timestamp,transactionRemarks";
+
+    Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchive transactionArchive;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExportServiceImpl(TransactionRepository transactionRepository, TransactionArchive transactionArchive,
+                                        EntityManager entityManager, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.transactionArchive = transactionArchive;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads through a database cursor and detaches every row once written, so neither the result
+     * nor the persistence context grows with the number of transactions. Ranges reaching back into
+     * archived months also read the archive, whose rows are merged into the cursor in order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportTransactionHistory(String iban, LocalDateTime startDate, LocalDateTime endDate,
+                                         ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamTransactionHistoryBetween(iban, startDate, endDate)) {
+            SequenceWriter ndjson = null;
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            } else {
+                ndjson = objectMapper.writer()
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .withRootValueSeparator("\n")
+                        .writeValues(writer);
+            }
+            Iterator<TransactionView> archived = readArchive(iban, startDate, endDate).iterator();
+            TransactionView nextArchived = archived.hasNext() ? archived.next() : null;
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                TransactionView row = toView(transaction);
+                entityManager.detach(transaction);
+                while (nextArchived != null && TransactionArchive.OLDEST_FIRST.compare(nextArchived, row) < 0) {
+                    writeRow(writer, ndjson, nextArchived);
+                    rows++;
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                // Still in both tiers because its deletion from the table was rolled back
+                if (nextArchived != null && nextArchived.transactionId().equals(row.transactionId())) {
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                writeRow(writer, ndjson, row);
+                rows++;
+            }
+            while (nextArchived != null) {
+                writeRow(writer, ndjson, nextArchived);
+                rows++;
+                nextArchived = archived.hasNext() ? archived.next() : null;
+            }
+            if (ndjson != null) {
+                ndjson.flush();
+                if (rows > 0) {
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
+        logger.info("Exported {} transactions of {} as {}", rows, iban, format);
+        return rows;
+    }
+
+    private List<TransactionView> readArchive(String iban, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime archivedBefore = transactionArchive.getArchivedBefore();
+        if (archivedBefore == null || !startDate.isBefore(archivedBefore)) {
+            return List.of();
+        }
+        return transactionArchive.read(iban, startDate, endDate);
+    }
+
+    private static TransactionView toView(Transaction transaction) {
+        return new TransactionView(transaction.getTransactionId(), transaction.getIban(), transaction.getTransactingAccount(),
+                transaction.getAmount(), transaction.getType(), transaction.getStatus(), transaction.getSource(),
+                transaction.getTransactionRemarks(), transaction.getCurrency(), transaction.getTimestamp());
+    }
+
+    private void writeRow(Writer writer, SequenceWriter ndjson, TransactionView transaction) throws IOException {
+        if (ndjson != null) {
+            ndjson.write(transaction);
+        } else {
+            writeCsvRow(writer, transaction);
+        }
+    }
+
+    private void writeCsvRow(Writer writer, TransactionView transaction) throws IOException {
+        writer.write(String.valueOf(transaction.transactionId()));
+        writeCsvField(writer, transaction.iban());
+        writeCsvField(writer, transaction.transactingAccount());
+        writeCsvField(writer, transaction.amount().toPlainString());
+        writeCsvField(writer, transaction.currency().name());
+        writeCsvField(writer, transaction.type().name());
+        writeCsvField(writer, transaction.status().name());
+        writeCsvField(writer, transaction.source().name());
+        writeCsvField(writer, transaction.timestamp().toString());
+        writeCsvField(writer, transaction.transactionRemarks());
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting, only where the value needs it
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -1,15 +1,20 @@
 package com.finadem.service;
 
+import com.finadem.archive.TransactionArchive;
 import com.finadem.enums.*;
 import com.finadem.exception.exceptions.*;
 import com.finadem.request.AccountDataRequest;
 import com.finadem.entity.Transaction;
+import com.finadem.helper.RetryOnConflict;
+import com.finadem.helper.TransactionCursor;
+import com.finadem.journal.JournalRecorder;
 import com.finadem.repository.TransactionRepository;
 import com.finadem.request.DepositWithdrawalRequest;
 import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransactionHistoryPage;
+import com.finadem.response.TransactionView;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.NoTransactionException;
 import org.slf4j.Logger;
@@ -18,20 +23,60 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public interface TransactionService {
-    List<Transaction> getLastNTransactionHistory(String iban, int lastNTransactions);
+    List<TransactionView> getLastNTransactionHistory(String iban, int lastNTransactions);
 
-    List<Transaction> getTransactionHistoryBetween(String iban, LocalDateTime startDate, LocalDateTime endDate);
+    List<TransactionView> getTransactionHistoryBetween(String iban, LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * Returns up to limit transactions of the account, newest first, following the position of the cursor.
+     *
+     * @param cursor the nextCursor of the previous page, or null for the newest transactions
+     */
+    TransactionHistoryPage getTransactionHistoryPage(String iban, String cursor, int limit);
 
     void createDepositTransaction(String customerIban, CurrencyEnum currencyType,
                                   BigDecimal amount, String transactionRemarks,
                                   TransactionType transactionType,
                                   TransactionSource transactionSource);
 
+    /**
+     * Books the deposit and runs inTransaction in the database transaction of the booking, as
+     * {@link #createFundTransferTransaction(FundTransferRequest, Runnable)} does for transfers.
+     */
+    default void createDepositTransaction(String customerIban, CurrencyEnum currencyType,
+                                          BigDecimal amount, String transactionRemarks,
+                                          TransactionType transactionType,
+                                          TransactionSource transactionSource,
+                                          Runnable inTransaction) {
+        createDepositTransaction(customerIban, currencyType, amount, transactionRemarks, transactionType, transactionSource);
+        inTransaction.run();
+    }
+
     void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest);
 
+    /**
+     * Books the withdrawal and runs inTransaction in the database transaction of the booking, as
+     * {@link #createFundTransferTransaction(FundTransferRequest, Runnable)} does for transfers.
+     */
+    default void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest, Runnable inTransaction) {
+        createWithdrawalTransaction(withdrawalRequest);
+        inTransaction.run();
+    }
+
     void createFundTransferTransaction(FundTransferRequest fundTransferRequest);
+
+    /**
+     * Books the transfer and runs inTransaction in the database transaction of the booking, so both
+     * commit or neither does. The ledger engine, which books through its own journal, runs it once
+     * the booking is journaled.
+     */
+    default void createFundTransferTransaction(FundTransferRequest fundTransferRequest, Runnable inTransaction) {
+        createFundTransferTransaction(fundTransferRequest);
+        inTransaction.run();
+    }
 }
 
 @Service
@@ -40,20 +85,30 @@ class TransactionServiceImpl implements TransactionService {
     private final AccountService accountService;
     private final CurrencyConverterService currencyConverterService;
     private final TransactionRepository transactionRepository;
+    private final TransactionAggregateService transactionAggregateService;
+    private final TransactionArchive transactionArchive;
+    private final JournalRecorder journalRecorder;
 
     public TransactionServiceImpl(AccountService accountService,
                                   CurrencyConverterService currencyConverterService,
-                                  TransactionRepository transactionRepository
+                                  TransactionRepository transactionRepository,
+                                  TransactionAggregateService transactionAggregateService,
+                                  TransactionArchive transactionArchive,
+                                  JournalRecorder journalRecorder
     ) {
         this.accountService = accountService;
         this.currencyConverterService = currencyConverterService;
         this.transactionRepository = transactionRepository;
+        this.transactionAggregateService = transactionAggregateService;
+        this.transactionArchive = transactionArchive;
+        this.journalRecorder = journalRecorder;
     }
 
     @Override
-    public List<Transaction> getLastNTransactionHistory(String iban, int numberOfTransactions) {
-        Pageable pageable = PageRequest.of(0, numberOfTransactions);
-        List<Transaction> transactionHistory = transactionRepository.getTransactionByAccountNumber(iban, pageable).getContent();
+    @Transactional(readOnly = true)
+    public List<TransactionView> getLastNTransactionHistory(String iban, int numberOfTransactions) {
+        List<TransactionView> transactionHistory = addArchivedBefore(iban,
+                transactionRepository.findLatestTransactions(iban, Limit.of(numberOfTransactions)), null, numberOfTransactions);
         if (transactionHistory.isEmpty()) {
             throw new NoTransactionException("No transactions found for IBAN: " + iban);
         }
@@ -61,101 +116,169 @@ class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    public List<Transaction> getTransactionHistoryBetween(String iban, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Transaction> transactionsHistory = transactionRepository.getTransactionHistoryBetween(iban, startDate, endDate);
+    @Transactional(readOnly = true)
+    public List<TransactionView> getTransactionHistoryBetween(String iban, LocalDateTime startDate, LocalDateTime endDate) {
+        List<TransactionView> transactionsHistory = transactionRepository.getTransactionHistoryBetween(iban, startDate, endDate);
+        // Only ranges reaching back before the hot months read the archive
+        LocalDateTime archivedBefore = transactionArchive.getArchivedBefore();
+        if (archivedBefore != null && startDate.isBefore(archivedBefore)) {
+            transactionsHistory = TransactionArchive.merge(transactionsHistory, transactionArchive.read(iban, startDate, endDate),
+                    TransactionArchive.OLDEST_FIRST.reversed());
+        }
         if (transactionsHistory == null || transactionsHistory.isEmpty()) {
             throw new NoTransactionException("No transactions found between dates: " + startDate + " and " + endDate);
         }
         return transactionsHistory;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage getTransactionHistoryPage(String iban, String cursor, int limit) {
+        // One row more than requested tells whether another page follows
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<TransactionView> transactions;
+        TransactionCursor position = null;
+        if (cursor == null) {
+            transactions = transactionRepository.findLatestTransactions(iban, fetchLimit);
+        } else {
+            position = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findTransactionsBefore(iban, position.timestamp(), position.transactionId(), fetchLimit);
+        }
+        transactions = addArchivedBefore(iban, transactions, position, limit + 1);
+        if (transactions.size() <= limit) {
+            return new TransactionHistoryPage(transactions, null);
+        }
+        List<TransactionView> page = transactions.subList(0, limit);
+        return new TransactionHistoryPage(page, TransactionCursor.after(page.getLast()).encode());
+    }
+
+    // Completes a newest first read of the Transaction table, following the position or from the
+    // newest row, with archived rows once the read runs short or reaches back into archived months
+    private List<TransactionView> addArchivedBefore(String iban, List<TransactionView> transactions,
+                                                    TransactionCursor position, int limit) {
+        LocalDateTime archivedBefore = transactionArchive.getArchivedBefore();
+        if (archivedBefore == null
+                || (transactions.size() >= limit && !transactions.getLast().timestamp().isBefore(archivedBefore))) {
+            return transactions;
+        }
+        List<TransactionView> archived = position == null
+                ? transactionArchive.readBefore(iban, LocalDateTime.MAX, Long.MAX_VALUE, limit)
+                : transactionArchive.readBefore(iban, position.timestamp(), position.transactionId(), limit);
+        List<TransactionView> merged = TransactionArchive.merge(transactions, archived, TransactionArchive.OLDEST_FIRST.reversed());
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void createDepositTransaction(String customerIban, CurrencyEnum currencyType, BigDecimal amount, String transactionRemarks,
                                          TransactionType transactionType, TransactionSource transactionSource) {
-        BigDecimal transferRequestAmount = amount;
-        if (!currencyType.equals(CurrencyEnum.EUR)) {
-            BigDecimal currentRate = currencyConverterService.getExchangeRate(CurrencyEnum.EUR.toString(), currencyType.toString());
-            transferRequestAmount = amount.multiply(currentRate);
-        }
-        AccountDataRequest accountDataRequest = accountService.getAccountInformationByAccountNumber(customerIban);
-        if (accountDataRequest != null) {
-            Transaction transactionEntity = Transaction.builder()
-                    .iban(customerIban)
-                    .transactingAccount(customerIban)
-                    .amount(transferRequestAmount)
-                    .type(TransactionType.DEPOSIT)
-                    .source(transactionSource)
-                    .status(TransactionStatus.SUCCESS)
-                    .currency(CurrencyEnum.EUR).transactionRemarks(transactionRemarks)
-                    .build();
-            transactionRepository.save(transactionEntity);
-            accountService.updateAccountBalance(customerIban, accountDataRequest.getCurrentBalance().add(amount));
-        } else {
-            accountDataRequest = AccountDataRequest.builder()
+        createDepositTransaction(customerIban, currencyType, amount, transactionRemarks, transactionType, transactionSource, () -> {
+        });
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void createDepositTransaction(String customerIban, CurrencyEnum currencyType, BigDecimal amount, String transactionRemarks,
+                                         TransactionType transactionType, TransactionSource transactionSource,
+                                         Runnable inTransaction) {
+        BigDecimal transferRequestAmount = convertToEUR(currencyConverterService, amount, currencyType);
+        BigDecimal updatedBalance = accountService.applyBalanceDelta(customerIban, transferRequestAmount);
+        if (updatedBalance == null) {
+            // Opened empty and credited, so the journal holds the opening and the deposit separately
+            AccountDataRequest accountDataRequest = AccountDataRequest.builder()
                     .iban(customerIban)
                     .accountHolderName(customerIban)
                     .currency(CurrencyEnum.EUR)
                     .status(AccountStatus.ACTIVE_KYC_NOT_COMPLETED)
-                    .currentBalance(transferRequestAmount)
+                    .currentBalance(BigDecimal.ZERO)
                     .build();
             accountService.createNewAccount(accountDataRequest);
-
-            Transaction transactionEntity = Transaction.builder()
-                    .iban(customerIban)
-                    .transactingAccount(customerIban)
-                    .amount(transferRequestAmount)
-                    .type(TransactionType.DEPOSIT)
-                    .source(transactionSource)
-                    .status(TransactionStatus.SUCCESS)
-                    .currency(CurrencyEnum.EUR).transactionRemarks(transactionRemarks)
-                    .build();
-            transactionRepository.save(transactionEntity);
+            accountService.applyBalanceDelta(customerIban, transferRequestAmount);
         }
+        Transaction transactionEntity = Transaction.builder()
+                .iban(customerIban)
+                .transactingAccount(customerIban)
+                .amount(transferRequestAmount)
+                .type(TransactionType.DEPOSIT)
+                .source(transactionSource)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR).transactionRemarks(transactionRemarks)
+                .build();
+        transactionRepository.save(transactionEntity);
+        transactionAggregateService.recordTransactions(List.of(transactionEntity));
+        journalRecorder.record(transactionEntity, transferRequestAmount);
+        inTransaction.run();
     }
 
     @Override
+    @RetryOnConflict
     @Transactional(rollbackFor = Exception.class)
     public void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest) {
+        createWithdrawalTransaction(withdrawalRequest, () -> {
+        });
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional(rollbackFor = Exception.class)
+    public void createWithdrawalTransaction(DepositWithdrawalRequest withdrawalRequest, Runnable inTransaction) {
         String customerIban = withdrawalRequest.getIban();
         BigDecimal withdrawalAmount = new BigDecimal(withdrawalRequest.getAmount());
-        AccountDataRequest accountDataRequest = accountService.getAccountInformationByAccountNumber(customerIban);
-        if (accountDataRequest != null) {
-            BigDecimal prospectiveAccountBalance = accountDataRequest.getCurrentBalance().subtract(withdrawalAmount);
-            if (prospectiveAccountBalance.compareTo(BigDecimal.ZERO) < 0) {
-                throw new InsufficientBalanceException("Insufficient balance");
-            }
-            Transaction transactionEntity = Transaction.builder()
-                    .iban(withdrawalRequest.getIban())
-                    .transactingAccount(withdrawalRequest.getIban())
-                    .amount(withdrawalAmount)
-                    .type(withdrawalRequest.getTransactionType())
-                    .source(withdrawalRequest.getTransactionSource())
-                    .currency(withdrawalRequest.getCurrency())
-                    .transactionRemarks(withdrawalRequest.getTransactionRemarks())
-                    .status(TransactionStatus.SUCCESS)
-                    .build();
-            transactionRepository.save(transactionEntity);
-            accountService.updateAccountBalance(customerIban, prospectiveAccountBalance);
-        } else {
+        if (accountService.applyBalanceDelta(customerIban, withdrawalAmount.negate()) == null) {
             logger.error("No account found for IBAN: " + withdrawalRequest.getIban());
             throw new IbanNotFoundException("Account with IBAN " + customerIban + " not found. To open a new account please contact the banking team.");
         }
+        Transaction transactionEntity = Transaction.builder()
+                .iban(withdrawalRequest.getIban())
+                .transactingAccount(withdrawalRequest.getIban())
+                .amount(withdrawalAmount)
+                .type(withdrawalRequest.getTransactionType())
+                .source(withdrawalRequest.getTransactionSource())
+                .currency(withdrawalRequest.getCurrency())
+                .transactionRemarks(withdrawalRequest.getTransactionRemarks())
+                .status(TransactionStatus.SUCCESS)
+                .build();
+        transactionRepository.save(transactionEntity);
+        transactionAggregateService.recordTransactions(List.of(transactionEntity));
+        journalRecorder.record(transactionEntity, withdrawalAmount.negate());
+        inTransaction.run();
     }
 
+    @RetryOnConflict
     @Transactional(rollbackFor=Exception.class)
     public void createFundTransferTransaction(FundTransferRequest fundTransferRequest) {
+        createFundTransferTransaction(fundTransferRequest, () -> {
+        });
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional(rollbackFor = Exception.class)
+    public void createFundTransferTransaction(FundTransferRequest fundTransferRequest, Runnable inTransaction) {
         validateFundTransferRequest(fundTransferRequest);
-        BigDecimal transferAmount = getTransferAmountInEUR(fundTransferRequest);
+        bookFundTransfer(fundTransferRequest, getTransferAmountInEUR(fundTransferRequest));
+        inTransaction.run();
+    }
+
+    // The transfer of a validated request, with its amount already converted to EUR
+    void bookFundTransfer(FundTransferRequest fundTransferRequest, BigDecimal transferAmount) {
+        // Both rows are locked up front in IBAN order, so crossing transfers between the same
+        // accounts queue instead of deadlocking on the balance updates below
+        Set<String> lockedAccounts = accountService.lockAccounts(List.of(
+                fundTransferRequest.getCustomerAccountNumber(), fundTransferRequest.getTransactingAccountNumber()));
+        if (!lockedAccounts.contains(fundTransferRequest.getCustomerAccountNumber())) {
+            throw new IbanNotFoundException("Account with IBAN " + fundTransferRequest.getCustomerAccountNumber() + " not found.");
+        }
+        boolean isLocalRecipient = lockedAccounts.contains(fundTransferRequest.getTransactingAccountNumber());
         boolean isCreditTransfer = TransactionType.CREDIT.equals(fundTransferRequest.getTransactionType());
         if (isCreditTransfer) {
-            processCreditTransfer(fundTransferRequest, transferAmount);
+            processCreditTransfer(fundTransferRequest, transferAmount, isLocalRecipient);
         } else {
-            processDebitTransfer(fundTransferRequest, transferAmount);
+            processDebitTransfer(fundTransferRequest, transferAmount, isLocalRecipient);
         }
     }
 
-    private void validateFundTransferRequest(FundTransferRequest fundTransferRequest) {
+    static void validateFundTransferRequest(FundTransferRequest fundTransferRequest) {
         if (fundTransferRequest.getTransactingAccountNumber().equals(fundTransferRequest.getCustomerAccountNumber())) {
             throw new TransferToSelfException("Sending and receiving account numbers cannot be the same.");
         }
@@ -164,20 +287,21 @@ class TransactionServiceImpl implements TransactionService {
         }
     }
 
-    private BigDecimal getTransferAmountInEUR(FundTransferRequest fundTransferRequest) {
-        BigDecimal transferAmount = new BigDecimal(fundTransferRequest.getAmount());
-        if (!CurrencyEnum.EUR.equals(fundTransferRequest.getCurrencyType())) {
-            BigDecimal exchangeRate = currencyConverterService.getExchangeRate(
-                    CurrencyEnum.EUR.toString(),
-                    fundTransferRequest.getCurrencyType().toString()
-            );
-            transferAmount = transferAmount.multiply(exchangeRate);
+    BigDecimal getTransferAmountInEUR(FundTransferRequest fundTransferRequest) {
+        return convertToEUR(currencyConverterService, new BigDecimal(fundTransferRequest.getAmount()), fundTransferRequest.getCurrencyType());
+    }
+
+    // Shared with the ledger engine so both paths book the same EUR amounts
+    static BigDecimal convertToEUR(CurrencyConverterService currencyConverterService, BigDecimal amount, CurrencyEnum currency) {
+        if (CurrencyEnum.EUR.equals(currency)) {
+            return amount;
         }
-        return transferAmount;
+        BigDecimal exchangeRate = currencyConverterService.getExchangeRate(CurrencyEnum.EUR.toString(), currency.toString());
+        return amount.multiply(exchangeRate);
     }
 
-    private void processCreditTransfer(FundTransferRequest fundTransferRequest, BigDecimal transferAmount) {
-        AccountDataRequest senderAccount = accountService.getAccountInformationByAccountNumber(fundTransferRequest.getCustomerAccountNumber());
+    private void processCreditTransfer(FundTransferRequest fundTransferRequest, BigDecimal transferAmount, boolean isLocalRecipient) {
+        applyCustomerBalanceDelta(fundTransferRequest, transferAmount);
         saveTransaction(
                 fundTransferRequest.getCustomerAccountNumber(),
                 fundTransferRequest.getTransactingAccountNumber(),
@@ -185,20 +309,13 @@ class TransactionServiceImpl implements TransactionService {
                 TransactionType.CREDIT,
                 "Fund transfer from " + fundTransferRequest.getTransactingAccountNumber()
         );
-        accountService.updateAccountBalance(fundTransferRequest.getCustomerAccountNumber(), senderAccount.getCurrentBalance().add(transferAmount));
-        updateRecipientAccountBalance(fundTransferRequest, transferAmount.negate(), "to");
-    }
-
-    private void processDebitTransfer(FundTransferRequest fundTransferRequest, BigDecimal transferAmount) {
-        AccountDataRequest senderAccount = accountService.getAccountInformationByAccountNumber(fundTransferRequest.getCustomerAccountNumber());
-        if(senderAccount==null){
-            throw new IbanNotFoundException("Account with IBAN " + fundTransferRequest.getCustomerAccountNumber() + " not found.");
+        if (isLocalRecipient) {
+            updateRecipientAccountBalance(fundTransferRequest, transferAmount.negate(), "to");
         }
-        BigDecimal newBalance = senderAccount.getCurrentBalance().subtract(transferAmount);
+    }
 
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance");
-        }
+    private void processDebitTransfer(FundTransferRequest fundTransferRequest, BigDecimal transferAmount, boolean isLocalRecipient) {
+        applyCustomerBalanceDelta(fundTransferRequest, transferAmount.negate());
         saveTransaction(
                 fundTransferRequest.getCustomerAccountNumber(),
                 fundTransferRequest.getTransactingAccountNumber(),
@@ -206,24 +323,25 @@ class TransactionServiceImpl implements TransactionService {
                 TransactionType.DEBIT,
                 "Fund transfer to " + fundTransferRequest.getTransactingAccountNumber()
         );
-        accountService.updateAccountBalance(fundTransferRequest.getCustomerAccountNumber(), newBalance);
-        updateRecipientAccountBalance(fundTransferRequest, transferAmount, "from");
+        if (isLocalRecipient) {
+            updateRecipientAccountBalance(fundTransferRequest, transferAmount, "from");
+        }
     }
 
+    private void applyCustomerBalanceDelta(FundTransferRequest fundTransferRequest, BigDecimal delta) {
+        accountService.applyBalanceDelta(fundTransferRequest.getCustomerAccountNumber(), delta);
+    }
+
+    // Accounts held at other banks are not in the database, only local recipients are updated
     private void updateRecipientAccountBalance(FundTransferRequest fundTransferRequest, BigDecimal amount, String direction) {
-        AccountDataRequest recipientAccount = accountService.getAccountInformationByAccountNumber(fundTransferRequest.getTransactingAccountNumber());
-        if (recipientAccount != null) {
-            BigDecimal updatedBalance = recipientAccount.getCurrentBalance().add(amount);
-            accountService.updateAccountBalance(fundTransferRequest.getTransactingAccountNumber(), updatedBalance);
-
-            saveTransaction(
-                    fundTransferRequest.getTransactingAccountNumber(),
-                    fundTransferRequest.getCustomerAccountNumber(),
-                    amount.abs(),
-                    amount.signum() > 0 ? TransactionType.CREDIT : TransactionType.DEBIT,
-                    "Online fund transfer " + direction + " account " + fundTransferRequest.getCustomerAccountNumber()
-            );
-        }
+        accountService.applyBalanceDelta(fundTransferRequest.getTransactingAccountNumber(), amount);
+        saveTransaction(
+                fundTransferRequest.getTransactingAccountNumber(),
+                fundTransferRequest.getCustomerAccountNumber(),
+                amount.abs(),
+                amount.signum() > 0 ? TransactionType.CREDIT : TransactionType.DEBIT,
+                "Online fund transfer " + direction + " account " + fundTransferRequest.getCustomerAccountNumber()
+        );
     }
 
     private void saveTransaction(String iban, String transactingAccount, BigDecimal amount, TransactionType type, String remarks) {
@@ -238,5 +356,7 @@ class TransactionServiceImpl implements TransactionService {
                 .transactionRemarks(remarks)
                 .build();
         transactionRepository.save(transaction);
+        transactionAggregateService.recordTransactions(List.of(transaction));
+        journalRecorder.recordTransfers(List.of(transaction));
     }
 }
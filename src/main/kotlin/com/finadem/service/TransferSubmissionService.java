@@ -0,0 +1,250 @@
+package com.finadem.service;
+
+import com.finadem.configurations.TransferQueueConfig;
+import com.finadem.entity.TransferSubmission;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.exception.exceptions.BookingPendingException;
+import com.finadem.exception.exceptions.TransferNotFoundException;
+import com.finadem.exception.exceptions.TransferQueueFullException;
+import com.finadem.repository.TransferSubmissionRepository;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransferSubmissionStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public interface TransferSubmissionService {
+
+    /**
+     * Stores the transfer as PENDING and queues it for booking by a worker. Returns once the
+     * submission is stored, before the transfer is booked.
+     *
+     * @throws TransferQueueFullException when transfer.async.queue-capacity transfers are already waiting
+     */
+    TransferSubmissionStatus submit(FundTransferRequest fundTransferRequest);
+
+    /**
+     * State of a submitted transfer.
+     *
+     * @throws TransferNotFoundException when no transfer was submitted with the id, or it was purged
+     */
+    TransferSubmissionStatus getStatus(String transferId);
+
+    /**
+     * Deletes completed submissions older than the retention and returns how many.
+     */
+    int purgeCompleted();
+}
+
+@Service
+class TransferSubmissionServiceImpl implements TransferSubmissionService, SmartLifecycle {
+    // After the journal replay and the ledger engine, before the web server accepts submissions
+    static final int PHASE = 1;
+
+    Logger logger = LoggerFactory.getLogger(TransferSubmissionService.class);
+    private final TransferSubmissionRepository transferSubmissionRepository;
+    private final TransactionService transactionService;
+    private final TransferQueueConfig transferQueueConfig;
+    private final ExecutorService workers;
+    // One permit per transfer queued or being booked, the bound on the backlog
+    private final Semaphore queueSlots;
+    private final int capacity;
+    private volatile boolean running;
+
+    public TransferSubmissionServiceImpl(TransferSubmissionRepository transferSubmissionRepository,
+                                         TransactionService transactionService,
+                                         TransferQueueConfig transferQueueConfig,
+                                         MeterRegistry meterRegistry) {
+        this.transferSubmissionRepository = transferSubmissionRepository;
+        this.transactionService = transactionService;
+        this.transferQueueConfig = transferQueueConfig;
+        int workerCount = Math.max(1, transferQueueConfig.getWorkers());
+        this.capacity = workerCount + Math.max(0, transferQueueConfig.getQueueCapacity());
+        this.queueSlots = new Semaphore(capacity);
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "transfer-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // The semaphore bounds the backlog, so the executor's own queue never grows past it
+        this.workers = Executors.newFixedThreadPool(workerCount, threadFactory);
+        Gauge.builder("transfer.async.queued", this, service -> service.capacity - service.queueSlots.availablePermits())
+                .description("Submitted transfers waiting for or being booked by a worker")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public TransferSubmissionStatus submit(FundTransferRequest fundTransferRequest) {
+        // Refused up front rather than accepted and failed later
+        TransactionServiceImpl.validateFundTransferRequest(fundTransferRequest);
+        if (!queueSlots.tryAcquire()) {
+            throw new TransferQueueFullException("Too many transfers are waiting to be booked, please retry later.",
+                    transferQueueConfig.getRetryAfterSeconds());
+        }
+        TransferSubmission submission;
+        try {
+            submission = transferSubmissionRepository.save(TransferSubmission.builder()
+                    .transferId(UUID.randomUUID().toString())
+                    .customerAccountNumber(fundTransferRequest.getCustomerAccountNumber())
+                    .transactingAccountNumber(fundTransferRequest.getTransactingAccountNumber())
+                    .transactingAccountBIC(fundTransferRequest.getTransactingAccountBIC())
+                    .amount(fundTransferRequest.getAmount())
+                    .currencyType(fundTransferRequest.getCurrencyType())
+                    .transactionType(fundTransferRequest.getTransactionType())
+                    .status(TransactionStatus.PENDING)
+                    .submittedAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            queueSlots.release();
+            throw e;
+        }
+        // Taken before a worker can pick the transfer up
+        TransferSubmissionStatus submitted = TransferSubmissionStatus.of(submission);
+        queue(submission.getTransferId());
+        return submitted;
+    }
+
+    @Override
+    public TransferSubmissionStatus getStatus(String transferId) {
+        return transferSubmissionRepository.findById(transferId)
+                .map(TransferSubmissionStatus::of)
+                .orElseThrow(() -> new TransferNotFoundException("Transfer " + transferId + " not found."));
+    }
+
+    @Override
+    @Scheduled(cron = "${transfer.async.purge-cron}")
+    public int purgeCompleted() {
+        int purged = transferSubmissionRepository.deleteCompletedBefore(LocalDateTime.now().minusHours(transferQueueConfig.getRetentionHours()));
+        logger.info("Purged {} completed transfer submissions", purged);
+        return purged;
+    }
+
+    @Override
+    public void start() {
+        try {
+            resumePending();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Whatever is still queued stays PENDING and is resumed on the next start
+        workers.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Queues the submissions still pending, or claimed, from before the last shutdown. Runs before
+     * the web server accepts new submissions, so nothing is queued twice, and waits for queue room
+     * rather than turning them away.
+     */
+    void resumePending() throws InterruptedException {
+        int released = transferSubmissionRepository.releaseClaims();
+        if (released > 0) {
+            logger.info("Released {} transfer submissions claimed when the last run stopped", released);
+        }
+        List<String> pending = transferSubmissionRepository.findIdsByStatus(TransactionStatus.PENDING);
+        if (pending.isEmpty()) {
+            return;
+        }
+        logger.info("Resuming {} pending transfer submissions", pending.size());
+        for (String transferId : pending) {
+            queueSlots.acquire();
+            queue(transferId);
+        }
+    }
+
+    // The caller holds a queue slot, released once the transfer is processed
+    private void queue(String transferId) {
+        try {
+            workers.execute(() -> {
+                try {
+                    process(transferId);
+                } finally {
+                    queueSlots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            queueSlots.release();
+            throw e;
+        }
+    }
+
+    // The submission is claimed first, so a transfer queued twice is booked by one worker only. The
+    // success is recorded in the booking's transaction, so a submission still pending or claimed after
+    // a crash was not booked and is safe to book on resume. A failed booking left nothing to roll back with.
+    void process(String transferId) {
+        if (transferSubmissionRepository.claim(transferId) != 1) {
+            return;
+        }
+        TransferSubmission submission = transferSubmissionRepository.findById(transferId).orElse(null);
+        if (submission == null) {
+            return;
+        }
+        String failureReason;
+        try {
+            transactionService.createFundTransferTransaction(FundTransferRequest.builder()
+                    .customerAccountNumber(submission.getCustomerAccountNumber())
+                    .transactingAccountNumber(submission.getTransactingAccountNumber())
+                    .transactingAccountBIC(submission.getTransactingAccountBIC())
+                    .amount(submission.getAmount())
+                    .currencyType(submission.getCurrencyType())
+                    .transactionType(submission.getTransactionType())
+                    .build(),
+                    () -> completeInBooking(transferId));
+            return;
+        } catch (BookingPendingException e) {
+            // Stays claimed, the success is recorded once the ledger applies the booking
+            logger.warn("Transfer {} is still being booked", transferId);
+            return;
+        } catch (RuntimeException e) {
+            logger.info("Transfer {} failed: {}", transferId, e.getMessage());
+            failureReason = truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        try {
+            transferSubmissionRepository.complete(transferId, TransactionStatus.FAILED, failureReason, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            logger.error("Could not record outcome {} of transfer {}", TransactionStatus.FAILED, transferId, e);
+        }
+    }
+
+    // Throws unless this worker's claim is completed, rolling the booking back with it
+    private void completeInBooking(String transferId) {
+        if (transferSubmissionRepository.complete(transferId, TransactionStatus.SUCCESS, null, LocalDateTime.now()) != 1) {
+            throw new IllegalStateException("Transfer " + transferId + " is no longer claimed for booking");
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= TransferSubmission.MAX_FAILURE_REASON_LENGTH
+                ? message
+                : message.substring(0, TransferSubmission.MAX_FAILURE_REASON_LENGTH);
+    }
+}
@@ -0,0 +1,121 @@
+package com.finadem.archive;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import com.finadem.response.TransactionView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTransactionArchiveTest {
+    private static final YearMonth MONTH = YearMonth.of(2023, 3);
+
+    @TempDir
+    private Path archiveDirectory;
+
+    private TransactionView row(long transactionId, String iban, LocalDateTime timestamp) {
+        return new TransactionView(transactionId, iban, transactionId % 2 == 0 ? null : "DE99",
+                new BigDecimal("12.345").add(BigDecimal.valueOf(transactionId)), TransactionType.DEPOSIT, TransactionStatus.SUCCESS,
+                TransactionSource.ATM, transactionId % 3 == 0 ? null : "Remarks " + transactionId, CurrencyEnum.EUR, timestamp);
+    }
+
+    // Several accounts with enough rows each to span more than one block
+    private List<TransactionView> monthOfRows() {
+        List<TransactionView> rows = new ArrayList<>();
+        long id = 1;
+        for (String iban : List.of("DE01", "DE02", "DE03")) {
+            for (int i = 0; i < ArchiveSegment.BLOCK_ROWS; i++) {
+                rows.add(row(id++, iban, MONTH.atDay(1).atStartOfDay().plusMinutes(i * 60L).plusNanos(123_456_000)));
+            }
+        }
+        rows.sort(Comparator.comparing(TransactionView::iban).thenComparing(TransactionArchive.OLDEST_FIRST));
+        return rows;
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void read_ShouldReturnArchivedRowsOfAccountInRange_Exactly() {
+        List<TransactionView> rows = monthOfRows();
+        FileTransactionArchive archive = new FileTransactionArchive(archiveDirectory);
+        archive.archive(MONTH, rows);
+
+        LocalDateTime from = MONTH.atDay(3).atStartOfDay();
+        LocalDateTime to = MONTH.atDay(5).atStartOfDay();
+        List<TransactionView> expected = rows.stream()
+                .filter(row -> row.iban().equals("DE02") && !row.timestamp().isBefore(from) && !row.timestamp().isAfter(to))
+                .toList();
+
+        assertEquals(expected, archive.read("DE02", from, to));
+        assertEquals(ArchiveSegment.BLOCK_ROWS, archive.read("DE03", MONTH.atDay(1).atStartOfDay(), MONTH.atEndOfMonth().atTime(23, 59)).size());
+        assertTrue(archive.read("DE00", from, to).isEmpty());
+        assertTrue(archive.read("DE02", from.minusMonths(2), to.minusMonths(2)).isEmpty());
+        assertEquals(MONTH.plusMonths(1).atDay(1).atStartOfDay(), archive.getArchivedBefore());
+    }
+
+    @Test
+    void open_ShouldLoadSegments_AndDropUnfinishedOnes() throws IOException {
+        new FileTransactionArchive(archiveDirectory).archive(MONTH, monthOfRows());
+        Files.writeString(archiveDirectory.resolve(MONTH.plusMonths(1) + "-000001.seg.tmp"), "torn");
+
+        FileTransactionArchive reopened = new FileTransactionArchive(archiveDirectory);
+
+        assertEquals(1, files().size());
+        assertEquals(MONTH.plusMonths(1).atDay(1).atStartOfDay(), reopened.getArchivedBefore());
+        assertEquals(ArchiveSegment.BLOCK_ROWS, reopened.read("DE01", MONTH.atDay(1).atStartOfDay(), MONTH.atEndOfMonth().atTime(23, 59)).size());
+    }
+
+    @Test
+    void read_ShouldReturnRowsArchivedTwiceOnce() {
+        FileTransactionArchive archive = new FileTransactionArchive(archiveDirectory);
+        TransactionView first = row(1, "DE01", MONTH.atDay(2).atTime(9, 0));
+        TransactionView second = row(2, "DE01", MONTH.atDay(2).atTime(10, 0));
+        archive.archive(MONTH, List.of(first));
+        archive.archive(MONTH, List.of(first, second));
+
+        assertEquals(List.of(first, second), archive.read("DE01", MONTH.atDay(1).atStartOfDay(), MONTH.atDay(3).atStartOfDay()));
+    }
+
+    @Test
+    void readBefore_ShouldReturnNewestRowsBeforePosition_AcrossMonths() {
+        FileTransactionArchive archive = new FileTransactionArchive(archiveDirectory);
+        TransactionView march = row(1, "DE01", MONTH.atDay(2).atTime(9, 0));
+        TransactionView aprilFirst = row(2, "DE01", MONTH.plusMonths(1).atDay(3).atTime(9, 0));
+        TransactionView aprilSecond = row(3, "DE01", MONTH.plusMonths(1).atDay(3).atTime(9, 0));
+        archive.archive(MONTH, List.of(march));
+        archive.archive(MONTH.plusMonths(1), List.of(aprilFirst, aprilSecond));
+
+        assertEquals(List.of(aprilSecond, aprilFirst, march), archive.readBefore("DE01", LocalDateTime.MAX, Long.MAX_VALUE, 5));
+        assertEquals(List.of(aprilFirst, march), archive.readBefore("DE01", aprilSecond.timestamp(), aprilSecond.transactionId(), 5));
+        assertEquals(List.of(aprilSecond), archive.readBefore("DE01", LocalDateTime.MAX, Long.MAX_VALUE, 1));
+        assertTrue(archive.readBefore("DE02", LocalDateTime.MAX, Long.MAX_VALUE, 5).isEmpty());
+    }
+
+    @Test
+    void merge_ShouldKeepTableRowAndOrder_WhenRowIsInBothTiers() {
+        TransactionView archived = row(1, "DE01", MONTH.atDay(2).atTime(9, 0));
+        TransactionView inBoth = row(2, "DE01", MONTH.atDay(2).atTime(10, 0));
+        TransactionView hot = row(3, "DE01", MONTH.atDay(4).atTime(10, 0));
+
+        assertEquals(List.of(hot, inBoth, archived),
+                TransactionArchive.merge(List.of(hot, inBoth), List.of(archived, inBoth), TransactionArchive.OLDEST_FIRST.reversed()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.finadem.archive;
+
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.AccountStatement;
+import com.finadem.response.TransactionSummary;
+import com.finadem.response.TransactionView;
+import com.finadem.service.AccountService;
+import com.finadem.service.AccountStatementService;
+import com.finadem.service.TransactionAggregateService;
+import com.finadem.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionArchiverTest {
+    // Older than the rows any other test books, so archiving leaves their data alone
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2002, 1, 1, 0, 0);
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("transaction.archive.directory", () -> archiveDirectory.toString());
+    }
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountStatementService accountStatementService;
+
+    @Autowired
+    private TransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private String createAccount() {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Archive")
+                .currentBalance(new BigDecimal("0.00"))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    private Transaction save(String iban, String amount, LocalDateTime timestamp) {
+        return transactionRepository.save(Transaction.builder()
+                .iban(iban)
+                .transactingAccount(iban)
+                .amount(new BigDecimal(amount))
+                .type(TransactionType.DEPOSIT)
+                .source(TransactionSource.BANK_COUNTER)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR)
+                .timestamp(timestamp)
+                .build());
+    }
+
+    @Test
+    void archiveBefore_ShouldMoveOldRowsOutOfTable_AndKeepThemReadable() {
+        String iban = createAccount();
+        save(iban, "10.00", LocalDateTime.of(2001, 11, 20, 9, 0));
+        save(iban, "20.00", LocalDateTime.of(2001, 12, 24, 9, 0));
+        save(iban, "30.00", LocalDateTime.of(2002, 1, 15, 9, 0));
+        transactionAggregateService.rebuildAggregates();
+
+        assertTrue(transactionArchiver.archiveBefore(CUTOFF) >= 2);
+
+        LocalDateTime start = LocalDateTime.of(2001, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2002, 12, 31, 23, 59, 59);
+        assertEquals(1, transactionRepository.getTransactionHistoryBetween(iban, start, end).size());
+        List<TransactionView> history = transactionService.getTransactionHistoryBetween(iban, start, end);
+        assertEquals(List.of("30.00", "20.00", "10.00"), history.stream().map(row -> row.amount().toPlainString()).toList());
+
+        AccountStatement statement = accountStatementService.getStatement(iban, LocalDate.of(2001, 12, 1), LocalDate.of(2002, 1, 31));
+        assertEquals(2, statement.getTransactions().size());
+        assertEquals(LocalDateTime.of(2001, 12, 24, 9, 0), statement.getTransactions().getFirst().timestamp());
+
+        // Archived months keep their aggregates through a rebuild
+        transactionAggregateService.rebuildAggregates();
+        List<TransactionSummary> summary = transactionAggregateService.getSummary(iban, YearMonth.of(2001, 11), YearMonth.of(2002, 1));
+        assertEquals(3, summary.size());
+    }
+}
@@ -0,0 +1,363 @@
+package com.finadem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finadem.FinaDemApp;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.service.AccountService;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mixed load against deposit, withdraw, transfer, history and balance. Boots the
+ * application on its own in-memory database with a local stub of the currency API, seeds
+ * accounts with transaction history and sends requests at a fixed rate from a pool of clients.
+ * A configurable share of requests are writes and a configurable share of the traffic goes to
+ * a few hot accounts. Latency is measured from the time a request was due to be sent, so a
+ * backlog on the client side counts against the endpoint rather than being hidden. Logs p50,
+ * p99 and p99.9 per endpoint and writes them to a JSON report.
+ * Run with {@code mvn test -Pbenchmark -Dtest=EndpointLoadBenchmarkTest}, settings as
+ * {@code -Dload.<setting>=<value>}, see {@link LoadSettings}. Application properties such as
+ * {@code -Dtransaction.engine=ledger} are passed through to the application.
+ */
+@Tag("benchmark")
+class EndpointLoadBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointLoadBenchmarkTest.class);
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+    private static final String AMOUNT = "1.00";
+    private static final String BIC = "DEUTDEFF";
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final int SEED_CHUNK_SIZE = 1_000;
+    // Every fourth deposit is in USD, so the exchange rate lookup is on the path
+    private static final int FOREIGN_DEPOSIT_EVERY = 4;
+    private static final String STUB_RATES = "{\"data\":{\"USD\":1.0842,\"GBP\":0.8571}}";
+
+    enum Endpoint {
+        DEPOSIT, WITHDRAW, TRANSFER, HISTORY, BALANCE
+    }
+
+    private static final List<Endpoint> WRITES = List.of(Endpoint.DEPOSIT, Endpoint.WITHDRAW, Endpoint.TRANSFER);
+    private static final List<Endpoint> READS = List.of(Endpoint.HISTORY, Endpoint.BALANCE);
+
+    /**
+     * @param accounts accounts seeded before the run
+     * @param transactionsPerAccount history rows seeded per account
+     * @param rps requests sent per second over all endpoints
+     * @param warmUpSeconds seconds of load before measuring
+     * @param durationSeconds seconds of measured load
+     * @param clients client threads sending requests, bounds the requests in flight
+     * @param writeRatio share of requests that are deposits, withdrawals or transfers
+     * @param hotAccountShare share of the accounts that are hot
+     * @param hotTrafficShare share of the requests that go to a hot account
+     * @param report path of the JSON report
+     */
+    record LoadSettings(int accounts, int transactionsPerAccount, int rps, int warmUpSeconds, int durationSeconds,
+                        int clients, double writeRatio, double hotAccountShare, double hotTrafficShare, String report) {
+
+        static LoadSettings fromSystemProperties() {
+            return new LoadSettings(
+                    Integer.getInteger("load.accounts", 1_000),
+                    Integer.getInteger("load.transactionsPerAccount", 20),
+                    Integer.getInteger("load.rps", 1_000),
+                    Integer.getInteger("load.warmUpSeconds", 10),
+                    Integer.getInteger("load.durationSeconds", 30),
+                    Integer.getInteger("load.clients", 200),
+                    Double.parseDouble(System.getProperty("load.writeRatio", "0.3")),
+                    Double.parseDouble(System.getProperty("load.hotAccountShare", "0.01")),
+                    Double.parseDouble(System.getProperty("load.hotTrafficShare", "0.5")),
+                    System.getProperty("load.report", "target/load-report.json"));
+        }
+    }
+
+    record EndpointReport(long requests, long errors, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    record LoadReport(LoadSettings settings, double achievedRps, Map<Endpoint, EndpointReport> endpoints) {
+    }
+
+    private final LoadSettings settings = LoadSettings.fromSystemProperties();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @TempDir
+    private Path dataDirectory;
+
+    @Test
+    void endpoints_ShouldServeMixedLoad_WithoutErrors() throws Exception {
+        HttpServer currencyApi = startCurrencyApiStub();
+        try (ConfigurableApplicationContext context = start(currencyApi)) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+            List<String> ibans = seed(context);
+
+            drive(baseUrl, ibans, settings.warmUpSeconds(), null, null);
+            Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+            Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : Endpoint.values()) {
+                latencies.put(endpoint, new ConcurrentHistogram(3));
+                errors.put(endpoint, new LongAdder());
+            }
+            long nanos = drive(baseUrl, ibans, settings.durationSeconds(), latencies, errors);
+
+            LoadReport report = report(latencies, errors, nanos);
+            Path reportPath = Path.of(settings.report());
+            if (reportPath.getParent() != null) {
+                Files.createDirectories(reportPath.getParent());
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+            logger.info("{} requests/s of {} targeted, report in {}", String.format("%.0f", report.achievedRps()),
+                    settings.rps(), reportPath.toAbsolutePath());
+            report.endpoints().forEach((endpoint, result) -> logger.info("{}: {} requests, {} errors, p50 {} ms, p99 {} ms, p99.9 {} ms, max {} ms",
+                    endpoint, result.requests(), result.errors(), result.p50Millis(), result.p99Millis(), result.p999Millis(), result.maxMillis()));
+            for (Endpoint endpoint : Endpoint.values()) {
+                assertTrue(report.endpoints().get(endpoint).requests() > 0, endpoint + " was not exercised");
+                assertEquals(0, report.endpoints().get(endpoint).errors(), endpoint + " returned errors");
+            }
+        } finally {
+            currencyApi.stop(0);
+        }
+    }
+
+    // Answers the rate requests of the application in place of the currency API
+    private HttpServer startCurrencyApiStub() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/latest", exchange -> {
+            byte[] body = STUB_RATES.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    // Arguments rank above application.properties; anything else comes from system properties
+    private ConfigurableApplicationContext start(HttpServer currencyApi) {
+        return new SpringApplicationBuilder(FinaDemApp.class).run(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_ON_EXIT=FALSE",
+                "--currency.api.url=http://localhost:" + currencyApi.getAddress().getPort() + "/v1/latest",
+                "--currency.rates.snapshot-path=" + dataDirectory.resolve("exchange-rates.snapshot"),
+                "--ledger.journal-path=" + dataDirectory.resolve("ledger.journal"),
+                "--transaction.journal.directory=" + dataDirectory.resolve("journal"),
+                "--transaction.archive.directory=" + dataDirectory.resolve("archive"));
+    }
+
+    private List<String> seed(ConfigurableApplicationContext context) {
+        AccountService accountService = context.getBean(AccountService.class);
+        TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<String> ibans = new ArrayList<>(settings.accounts());
+        for (int i = 0; i < settings.accounts(); i++) {
+            // Customer ids are set, generated ones may collide at this scale
+            ibans.add(accountService.createNewAccount(AccountDataRequest.builder()
+                    .customerId(100_000_000L + i)
+                    .accountHolderName("Load " + i)
+                    .currentBalance(OPENING_BALANCE)
+                    .currency(CurrencyEnum.EUR)
+                    .build()));
+        }
+        LocalDateTime start = LocalDateTime.now().minusDays(90);
+        List<Transaction> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < settings.accounts() * settings.transactionsPerAccount(); i++) {
+            chunk.add(Transaction.builder()
+                    .iban(ibans.get(i % ibans.size()))
+                    .transactingAccount(ibans.get((i + 1) % ibans.size()))
+                    .amount(new BigDecimal(AMOUNT))
+                    .type(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL)
+                    .source(TransactionSource.ATM)
+                    .status(TransactionStatus.SUCCESS)
+                    .currency(CurrencyEnum.EUR)
+                    .transactionRemarks("Seeded " + i)
+                    .timestamp(start.plusSeconds(i))
+                    .build());
+            if (chunk.size() == SEED_CHUNK_SIZE) {
+                saveChunk(transactionTemplate, transactionRepository, chunk);
+            }
+        }
+        saveChunk(transactionTemplate, transactionRepository, chunk);
+        logger.info("Seeded {} accounts with {} transactions each", settings.accounts(), settings.transactionsPerAccount());
+        return ibans;
+    }
+
+    private static void saveChunk(TransactionTemplate transactionTemplate, TransactionRepository transactionRepository, List<Transaction> chunk) {
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(chunk));
+        chunk.clear();
+    }
+
+    /**
+     * Sends requests at settings.rps for the given seconds, each one on the first free client once
+     * it is due. Records latencies and errors when given maps to record them in.
+     *
+     * @return nanoseconds until the last response
+     */
+    private long drive(String baseUrl, List<String> ibans, int seconds,
+                       Map<Endpoint, Histogram> latencies, Map<Endpoint, LongAdder> errors) {
+        long interval = 1_000_000_000L / settings.rps();
+        long requests = (long) seconds * settings.rps();
+        AtomicLong next = new AtomicLong();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(settings.clients())) {
+            for (int i = 0; i < settings.clients(); i++) {
+                clients.execute(() -> {
+                    for (long request = next.getAndIncrement(); request < requests; request = next.getAndIncrement()) {
+                        long due = start + request * interval;
+                        LockSupport.parkNanos(due - System.nanoTime());
+                        Endpoint endpoint = pickEndpoint();
+                        boolean ok = send(toRequest(baseUrl, endpoint, ibans, request));
+                        if (latencies != null) {
+                            latencies.get(endpoint).recordValue((System.nanoTime() - due) / 1_000);
+                            if (!ok) {
+                                errors.get(endpoint).increment();
+                            }
+                        }
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private boolean send(HttpRequest request) {
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                logger.debug("{} {}: {}", request.uri(), response.statusCode(), response.body());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.debug("{} failed", request.uri(), e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Endpoint pickEndpoint() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Endpoint> endpoints = random.nextDouble() < settings.writeRatio() ? WRITES : READS;
+        return endpoints.get(random.nextInt(endpoints.size()));
+    }
+
+    // The first hotAccountShare of the accounts receive hotTrafficShare of the requests
+    private String pickAccount(List<String> ibans) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int hotAccounts = Math.max(1, (int) (ibans.size() * settings.hotAccountShare()));
+        return random.nextDouble() < settings.hotTrafficShare()
+                ? ibans.get(random.nextInt(hotAccounts))
+                : ibans.get(random.nextInt(ibans.size()));
+    }
+
+    private HttpRequest toRequest(String baseUrl, Endpoint endpoint, List<String> ibans, long request) {
+        String iban = pickAccount(ibans);
+        return switch (endpoint) {
+            case DEPOSIT -> post(baseUrl + "/transactions/deposit", DepositWithdrawalRequest.builder()
+                    .iban(iban)
+                    .amount(AMOUNT)
+                    .currency(request % FOREIGN_DEPOSIT_EVERY == 0 ? CurrencyEnum.USD : CurrencyEnum.EUR)
+                    .transactionType(TransactionType.DEPOSIT)
+                    .transactionSource(TransactionSource.ATM)
+                    .build());
+            case WITHDRAW -> post(baseUrl + "/transactions/withdraw", DepositWithdrawalRequest.builder()
+                    .iban(iban)
+                    .amount(AMOUNT)
+                    .currency(CurrencyEnum.EUR)
+                    .transactionType(TransactionType.WITHDRAWAL)
+                    .transactionSource(TransactionSource.ATM)
+                    .build());
+            case TRANSFER -> {
+                String counterparty = pickAccount(ibans);
+                while (counterparty.equals(iban)) {
+                    counterparty = ibans.get(ThreadLocalRandom.current().nextInt(ibans.size()));
+                }
+                yield post(baseUrl + "/transactions/transfer", FundTransferRequest.builder()
+                        .customerAccountNumber(iban)
+                        .transactingAccountNumber(counterparty)
+                        .transactingAccountBIC(BIC)
+                        .amount(AMOUNT)
+                        .currencyType(CurrencyEnum.EUR)
+                        .transactionType(TransactionType.DEBIT)
+                        .build());
+            }
+            case HISTORY -> HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/history/" + iban + "?limit=" + HISTORY_PAGE_SIZE))
+                    .GET().build();
+            case BALANCE -> HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/balance/" + iban)).GET().build();
+        };
+    }
+
+    private HttpRequest post(String url, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private LoadReport report(Map<Endpoint, Histogram> latencies, Map<Endpoint, LongAdder> errors, long nanos) {
+        Map<Endpoint, EndpointReport> endpoints = new LinkedHashMap<>();
+        long requests = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            requests += histogram.getTotalCount();
+            endpoints.put(endpoint, new EndpointReport(histogram.getTotalCount(), errors.get(endpoint).sum(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+        }
+        return new LoadReport(settings, requests * 1_000_000_000.0 / nanos, endpoints);
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 100.0) / 10.0;
+    }
+}
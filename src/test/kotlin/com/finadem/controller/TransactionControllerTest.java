@@ -1,13 +1,29 @@
 package com.finadem.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.finadem.entity.Transaction;
 import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.ExportFormat;
 import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
 import com.finadem.enums.TransactionType;
 import com.finadem.request.DepositWithdrawalRequest;
 import com.finadem.request.FundTransferRequest;
+import com.finadem.response.AccountStatement;
+import com.finadem.response.FundTransferResult;
+import com.finadem.response.TransactionSummary;
+import com.finadem.response.TransactionView;
+import com.finadem.response.TransferSubmissionStatus;
+import com.finadem.service.AccountStatementService;
+import com.finadem.service.FundTransferBatchService;
+import com.finadem.service.IdempotencyService;
+import com.finadem.service.TransactionAggregateService;
+import com.finadem.service.TransactionExportService;
 import com.finadem.service.TransactionService;
+import com.finadem.service.TransferSubmissionService;
+import com.finadem.exception.exceptions.TransferBatchTooLargeException;
+import com.finadem.exception.exceptions.TransferNotFoundException;
+import com.finadem.exception.exceptions.BookingPendingException;
+import com.finadem.exception.exceptions.TransferQueueFullException;
 import com.finadem.helper.DateHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,14 +32,23 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -40,6 +65,24 @@ public class TransactionControllerTest {
     @MockitoBean
     private TransactionService transactionService;
 
+    @MockitoBean
+    private FundTransferBatchService fundTransferBatchService;
+
+    @MockitoBean
+    private TransactionExportService transactionExportService;
+
+    @MockitoBean
+    private AccountStatementService accountStatementService;
+
+    @MockitoBean
+    private TransactionAggregateService transactionAggregateService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @MockitoBean
+    private TransferSubmissionService transferSubmissionService;
+
     @MockitoBean
     private DateHelper dateHelper;
 
@@ -77,6 +120,45 @@ public class TransactionControllerTest {
                 .andExpect(content().string("Withdrawal successful."));
     }
 
+    @Test
+    void testWithdrawal_ShouldReturnAccepted_WhenBookingIsStillPending() throws Exception {
+        DepositWithdrawalRequest withdrawalRequest = new DepositWithdrawalRequest();
+        withdrawalRequest.setIban("DE89370400440532013000");
+        withdrawalRequest.setCurrency(CurrencyEnum.EUR);
+        withdrawalRequest.setAmount("200.00");
+        withdrawalRequest.setTransactionType(TransactionType.WITHDRAWAL);
+        withdrawalRequest.setTransactionSource(TransactionSource.BANK_COUNTER);
+        doThrow(new BookingPendingException("The booking has not been applied yet."))
+                .when(transactionService).createWithdrawalTransaction(any(), any());
+
+        mockMvc.perform(post("/api/v1/transactions/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawalRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(content().string("The booking has not been applied yet."));
+    }
+
+    @Test
+    void testWithdrawal_ShouldReturnRecordedResponse_WhenIdempotencyKeyIsReplayed() throws Exception {
+        DepositWithdrawalRequest withdrawalRequest = new DepositWithdrawalRequest();
+        withdrawalRequest.setIban("DE89370400440532013000");
+        withdrawalRequest.setCurrency(CurrencyEnum.EUR);
+        withdrawalRequest.setAmount("200.00");
+        withdrawalRequest.setTransactionType(TransactionType.WITHDRAWAL);
+        withdrawalRequest.setTransactionSource(TransactionSource.BANK_COUNTER);
+        when(idempotencyService.execute(eq("retry-1"), eq("withdraw"), eq(withdrawalRequest), any(), any()))
+                .thenReturn(new IdempotencyService.IdempotentResult("Withdrawal successful.", true));
+
+        mockMvc.perform(post("/api/v1/transactions/withdraw")
+                        .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawalRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andExpect(content().string("Withdrawal successful."));
+        verify(transactionService, never()).createWithdrawalTransaction(any());
+    }
+
     @Test
     void testTransferFunds_Success() throws Exception {
         FundTransferRequest transferRequest = new FundTransferRequest();
@@ -94,14 +176,101 @@ public class TransactionControllerTest {
                 .andExpect(content().string("Fund Transfer successful."));
     }
 
+    @Test
+    void testSubmitTransfer_ShouldAcceptTransfer_AndPointToItsStatus() throws Exception {
+        FundTransferRequest transferRequest = new FundTransferRequest();
+        transferRequest.setTransactingAccountNumber("AD1099077818KGI8OKLCMG4Y");
+        transferRequest.setTransactingAccountBIC("DEUTDEFF");
+        transferRequest.setCustomerAccountNumber("DE89370400440532013000");
+        transferRequest.setAmount("1000.00");
+        transferRequest.setCurrencyType(CurrencyEnum.EUR);
+        transferRequest.setTransactionType(TransactionType.DEBIT);
+        when(transferSubmissionService.submit(transferRequest)).thenReturn(new TransferSubmissionStatus("transfer-1",
+                TransactionStatus.PENDING, null, LocalDateTime.of(2024, 3, 5, 10, 15), null));
+
+        mockMvc.perform(post("/api/v1/transactions/transfer/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/transactions/transfer/async/transfer-1"))
+                .andExpect(jsonPath("$.transferId").value("transfer-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+        verify(transactionService, never()).createFundTransferTransaction(any());
+    }
+
+    @Test
+    void testSubmitTransfer_ShouldReturnServiceUnavailable_WhenQueueIsFull() throws Exception {
+        FundTransferRequest transferRequest = new FundTransferRequest();
+        transferRequest.setTransactingAccountNumber("AD1099077818KGI8OKLCMG4Y");
+        transferRequest.setTransactingAccountBIC("DEUTDEFF");
+        transferRequest.setCustomerAccountNumber("DE89370400440532013000");
+        transferRequest.setAmount("1000.00");
+        transferRequest.setCurrencyType(CurrencyEnum.EUR);
+        transferRequest.setTransactionType(TransactionType.DEBIT);
+        when(transferSubmissionService.submit(any())).thenThrow(new TransferQueueFullException("Queue full", 3));
+
+        mockMvc.perform(post("/api/v1/transactions/transfer/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @Test
+    void testGetTransferStatus_ShouldReportOutcome_OrNotFound() throws Exception {
+        when(transferSubmissionService.getStatus("transfer-1")).thenReturn(new TransferSubmissionStatus("transfer-1",
+                TransactionStatus.FAILED, "Insufficient balance", LocalDateTime.of(2024, 3, 5, 10, 15), LocalDateTime.of(2024, 3, 5, 10, 16)));
+        when(transferSubmissionService.getStatus("unknown")).thenThrow(new TransferNotFoundException("Transfer unknown not found."));
+
+        mockMvc.perform(get("/api/v1/transactions/transfer/async/transfer-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.failureReason").value("Insufficient balance"));
+        mockMvc.perform(get("/api/v1/transactions/transfer/async/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testTransferFundsInBatch_ShouldReturnResultPerTransfer() throws Exception {
+        FundTransferRequest transferRequest = new FundTransferRequest();
+        transferRequest.setTransactingAccountNumber("AD1099077818KGI8OKLCMG4Y");
+        transferRequest.setTransactingAccountBIC("DEUTDEFF");
+        transferRequest.setCustomerAccountNumber("DE89370400440532013000");
+        transferRequest.setAmount("1000.00");
+        transferRequest.setCurrencyType(CurrencyEnum.EUR);
+        transferRequest.setTransactionType(TransactionType.DEBIT);
+
+        when(fundTransferBatchService.createFundTransfers(anyList())).thenReturn(List.of(
+                FundTransferResult.succeeded(0),
+                FundTransferResult.failed(1, "Insufficient balance")));
+
+        mockMvc.perform(post("/api/v1/transactions/transfer/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(transferRequest, transferRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("SUCCESS"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[1].message").value("Insufficient balance"));
+    }
+
+    @Test
+    void testTransferFundsInBatch_ShouldReturnBadRequest_WhenBatchIsTooLarge() throws Exception {
+        when(fundTransferBatchService.createFundTransfers(anyList()))
+                .thenThrow(new TransferBatchTooLargeException("A batch can hold at most 10000 transfers, got 10001."));
+
+        mockMvc.perform(post("/api/v1/transactions/transfer/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("A batch can hold at most 10000 transfers, got 10001."));
+    }
+
     @Test
     void testGetLastNTransactions_Success() throws Exception {
-        List<Transaction> transactions = new ArrayList<>();
-        Transaction transaction = new Transaction();
-        transaction.setIban("DE89370400440532013000");
-        transaction.setAmount(new BigDecimal("500.00"));
-        transaction.setType(TransactionType.DEPOSIT);
-        transactions.add(transaction);
+        List<TransactionView> transactions = new ArrayList<>();
+        transactions.add(new TransactionView(1L, "DE89370400440532013000", "DE89370400440532013000", new BigDecimal("500.00"),
+                TransactionType.DEPOSIT, TransactionStatus.SUCCESS, TransactionSource.ATM, null, CurrencyEnum.EUR, LocalDateTime.now()));
 
         when(transactionService.getLastNTransactionHistory(anyString(), anyInt())).thenReturn(transactions);
 
@@ -114,12 +283,9 @@ public class TransactionControllerTest {
 
     @Test
     void testGetTransactionHistoryBetween_Success() throws Exception {
-        List<Transaction> transactions = new ArrayList<>();
-        Transaction transaction = new Transaction();
-        transaction.setIban("DE89370400440532013000");
-        transaction.setAmount(new BigDecimal("1000.00"));
-        transaction.setType(TransactionType.CREDIT);
-        transactions.add(transaction);
+        List<TransactionView> transactions = new ArrayList<>();
+        transactions.add(new TransactionView(2L, "DE89370400440532013000", "GB29NWBK60161331926819", new BigDecimal("1000.00"),
+                TransactionType.CREDIT, TransactionStatus.SUCCESS, TransactionSource.ONLINE_FUND_TRANSFER, null, CurrencyEnum.EUR, LocalDateTime.now()));
 
         when(dateHelper.validateAndParseDate(anyString(), any())).thenReturn(LocalDateTime.now().toLocalDate());
         when(transactionService.getTransactionHistoryBetween(anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
@@ -131,4 +297,67 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$[0].amount").value(1000.00))
                 .andExpect(jsonPath("$[0].type").value("CREDIT"));
     }
+
+    @Test
+    void testExportTransactionHistory_ShouldStreamCsv() throws Exception {
+        when(dateHelper.validateAndParseDate(anyString(), any())).thenReturn(LocalDateTime.now().toLocalDate());
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(4).write("transactionId,iban\n1,DE89370400440532013000\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(transactionExportService).exportTransactionHistory(eq("DE89370400440532013000"), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(ExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/transactions/history/DE89370400440532013000/01-01-2025/31-12-2025/export")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(content().string("transactionId,iban\n1,DE89370400440532013000\n"));
+    }
+
+    @Test
+    void testGetStatement_Success() throws Exception {
+        LocalDate day = LocalDate.of(2025, 1, 15);
+        List<TransactionView> transactions = List.of(new TransactionView(3L, "DE89370400440532013000", "DE89370400440532013000",
+                new BigDecimal("40.00"), TransactionType.WITHDRAWAL, TransactionStatus.SUCCESS, TransactionSource.ATM, null,
+                CurrencyEnum.EUR, day.atTime(9, 30)));
+
+        when(dateHelper.validateAndParseDate(anyString(), any())).thenReturn(day);
+        when(accountStatementService.getStatement("DE89370400440532013000", day, day))
+                .thenReturn(new AccountStatement("DE89370400440532013000", day, day,
+                        new BigDecimal("100.00"), new BigDecimal("60.00"), transactions));
+
+        mockMvc.perform(get("/api/v1/transactions/statement/DE89370400440532013000/15-01-2025/15-01-2025"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.openingBalance").value(100.00))
+                .andExpect(jsonPath("$.closingBalance").value(60.00))
+                .andExpect(jsonPath("$.transactions[0].type").value("WITHDRAWAL"));
+    }
+
+    @Test
+    void testGetTransactionSummary_Success() throws Exception {
+        YearMonth month = YearMonth.of(2025, 1);
+        when(dateHelper.validateAndParseMonth("01-2025")).thenReturn(month);
+        when(transactionAggregateService.getSummary("DE89370400440532013000", month, month))
+                .thenReturn(List.of(new TransactionSummary(month, TransactionType.DEPOSIT, TransactionSource.ATM, 3, new BigDecimal("150.00"))));
+
+        mockMvc.perform(get("/api/v1/transactions/summary/DE89370400440532013000/01-2025/01-2025"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].month").value("2025-01"))
+                .andExpect(jsonPath("$[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$[0].transactionCount").value(3))
+                .andExpect(jsonPath("$[0].totalAmount").value(150.00));
+    }
+
+    @Test
+    void testRebuildTransactionSummaries_Success() throws Exception {
+        when(transactionAggregateService.rebuildAggregates()).thenReturn(42);
+
+        mockMvc.perform(post("/api/v1/transactions/summary/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Rebuilt transaction summaries of 42 accounts."));
+    }
 }
@@ -0,0 +1,176 @@
+package com.finadem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finadem.FinaDemApp;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.repository.AccountRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.service.AccountService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the request path on Tomcat's platform threads with the virtual-threads profile under
+ * more concurrent clients than Tomcat has threads. Every request first blocks on a simulated
+ * downstream call, standing in for the currency API, then reads a balance or books a deposit
+ * through JDBC. Logs requests per second, p50 and p99 latency and any pinning reported per mode.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadBenchmarkTest.class);
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 25;
+    private static final int ACCOUNTS = 40;
+    // Every fourth request is a deposit, the others read a balance
+    private static final int DEPOSIT_EVERY = 4;
+    private static final long DOWNSTREAM_MILLIS = 50;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void virtualThreads_ShouldKeepMoreRequestsInFlight_ThanTomcatThreadPool() throws Exception {
+        // The first round only warms up the code path
+        for (boolean virtualThreads : new boolean[]{false, false, true}) {
+            try (ConfigurableApplicationContext context = start(virtualThreads)) {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+                List<String> ibans = new ArrayList<>();
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    ibans.add(createAccount(context.getBean(AccountService.class)));
+                }
+
+                long start = System.nanoTime();
+                long[] latencies = run(baseUrl, ibans);
+                long nanos = System.nanoTime() - start;
+
+                Arrays.sort(latencies);
+                logger.info("{} threads: {} requests/s, p50 {} ms, p99 {} ms, max {} ms, {}",
+                        virtualThreads ? "virtual" : "platform", latencies.length * 1_000_000_000L / nanos,
+                        millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                        millis(latencies[latencies.length - 1]), pinning(context.getBean(MeterRegistry.class)));
+                AccountRepository accountRepository = context.getBean(AccountRepository.class);
+                BigDecimal booked = AMOUNT.multiply(BigDecimal.valueOf((long) CLIENTS * REQUESTS_PER_CLIENT / DEPOSIT_EVERY));
+                BigDecimal total = BigDecimal.ZERO;
+                for (String iban : ibans) {
+                    total = total.add(accountRepository.findCurrentBalanceByAccountNumber(iban));
+                }
+                assertEquals(0, OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)).add(booked).compareTo(total));
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(boolean virtualThreads) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FinaDemApp.class)
+                .properties("server.port=0",
+                        "spring.jpa.show-sql=false",
+                        // The same pool in both modes, so only the threading differs
+                        "spring.datasource.hikari.maximum-pool-size=20")
+                .initializers(context -> ((GenericApplicationContext) context).registerBean("simulatedDownstreamCall", Filter.class,
+                        () -> (request, response, chain) -> {
+                            try {
+                                Thread.sleep(DOWNSTREAM_MILLIS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new ServletException(e);
+                            }
+                            chain.doFilter(request, response);
+                        }));
+        if (virtualThreads) {
+            builder.profiles("virtual-threads");
+        }
+        return builder.run();
+    }
+
+    // Each client sends its requests one after the other and records their latencies. Clients run on
+    // platform threads, virtual ones would compete with the server's for the same carrier threads
+    private long[] run(String baseUrl, List<String> ibans) throws Exception {
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                workers.add(clients.submit(() -> {
+                    String iban = ibans.get(client % ibans.size());
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        HttpRequest request = (client * REQUESTS_PER_CLIENT + j) % DEPOSIT_EVERY == 0
+                                ? HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/deposit"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(deposit(iban))))
+                                .build()
+                                : HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/balance/" + iban)).GET().build();
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[client * REQUESTS_PER_CLIENT + j] = System.nanoTime() - sent;
+                        assertEquals(200, response.statusCode(), response.body());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    private static String pinning(MeterRegistry meterRegistry) {
+        List<String> sites = meterRegistry.find("jvm.threads.virtual.pinned").timers().stream()
+                .map(timer -> timer.getId().getTag("site") + " x" + timer.count())
+                .toList();
+        return sites.isEmpty() ? "no pinning reported" : "pinned at " + sites;
+    }
+
+    private DepositWithdrawalRequest deposit(String iban) {
+        return DepositWithdrawalRequest.builder()
+                .iban(iban)
+                .amount(AMOUNT.toPlainString())
+                .currency(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEPOSIT)
+                .transactionSource(TransactionSource.ATM)
+                .build();
+    }
+
+    private String createAccount(AccountService accountService) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Benchmark")
+                .currentBalance(OPENING_BALANCE)
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+}
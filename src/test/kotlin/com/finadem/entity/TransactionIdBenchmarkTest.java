@@ -0,0 +1,87 @@
+package com.finadem.entity;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares Transaction inserts per second with the former IDENTITY id and the pooled sequence id,
+ * for several JDBC batch sizes. Each combination gets its own Hibernate bootstrap on a fresh H2 database.
+ * The rates are only logged; the assertions check that every row was inserted with the intended id mapping.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class TransactionIdBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIdBenchmarkTest.class);
+    private static final int ROWS = 50_000;
+    private static final int ROWS_PER_COMMIT = 1_000;
+
+    @Test
+    void identityAndPooledSequence_ShouldInsertAllRows_AtEachBatchSize() {
+        // The first round only warms up both mappings
+        for (int batchSize : new int[]{50, 1, 10, 50, 200}) {
+            long identity = rowsPerSecond(true, batchSize);
+            long pooled = rowsPerSecond(false, batchSize);
+            logger.info("jdbc batch size {}: identity {} rows/s, pooled sequence {} rows/s", batchSize, identity, pooled);
+        }
+    }
+
+    private long rowsPerSecond(boolean identity, int batchSize) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:id-benchmark-" + identity + "-" + batchSize)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .build();
+        MetadataSources sources = new MetadataSources(registry).addAnnotatedClass(Transaction.class);
+        if (identity) {
+            sources.addResource("benchmark/transaction-identity-orm.xml");
+        }
+        try (SessionFactory sessionFactory = sources.buildMetadata().buildSessionFactory()) {
+            long start = System.nanoTime();
+            for (int committed = 0; committed < ROWS; committed += ROWS_PER_COMMIT) {
+                sessionFactory.inTransaction(session -> {
+                    for (int i = 0; i < ROWS_PER_COMMIT; i++) {
+                        session.persist(transaction());
+                    }
+                });
+            }
+            long nanos = System.nanoTime() - start;
+            assertEquals(ROWS, sessionFactory.fromSession(session ->
+                    session.createQuery("SELECT COUNT(t) FROM Transaction t", Long.class).getSingleResult()).intValue());
+            // Guards against the IDENTITY override silently not being applied
+            assertEquals(identity ? 0 : 1, sessionFactory.fromSession(session -> session.createNativeQuery(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TRANSACTION_SEQ'", Long.class)
+                    .getSingleResult()).intValue());
+            return ROWS * 1_000_000_000L / nanos;
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    private Transaction transaction() {
+        return Transaction.builder()
+                .iban("DE89370400440532013000")
+                .transactingAccount("GB29NWBK60161331926819")
+                .amount(new BigDecimal("10.00"))
+                .type(TransactionType.DEBIT)
+                .source(TransactionSource.ONLINE_FUND_TRANSFER)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR)
+                .build();
+    }
+}
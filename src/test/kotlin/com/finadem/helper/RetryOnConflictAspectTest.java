@@ -0,0 +1,105 @@
+package com.finadem.helper;
+
+import com.finadem.configurations.TransactionRetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class RetryOnConflictAspectTest {
+
+    @Mock
+    private TransactionRetryConfig transactionRetryConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConflictingWriter writer;
+
+    static class ConflictingWriter {
+        final AtomicInteger calls = new AtomicInteger();
+        int conflictsBeforeSuccess;
+
+        @RetryOnConflict
+        public int write() {
+            if (calls.incrementAndGet() <= conflictsBeforeSuccess) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return calls.get();
+        }
+
+        public int writeWithoutRetry() {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Account", 1L);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionRetryConfig.getMaxAttempts()).thenReturn(3);
+        when(transactionRetryConfig.getInitialBackoffMillis()).thenReturn(1L);
+        when(transactionRetryConfig.getMaxBackoffMillis()).thenReturn(5L);
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new ConflictingWriter();
+    }
+
+    private ConflictingWriter proxy() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(writer);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new RetryOnConflictAspect(transactionRetryConfig, meterRegistry));
+        return proxyFactory.getProxy();
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).tag("method", "write").counter().count();
+    }
+
+    @Test
+    void retryOnConflict_ShouldRetryUntilSuccess_WhenConflictsAreTransient() {
+        writer.conflictsBeforeSuccess = 2;
+
+        assertEquals(3, proxy().write());
+        assertEquals(3, count("transaction.retry.attempts"));
+        assertEquals(2, count("transaction.retry.conflicts"));
+        assertTrue(meterRegistry.find("transaction.retry.exhausted").counters().isEmpty());
+    }
+
+    @Test
+    void retryOnConflict_ShouldRethrow_WhenAttemptsAreExhausted() {
+        writer.conflictsBeforeSuccess = Integer.MAX_VALUE;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy().write());
+        assertEquals(3, writer.calls.get());
+        assertEquals(3, count("transaction.retry.conflicts"));
+        assertEquals(1, count("transaction.retry.exhausted"));
+    }
+
+    @Test
+    void retryOnConflict_ShouldRethrowConflict_AndKeepInterrupt_WhenInterruptedDuringBackoff() {
+        writer.conflictsBeforeSuccess = Integer.MAX_VALUE;
+        ConflictingWriter proxy = proxy();
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(ObjectOptimisticLockingFailureException.class, proxy::write);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(1, writer.calls.get());
+    }
+
+    @Test
+    void retryOnConflict_ShouldNotApply_WhenMethodIsNotAnnotated() {
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy().writeWithoutRetry());
+        assertEquals(1, writer.calls.get());
+    }
+}
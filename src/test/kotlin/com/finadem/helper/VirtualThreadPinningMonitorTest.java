@@ -0,0 +1,67 @@
+package com.finadem.helper;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+    private static final long BLOCKED_MILLIS = 50;
+
+    private final Object monitor = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private void sleepHoldingMonitor() {
+        synchronized (monitor) {
+            try {
+                Thread.sleep(BLOCKED_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void sleepHoldingLock() {
+        lock.lock();
+        try {
+            Thread.sleep(BLOCKED_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Timer> pinned(SimpleMeterRegistry meterRegistry) {
+        return List.copyOf(meterRegistry.find(VirtualThreadPinningMonitor.PINNED_METRIC).timers());
+    }
+
+    @Test
+    void monitor_ShouldReportBlockingInsideSynchronized_ButNotUnderLock() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor pinningMonitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10), 8);
+        pinningMonitor.start();
+        try {
+            // Events are delivered in batches about once a second
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (pinned(meterRegistry).isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.ofVirtual().start(this::sleepHoldingLock).join();
+                Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+                Thread.sleep(200);
+            }
+
+            List<Timer> pinned = pinned(meterRegistry);
+            assertEquals(1, pinned.size());
+            assertTrue(pinned.getFirst().getId().getTag("site").startsWith(VirtualThreadPinningMonitorTest.class.getName() + ".sleepHoldingMonitor"));
+            assertTrue(pinned.getFirst().max(TimeUnit.MILLISECONDS) >= BLOCKED_MILLIS);
+        } finally {
+            pinningMonitor.stop();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.finadem.journal;
+
+import com.finadem.configurations.TransactionJournalConfig;
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.helper.AccountHelper;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.JournalReplayRepository;
+import com.finadem.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JournalReplayerTest {
+
+    @TempDir
+    private Path journalDirectory;
+
+    @Autowired
+    private JournalEntryApplier journalEntryApplier;
+
+    @Autowired
+    private JournalReplayRepository journalReplayRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountHelper accountHelper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionJournalConfig transactionJournalConfig;
+
+    private MappedTransactionJournal openJournal() {
+        return new MappedTransactionJournal(journalDirectory, 1024 * 1024, FsyncPolicy.NEVER, 0);
+    }
+
+    private JournalEntry entry(String iban, String delta, TransactionType type, boolean accountOpened) {
+        return JournalEntry.builder()
+                .bookedAt(Instant.parse("2024-03-05T10:15:30Z"))
+                .iban(iban)
+                .transactingAccount(iban)
+                .delta(new BigDecimal(delta))
+                .currency(CurrencyEnum.EUR)
+                .type(type)
+                .source(TransactionSource.BANK_COUNTER)
+                .accountOpened(accountOpened)
+                .build();
+    }
+
+    @Test
+    void record_ShouldAppendAfterCommit_AndNothingOnRollback() throws IOException {
+        try (MappedTransactionJournal journal = openJournal()) {
+            JournalRecorder journalRecorder = new JournalRecorder(Optional.of(journal));
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            Transaction transaction = Transaction.builder()
+                    .iban("DE01").transactingAccount("DE02").amount(new BigDecimal("7.50"))
+                    .type(TransactionType.DEBIT).source(TransactionSource.ONLINE_FUND_TRANSFER)
+                    .currency(CurrencyEnum.EUR).timestamp(LocalDateTime.now())
+                    .build();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                journalRecorder.recordTransfers(List.of(transaction));
+                assertEquals(0, journal.getLastSequence());
+            });
+            transactionTemplate.executeWithoutResult(status -> {
+                journalRecorder.record(transaction, new BigDecimal("-7.50"));
+                status.setRollbackOnly();
+            });
+
+            assertEquals(1, journal.getLastSequence());
+            journal.replay(0, entry -> assertEquals(new BigDecimal("-7.50"), entry.getDelta()));
+        }
+    }
+
+    @Test
+    void replay_ShouldRebuildAccountsFromJournal_Once() throws IOException {
+        String opened = accountHelper.generateIBAN();
+        String missing = accountHelper.generateIBAN();
+        try (MappedTransactionJournal journal = openJournal()) {
+            journal.append(entry(opened, "100.00", TransactionType.DEPOSIT, true));
+            journal.append(entry(opened, "-30.00", TransactionType.WITHDRAWAL, false));
+            journal.append(entry(missing, "5.00", TransactionType.CREDIT, false));
+            journal.append(entry(opened, "2.50", TransactionType.CREDIT, false));
+            JournalReplayer journalReplayer = new JournalReplayer(journal, journalEntryApplier, journalReplayRepository,
+                    entityManager, transactionManager, transactionJournalConfig);
+            journalReplayRepository.deleteAll();
+
+            assertEquals(3, journalReplayer.replay());
+            assertEquals(0, journalReplayer.replay());
+
+            assertEquals(0, new BigDecimal("72.50").compareTo(accountRepository.findCurrentBalanceByAccountNumber(opened)));
+            assertNull(accountRepository.findCurrentBalanceByAccountNumber(missing));
+            assertEquals(3, transactionRepository.getTransactionHistoryBetween(opened,
+                    LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(2024, 3, 31, 0, 0)).size());
+        } finally {
+            journalReplayRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void replay_ShouldOpenJournaledAccounts_BeforeApplyingBookings() throws IOException {
+        String iban = accountHelper.generateIBAN();
+        try (MappedTransactionJournal journal = openJournal()) {
+            // Journaled ahead of the opening, as a concurrent request may
+            journal.append(entry(iban, "-40.00", TransactionType.WITHDRAWAL, false));
+            journal.append(JournalEntry.builder()
+                    .kind(JournalEntry.Kind.ACCOUNT_OPENED)
+                    .bookedAt(Instant.parse("2024-03-01T09:00:00Z"))
+                    .iban(iban)
+                    .delta(new BigDecimal("100.00"))
+                    .currency(CurrencyEnum.EUR)
+                    .customerId(987_654_321L)
+                    .accountHolderName("Journaled")
+                    .taxId("TAX987")
+                    .accountStatus(AccountStatus.ACTIVE)
+                    .build());
+            JournalReplayer journalReplayer = new JournalReplayer(journal, journalEntryApplier, journalReplayRepository,
+                    entityManager, transactionManager, transactionJournalConfig);
+            journalReplayRepository.deleteAll();
+
+            assertEquals(1, journalReplayer.replay());
+
+            Account account = accountRepository.findAccountInformationByAccountNumber(iban);
+            assertEquals(0, new BigDecimal("60.00").compareTo(account.getCurrentBalance()));
+            assertEquals(987_654_321L, account.getCustomerId());
+            assertEquals("TAX987", account.getTaxId());
+            assertEquals(AccountStatus.ACTIVE, account.getStatus());
+        } finally {
+            journalReplayRepository.deleteAll();
+        }
+    }
+}
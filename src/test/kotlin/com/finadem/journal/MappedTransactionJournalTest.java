@@ -0,0 +1,109 @@
+package com.finadem.journal;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.FsyncPolicy;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTransactionJournalTest {
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    private Path journalDirectory;
+
+    private JournalEntry entry(String iban, String delta) {
+        return JournalEntry.builder()
+                .bookedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                .iban(iban)
+                .transactingAccount(iban)
+                .delta(new BigDecimal(delta))
+                .currency(CurrencyEnum.EUR)
+                .type(TransactionType.DEPOSIT)
+                .source(TransactionSource.ATM)
+                .remarks("Remarks of a typical length for a booking")
+                .build();
+    }
+
+    private MappedTransactionJournal open(FsyncPolicy fsyncPolicy) {
+        return new MappedTransactionJournal(journalDirectory, SEGMENT_BYTES, fsyncPolicy, 10);
+    }
+
+    private List<JournalEntry> readAll(TransactionJournal journal, long afterSequence) {
+        List<JournalEntry> entries = new ArrayList<>();
+        journal.replay(afterSequence, entries::add);
+        return entries;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void append_ShouldRollSegments_AndReplayEntriesInOrder() throws IOException {
+        List<JournalEntry> appended = new ArrayList<>();
+        try (MappedTransactionJournal journal = open(FsyncPolicy.NEVER)) {
+            for (int i = 1; i <= 2_000; i++) {
+                appended.add(journal.append(entry("DE" + (i % 7), i + ".25")));
+            }
+
+            assertEquals(2_000, journal.getLastSequence());
+            assertTrue(segments().size() > 1);
+            assertEquals(appended, readAll(journal, 0));
+            assertEquals(appended.subList(1_500, 2_000), readAll(journal, 1_500));
+        }
+    }
+
+    @Test
+    void open_ShouldContinueSequence_InLastSegment() throws IOException {
+        try (MappedTransactionJournal journal = open(FsyncPolicy.ALWAYS)) {
+            for (int i = 1; i <= 1_000; i++) {
+                journal.append(entry("DE1", "1.00"));
+            }
+        }
+        try (MappedTransactionJournal reopened = open(FsyncPolicy.INTERVAL)) {
+            assertEquals(1_000, reopened.getLastSequence());
+            assertEquals(1_001, reopened.append(entry("DE1", "2.00")).getSequence());
+            assertEquals(1_001, readAll(reopened, 0).size());
+        }
+    }
+
+    @Test
+    void open_ShouldZeroIncompleteRecord_WhenLastWriteWasTorn() throws IOException {
+        try (MappedTransactionJournal journal = open(FsyncPolicy.ALWAYS)) {
+            journal.append(entry("DE1", "1.00"));
+        }
+        Path segment = segments().getLast();
+        // A header and the start of a payload that never got its remaining bytes
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, 0);
+            int torn = Integer.BYTES * 2 + length.flip().getInt();
+            channel.write(ByteBuffer.allocate(12).putInt(100).putInt(12345).putInt(-1).flip(), torn);
+        }
+        try (MappedTransactionJournal reopened = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(1, reopened.getLastSequence());
+            assertEquals(2, reopened.append(entry("DE1", "5.00").withAccountOpened(true)).getSequence());
+            List<JournalEntry> entries = readAll(reopened, 0);
+            assertEquals(2, entries.size());
+            assertTrue(entries.getLast().isAccountOpened());
+        }
+    }
+}
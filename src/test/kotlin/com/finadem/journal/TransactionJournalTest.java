@@ -0,0 +1,110 @@
+package com.finadem.journal;
+
+import com.finadem.enums.AccountStatus;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.FsyncPolicy;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTransactionJournalTest {
+
+    @TempDir
+    private Path journalDirectory;
+
+    private JournalEntry entry(String iban, String delta) {
+        return JournalEntry.builder()
+                .bookedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                .iban(iban)
+                .transactingAccount(iban)
+                .delta(new BigDecimal(delta))
+                .currency(CurrencyEnum.EUR)
+                .type(TransactionType.DEPOSIT)
+                .source(TransactionSource.ATM)
+                .build();
+    }
+
+    private List<JournalEntry> readAll(TransactionJournal journal, long afterSequence) {
+        List<JournalEntry> entries = new ArrayList<>();
+        journal.replay(afterSequence, entries::add);
+        return entries;
+    }
+
+    @Test
+    void append_ShouldAssignIncreasingSequences_AndReplayEntriesExactly() throws IOException {
+        try (FileTransactionJournal journal = new FileTransactionJournal(journalDirectory.resolve("ledger.journal"), FsyncPolicy.ALWAYS, 0)) {
+            JournalEntry first = journal.append(entry("DE1", "100.00").withAccountOpened(true));
+            JournalEntry second = journal.append(entry("DE2", "-0.125").withRemarks("Remarks").withTransferId("t-1"));
+
+            assertEquals(1, first.getSequence());
+            assertEquals(2, second.getSequence());
+            assertEquals(List.of(first, second), readAll(journal, 0));
+            assertEquals(List.of(second), readAll(journal, 1));
+        }
+    }
+
+    @Test
+    void append_ShouldReplayAccountOpening_WithAccountData() throws IOException {
+        try (FileTransactionJournal journal = new FileTransactionJournal(journalDirectory.resolve("ledger.journal"), FsyncPolicy.ALWAYS, 0)) {
+            JournalEntry opening = journal.append(JournalEntry.builder()
+                    .kind(JournalEntry.Kind.ACCOUNT_OPENED)
+                    .bookedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                    .iban("DE1")
+                    .delta(new BigDecimal("250.00"))
+                    .currency(CurrencyEnum.EUR)
+                    .customerId(123_456_789L)
+                    .accountHolderName("Holder")
+                    .accountStatus(AccountStatus.ACTIVE)
+                    .build());
+            JournalEntry booking = journal.append(entry("DE1", "1.00"));
+
+            assertEquals(List.of(opening, booking), readAll(journal, 0));
+            assertTrue(readAll(journal, 0).getFirst().isAccountOpening());
+            assertFalse(readAll(journal, 0).getLast().isAccountOpening());
+        }
+    }
+
+    @Test
+    void open_ShouldContinueSequence_WhenJournalExists() throws IOException {
+        Path path = journalDirectory.resolve("ledger.journal");
+        try (FileTransactionJournal journal = new FileTransactionJournal(path, FsyncPolicy.ALWAYS, 0)) {
+            journal.append(entry("DE1", "1.00"));
+            journal.append(entry("DE1", "2.00"));
+        }
+        try (FileTransactionJournal reopened = new FileTransactionJournal(path, FsyncPolicy.ALWAYS, 0)) {
+            assertEquals(2, reopened.getLastSequence());
+            assertEquals(3, reopened.append(entry("DE1", "3.00")).getSequence());
+            assertEquals(3, readAll(reopened, 0).size());
+        }
+    }
+
+    @Test
+    void open_ShouldTruncateIncompleteRecord_WhenLastWriteWasTorn() throws IOException {
+        Path path = journalDirectory.resolve("ledger.journal");
+        try (FileTransactionJournal journal = new FileTransactionJournal(path, FsyncPolicy.ALWAYS, 0)) {
+            journal.append(entry("DE1", "1.00"));
+            journal.append(entry("DE1", "2.00"));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (FileTransactionJournal reopened = new FileTransactionJournal(path, FsyncPolicy.ALWAYS, 0)) {
+            assertEquals(1, reopened.getLastSequence());
+            assertEquals(2, reopened.append(entry("DE1", "5.00")).getSequence());
+            List<JournalEntry> entries = readAll(reopened, 0);
+            assertEquals(new BigDecimal("5.00"), entries.getLast().getDelta());
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.finadem.ledger;
+
+import com.finadem.configurations.LedgerConfig;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.journal.JournalEntry;
+import com.finadem.journal.TransactionJournal;
+import com.finadem.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LedgerEngineTest {
+
+    @Mock
+    private LedgerProjector ledgerProjector;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerConfig ledgerConfig;
+
+    private final Map<String, BigDecimal> databaseBalances = new ConcurrentHashMap<>();
+
+    private final InMemoryJournal journal = new InMemoryJournal();
+
+    private LedgerEngine ledgerEngine;
+
+    static class InMemoryJournal implements TransactionJournal {
+        final List<JournalEntry> entries = new CopyOnWriteArrayList<>();
+
+        @Override
+        public synchronized JournalEntry append(JournalEntry entry) {
+            JournalEntry sequenced = entry.withSequence(entries.size() + 1);
+            entries.add(sequenced);
+            return sequenced;
+        }
+
+        @Override
+        public void replay(long afterSequence, java.util.function.Consumer<JournalEntry> consumer) {
+            entries.stream().filter(entry -> entry.getSequence() > afterSequence).forEach(consumer);
+        }
+
+        @Override
+        public long getLastSequence() {
+            return entries.size();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(ledgerConfig.getShards()).thenReturn(4);
+        when(ledgerConfig.getProjectionBatchSize()).thenReturn(100);
+        when(accountRepository.findCurrentBalanceByAccountNumber(anyString()))
+                .thenAnswer(invocation -> databaseBalances.get(invocation.<String>getArgument(0)));
+        databaseBalances.put("DE01", new BigDecimal("100.00"));
+        databaseBalances.put("DE02", new BigDecimal("50.00"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ledgerEngine != null) {
+            ledgerEngine.stop();
+        }
+    }
+
+    private LedgerEngine startEngine() {
+        ledgerEngine = new LedgerEngine(journal, ledgerProjector, accountRepository, ledgerConfig, new SimpleMeterRegistry());
+        ledgerEngine.start();
+        return ledgerEngine;
+    }
+
+    private JournalEntry booking(String iban, String delta) {
+        return JournalEntry.builder()
+                .bookedAt(Instant.now())
+                .iban(iban)
+                .transactingAccount(iban)
+                .delta(new BigDecimal(delta))
+                .currency(CurrencyEnum.EUR)
+                .type(new BigDecimal(delta).signum() < 0 ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT)
+                .source(TransactionSource.ATM)
+                .build();
+    }
+
+    private JournalEntry leg(String iban, String counterparty, String delta) {
+        return booking(iban, delta).withTransactingAccount(counterparty).withSource(TransactionSource.ONLINE_FUND_TRANSFER);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    @Test
+    void post_ShouldApplyDeltaToLoadedBalance_AndJournalIt() throws Exception {
+        LedgerEngine engine = startEngine();
+
+        assertEquals(new BigDecimal("70.00"), await(engine.post(booking("DE01", "-30.00"))));
+        assertEquals(new BigDecimal("80.00"), await(engine.post(booking("DE01", "10.00"))));
+
+        assertEquals(2, journal.entries.size());
+        verify(accountRepository, times(1)).findCurrentBalanceByAccountNumber("DE01");
+        verify(ledgerProjector, times(2)).enqueue(any(JournalEntry.class));
+    }
+
+    @Test
+    void post_ShouldRejectBookingAndKeepBalance_WhenBalanceWouldGoNegative() throws Exception {
+        LedgerEngine engine = startEngine();
+
+        assertThrows(InsufficientBalanceException.class, () -> await(engine.post(booking("DE01", "-100.01"))));
+
+        assertEquals(BigDecimal.ZERO.setScale(2), await(engine.post(booking("DE01", "-100.00"))));
+        assertEquals(1, journal.entries.size());
+    }
+
+    @Test
+    void post_ShouldReturnNull_WhenAccountDoesNotExist() throws Exception {
+        assertNull(await(startEngine().post(booking("DE99", "-1.00"))));
+        assertTrue(journal.entries.isEmpty());
+    }
+
+    @Test
+    void deposit_ShouldOpenAccount_WhenAccountDoesNotExist() throws Exception {
+        LedgerEngine engine = startEngine();
+
+        assertEquals(new BigDecimal("25.00"), await(engine.deposit(booking("DE99", "25.00"))));
+        assertEquals(new BigDecimal("30.00"), await(engine.deposit(booking("DE99", "5.00"))));
+
+        assertTrue(journal.entries.get(0).isAccountOpened());
+        assertFalse(journal.entries.get(1).isAccountOpened());
+    }
+
+    @Test
+    void transfer_ShouldJournalDebitLegBeforeCreditLeg_WithSharedTransferId() throws Exception {
+        LedgerEngine engine = startEngine();
+
+        await(engine.transfer(leg("DE02", "DE01", "40.00"), leg("DE01", "DE02", "-40.00")));
+
+        assertEquals(2, journal.entries.size());
+        JournalEntry debit = journal.entries.get(0);
+        JournalEntry credit = journal.entries.get(1);
+        assertEquals("DE01", debit.getIban());
+        assertEquals("DE02", credit.getIban());
+        assertNotNull(debit.getTransferId());
+        assertEquals(debit.getTransferId(), credit.getTransferId());
+        assertEquals(new BigDecimal("60.00"), await(engine.post(booking("DE01", "0.00"))));
+        assertEquals(new BigDecimal("90.00"), await(engine.post(booking("DE02", "0.00"))));
+    }
+
+    @Test
+    void transfer_ShouldBookOnlyCustomerLeg_WhenCounterpartyIsExternal() throws Exception {
+        LedgerEngine engine = startEngine();
+
+        await(engine.transfer(leg("DE01", "EXTERNAL", "-10.00"), leg("EXTERNAL", "DE01", "10.00")));
+
+        assertEquals(1, journal.entries.size());
+        assertNull(journal.entries.getFirst().getTransferId());
+    }
+
+    @Test
+    void transfer_ShouldNotDebitCounterparty_WhenCustomerDoesNotExist() {
+        LedgerEngine engine = startEngine();
+
+        assertThrows(IbanNotFoundException.class,
+                () -> await(engine.transfer(leg("DE99", "DE01", "10.00"), leg("DE01", "DE99", "-10.00"))));
+        assertTrue(journal.entries.isEmpty());
+    }
+
+    @Test
+    void transfer_ShouldConserveTotalBalance_WhenCrossingTransfersRunConcurrently() throws Exception {
+        List<String> ibans = List.of("DE11", "DE12", "DE13", "DE14", "DE15", "DE16", "DE17", "DE18");
+        ibans.forEach(iban -> databaseBalances.put(iban, new BigDecimal("1000.00")));
+        LedgerEngine engine = startEngine();
+        List<CompletableFuture<Void>> transfers = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            String from = ibans.get(random.nextInt(ibans.size()));
+            String to = ibans.get(random.nextInt(ibans.size()));
+            if (!from.equals(to)) {
+                transfers.add(engine.transfer(leg(from, to, "-7.00"), leg(to, from, "7.00")).exceptionally(e -> null));
+            }
+        }
+        CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (String iban : ibans) {
+            BigDecimal balance = await(engine.post(booking(iban, "0.00")));
+            assertTrue(balance.signum() >= 0);
+            total = total.add(balance);
+        }
+        assertEquals(new BigDecimal("8000.00"), total);
+    }
+
+    @Test
+    void start_ShouldProjectUnseenEntries_AndCompleteInterruptedTransfer() {
+        journal.append(booking("DE01", "5.00"));
+        journal.append(leg("DE01", "DE02", "-20.00").withTransferId("t-1"));
+        when(ledgerProjector.loadProjectedSequence()).thenReturn(1L);
+
+        startEngine();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<JournalEntry>> projected = ArgumentCaptor.forClass(List.class);
+        verify(ledgerProjector, atLeastOnce()).project(projected.capture());
+        List<JournalEntry> replayed = projected.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(2, replayed.size());
+        assertEquals(2, replayed.get(0).getSequence());
+        JournalEntry completion = replayed.get(1);
+        assertEquals("DE02", completion.getIban());
+        assertEquals(new BigDecimal("20.00"), completion.getDelta());
+        assertEquals("t-1", completion.getTransferId());
+        assertEquals(3, journal.getLastSequence());
+        verify(ledgerProjector, never()).enqueue(any(JournalEntry.class));
+        verify(ledgerProjector, atLeastOnce()).project(anyList());
+    }
+}
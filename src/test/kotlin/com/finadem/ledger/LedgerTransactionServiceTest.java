@@ -0,0 +1,169 @@
+package com.finadem.ledger;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.helper.AccountHelper;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.service.AccountService;
+import com.finadem.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "transaction.engine=ledger")
+class LedgerTransactionServiceTest {
+
+    @DynamicPropertySource
+    static void ledgerProperties(DynamicPropertyRegistry registry) throws IOException {
+        String journalPath = Files.createTempDirectory("ledger").resolve("ledger.journal").toString();
+        registry.add("ledger.journal-path", () -> journalPath);
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountHelper accountHelper;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private String createAccount(String balance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Ledger Test")
+                .currentBalance(new BigDecimal(balance))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    private DepositWithdrawalRequest withdrawal(String iban, String amount) {
+        return DepositWithdrawalRequest.builder()
+                .iban(iban)
+                .amount(amount)
+                .currency(CurrencyEnum.EUR)
+                .transactionType(TransactionType.WITHDRAWAL)
+                .transactionSource(TransactionSource.ATM)
+                .build();
+    }
+
+    private FundTransferRequest transfer(String customerIban, String counterpartyIban, String amount) {
+        return FundTransferRequest.builder()
+                .customerAccountNumber(customerIban)
+                .transactingAccountNumber(counterpartyIban)
+                .amount(amount)
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEBIT)
+                .build();
+    }
+
+    private BigDecimal projectedBalance(String iban) throws InterruptedException {
+        assertTrue(ledgerEngine.awaitProjection(10_000));
+        return accountRepository.findCurrentBalanceByAccountNumber(iban);
+    }
+
+    @Test
+    void bookings_ShouldBeProjectedIntoAccountAndTransactionTables() throws Exception {
+        String sender = createAccount("100.00");
+        String recipient = createAccount("0.00");
+
+        transactionService.createDepositTransaction(sender, CurrencyEnum.EUR, new BigDecimal("50.00"), "Deposit", TransactionType.DEPOSIT, TransactionSource.ATM);
+        transactionService.createWithdrawalTransaction(withdrawal(sender, "30.00"));
+        transactionService.createFundTransferTransaction(transfer(sender, recipient, "20.00"));
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(projectedBalance(sender)));
+        assertEquals(0, new BigDecimal("20.00").compareTo(projectedBalance(recipient)));
+        assertEquals(3, transactionRepository.getTransactionByAccountNumber(sender, Pageable.unpaged()).getTotalElements());
+        assertEquals(1, transactionRepository.getTransactionByAccountNumber(recipient, Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void createDepositTransaction_ShouldOpenAccount_WhenIbanIsUnknown() throws Exception {
+        String iban = accountHelper.generateIBAN();
+
+        transactionService.createDepositTransaction(iban, CurrencyEnum.EUR, new BigDecimal("12.50"), "Deposit", TransactionType.DEPOSIT, TransactionSource.ATM);
+
+        assertEquals(0, new BigDecimal("12.50").compareTo(projectedBalance(iban)));
+    }
+
+    @Test
+    void createWithdrawalTransaction_ShouldThrowException_WhenBalanceIsInsufficientOrAccountMissing() throws Exception {
+        String iban = createAccount("10.00");
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.createWithdrawalTransaction(withdrawal(iban, "10.01")));
+        assertThrows(IbanNotFoundException.class, () -> transactionService.createWithdrawalTransaction(withdrawal(accountHelper.generateIBAN(), "1.00")));
+        assertEquals(0, new BigDecimal("10.00").compareTo(projectedBalance(iban)));
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldConserveTotal_WhenTransfersCrossShards() throws Exception {
+        List<String> ibans = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ibans.add(createAccount("500.00"));
+        }
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        String from = ibans.get((offset + j) % ibans.size());
+                        String to = ibans.get((offset + 2 * j + 1) % ibans.size());
+                        if (!from.equals(to)) {
+                            try {
+                                transactionService.createFundTransferTransaction(transfer(from, to, "3.00"));
+                            } catch (InsufficientBalanceException ignored) {
+                                // Expected once an account runs dry
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (String iban : ibans) {
+            BigDecimal balance = projectedBalance(iban);
+            assertTrue(balance.signum() >= 0);
+            total = total.add(balance);
+        }
+        assertEquals(0, new BigDecimal("3000.00").compareTo(total));
+    }
+}
@@ -0,0 +1,312 @@
+package com.finadem.repository;
+
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query against a seeded dataset, captures the SQL Hibernate generates for it
+ * and fails if H2's EXPLAIN shows a full scan, meaning a table or index read without a search condition.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.finadem.repository.RepositoryQueryPlanTest$StatementRecorder")
+class RepositoryQueryPlanTest {
+    private static final int ACCOUNTS = 1_000;
+    private static final int ACCOUNTS_WITH_HISTORY = 50;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 400;
+    private static final int CHECKPOINTS_PER_ACCOUNT = 60;
+    private static final String IBAN_PREFIX = "DEPLAN";
+    private static final String HISTORY_INDEX = "IDX_TRANSACTION_IBAN_TIMESTAMP_ID";
+    // "/* PUBLIC.TRANSACTION.tableScan */" or an index comment without ": condition"
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* [\\w.]+ \\*/");
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    private TransactionAggregateRepository transactionAggregateRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransferSubmissionRepository transferSubmissionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Seeded once for all tests of the class, the database outlives the test instances
+    private static boolean seeded;
+
+    /**
+     * Records the statements Hibernate prepares on the test thread while recording is switched on.
+     */
+    public static class StatementRecorder implements StatementInspector {
+        private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> recorded = RECORDED.get();
+            if (recorded != null) {
+                recorded.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    private void seed() {
+        if (seeded) {
+            return;
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(Account.builder()
+                    .customerId(900_000_000_000L + i)
+                    .iban(iban(i))
+                    .accountHolderName("Plan " + i)
+                    .taxId("PLAN" + i)
+                    .currentBalance(new BigDecimal("100.00"))
+                    .build());
+        }
+        accountRepository.saveAll(accounts);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS_WITH_HISTORY; i++) {
+            for (int j = 0; j < TRANSACTIONS_PER_ACCOUNT; j++) {
+                transactions.add(Transaction.builder()
+                        .iban(iban(i))
+                        .transactingAccount(iban(i + 1))
+                        .amount(BigDecimal.ONE)
+                        .type(TransactionType.DEPOSIT)
+                        .source(TransactionSource.ATM)
+                        .status(TransactionStatus.SUCCESS)
+                        .currency(CurrencyEnum.EUR)
+                        .timestamp(START.plusHours(j))
+                        .build());
+            }
+            transactionRepository.saveAll(transactions);
+            transactions.clear();
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < ACCOUNTS_WITH_HISTORY; i++) {
+                for (int day = 0; day < CHECKPOINTS_PER_ACCOUNT; day++) {
+                    balanceCheckpointRepository.insertCheckpoint(iban(i), START.toLocalDate().plusDays(day), BigDecimal.TEN);
+                }
+            }
+        });
+        // Refreshes the row counts and selectivity the H2 planner works with
+        jdbcTemplate.execute("ANALYZE");
+        seeded = true;
+    }
+
+    private static String iban(int index) {
+        return IBAN_PREFIX + String.format("%016d", index);
+    }
+
+    /**
+     * Runs the call in a transaction that is rolled back and returns the SELECT, UPDATE and DELETE
+     * statements it issued.
+     */
+    private List<String> statementsOf(Runnable call) {
+        seed();
+        List<String> recorded = new ArrayList<>();
+        StatementRecorder.RECORDED.set(recorded);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                call.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            StatementRecorder.RECORDED.remove();
+        }
+        List<String> queries = recorded.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).matches("(?s)\\s*(select|update|delete)\\b.*"))
+                .toList();
+        assertFalse(queries.isEmpty(), "No statement was recorded");
+        return queries;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+
+    private List<String> assertNoFullScan(Runnable call) {
+        List<String> plans = statementsOf(call).stream().map(this::explain).toList();
+        for (String plan : plans) {
+            assertFalse(plan.contains("tableScan") || FULL_SCAN.matcher(plan).find(), () -> "Full scan in plan:\n" + plan);
+        }
+        return plans;
+    }
+
+    private void assertReadsHistoryIndex(List<String> plans, String... conditions) {
+        assertReadsIndex(plans, HISTORY_INDEX, conditions);
+    }
+
+    private void assertReadsIndex(List<String> plans, String indexName, String... conditions) {
+        for (String plan : plans) {
+            int index = plan.indexOf(indexName);
+            assertTrue(index >= 0, () -> indexName + " not used:\n" + plan);
+            // Only conditions inside the index comment narrow the range read, the rest are filters
+            String indexConditions = plan.substring(index, plan.indexOf("*/", index));
+            assertTrue(indexConditions.contains("IBAN = ") || indexConditions.contains("IBAN IN("),
+                    () -> indexName + " not sought by IBAN:\n" + plan);
+            for (String condition : conditions) {
+                assertTrue(indexConditions.contains(condition), () -> "Index condition " + condition + " missing:\n" + plan);
+            }
+        }
+    }
+
+    @Test
+    void getTransactionByAccountNumber_ShouldReadHistoryIndex_ForPageAndCount() {
+        List<String> plans = assertNoFullScan(() ->
+                transactionRepository.getTransactionByAccountNumber(iban(7), PageRequest.of(1, 20)));
+
+        assertEquals(2, plans.size());
+        assertReadsHistoryIndex(plans);
+    }
+
+    @Test
+    void findLatestTransactions_ShouldReadHistoryIndex() {
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                transactionRepository.findLatestTransactions(iban(7), Limit.of(20))));
+    }
+
+    @Test
+    void findTransactionsBefore_ShouldSeekHistoryIndexToCursor() {
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                        transactionRepository.findTransactionsBefore(iban(7), START.plusHours(200), 5_000L, Limit.of(20))),
+                "TIMESTAMP <= ");
+    }
+
+    @Test
+    void getTransactionHistoryBetween_ShouldReadHistoryIndexRange() {
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                        transactionRepository.getTransactionHistoryBetween(iban(7), START, START.plusDays(3))),
+                "TIMESTAMP >= ", "TIMESTAMP <= ");
+    }
+
+    @Test
+    void streamTransactionHistoryBetween_ShouldReadHistoryIndexRange() {
+        assertReadsHistoryIndex(assertNoFullScan(() -> {
+            try (Stream<Transaction> transactions =
+                         transactionRepository.streamTransactionHistoryBetween(iban(7), START, START.plusDays(3))) {
+                transactions.findFirst();
+            }
+        }), "TIMESTAMP >= ", "TIMESTAMP <= ");
+    }
+
+    @Test
+    void findTransactionsFromUntil_ShouldReadHistoryIndexRange() {
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                        transactionRepository.findTransactionsFromUntil(iban(7), START, START.plusDays(3))),
+                "TIMESTAMP >= ", "TIMESTAMP < ");
+    }
+
+    @Test
+    void balanceCheckpointQueries_ShouldSeekIbanAndDate() {
+        LocalDate day = START.toLocalDate().plusDays(30);
+        assertReadsIndex(assertNoFullScan(() -> balanceCheckpointRepository.addToClosingBalance(iban(7), day, BigDecimal.ONE)),
+                "PRIMARY_KEY", "BUSINESS_DATE = ");
+        assertReadsIndex(assertNoFullScan(() -> balanceCheckpointRepository.addToLaterClosingBalances(iban(7), day, BigDecimal.ONE)),
+                "PRIMARY_KEY", "BUSINESS_DATE > ");
+        assertReadsIndex(assertNoFullScan(() -> balanceCheckpointRepository.findClosingBalancesUpTo(iban(7), day, Limit.of(1))),
+                "PRIMARY_KEY", "BUSINESS_DATE <= ");
+    }
+
+    @Test
+    void aggregateByMonth_ShouldReadHistoryIndex_ForEveryAccountOfTheChunk() {
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                transactionRepository.aggregateByMonth(List.of(iban(3), iban(4), iban(5)), START)), "TIMESTAMP >= ");
+    }
+
+    @Test
+    void archiveQueries_ShouldSeekHistoryIndexBelowCutoff() {
+        List<String> ibans = List.of(iban(3), iban(4), iban(5));
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                transactionRepository.findTransactionsToArchive(ibans, START.plusDays(5))), "TIMESTAMP < ");
+        assertReadsHistoryIndex(assertNoFullScan(() ->
+                transactionRepository.deleteArchivedTransactions(ibans, START.plusDays(5))), "TIMESTAMP < ");
+    }
+
+    @Test
+    void transactionAggregateQueries_ShouldSeekPrimaryKey() {
+        LocalDate month = START.toLocalDate();
+        assertReadsIndex(assertNoFullScan(() -> transactionAggregateRepository.addToAggregate(iban(7), month,
+                        TransactionType.DEPOSIT, TransactionSource.ATM, 1, BigDecimal.ONE)),
+                "PRIMARY_KEY", "PERIOD_START = ", "TYPE = ", "SOURCE = ");
+        assertReadsIndex(assertNoFullScan(() -> transactionAggregateRepository.findSummaries(iban(7), month, month.plusMonths(3))),
+                "PRIMARY_KEY", "PERIOD_START >= ");
+        assertReadsIndex(assertNoFullScan(() -> transactionAggregateRepository.deleteByIbansFrom(List.of(iban(7), iban(8)), month)),
+                "PRIMARY_KEY", "PERIOD_START >= ");
+    }
+
+    @Test
+    void deleteCreatedBefore_ShouldSeekCreatedAtIndex() {
+        for (String plan : assertNoFullScan(() -> idempotencyRecordRepository.deleteCreatedBefore(START))) {
+            assertTrue(plan.contains("IDX_IDEMPOTENCY_RECORD_CREATED_AT: CREATED_AT < "), () -> "Purge does not seek the createdAt index:\n" + plan);
+        }
+    }
+
+    @Test
+    void transferSubmissionQueries_ShouldSeekIndexes() {
+        for (String plan : assertNoFullScan(() -> transferSubmissionRepository.findIdsByStatus(TransactionStatus.PENDING))) {
+            assertTrue(plan.contains("IDX_TRANSFER_SUBMISSION_STATUS_SUBMITTED_AT: STATUS = "), () -> "Resume does not seek the status index:\n" + plan);
+        }
+        assertNoFullScan(() -> transferSubmissionRepository.claim("transfer-1"));
+        assertNoFullScan(() -> transferSubmissionRepository.complete("transfer-1", TransactionStatus.SUCCESS, null, START));
+        for (String plan : assertNoFullScan(() -> transferSubmissionRepository.releaseClaims())) {
+            assertTrue(plan.contains("IDX_TRANSFER_SUBMISSION_STATUS_SUBMITTED_AT: STATUS = "), () -> "Release does not seek the status index:\n" + plan);
+        }
+        for (String plan : assertNoFullScan(() -> transferSubmissionRepository.deleteCompletedBefore(START))) {
+            assertTrue(plan.contains("IDX_TRANSFER_SUBMISSION_COMPLETED_AT: COMPLETED_AT < "), () -> "Purge does not seek the completedAt index:\n" + plan);
+        }
+    }
+
+    @Test
+    void accountQueries_ShouldSeekIbanIndex() {
+        assertNoFullScan(() -> accountRepository.findAccountInformationByAccountNumber(iban(3)));
+        assertNoFullScan(() -> accountRepository.findAccountDataByAccountNumber(iban(3)));
+        assertNoFullScan(() -> accountRepository.findCurrentBalanceByAccountNumber(iban(3)));
+        assertNoFullScan(() -> accountRepository.lockAccountsInIbanOrder(List.of(iban(3), iban(4))));
+        assertNoFullScan(() -> accountRepository.applyBalanceDelta(iban(3), BigDecimal.ONE));
+        assertNoFullScan(() -> accountRepository.findIbansAfter(iban(3), Limit.of(100)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.finadem.service;
+
+import com.finadem.configurations.CacheConfiguration;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.VersionedAccountData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AccountServiceCacheTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private BigDecimal cachedBalance(String iban) {
+        Cache.ValueWrapper cached = cacheManager.getCache(CacheConfiguration.ACCOUNT_CACHE).get(iban);
+        return cached == null ? null : ((VersionedAccountData) cached.get()).account().getCurrentBalance();
+    }
+
+    private String createAccount(String balance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Cache Test")
+                .currentBalance(new BigDecimal(balance))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    @Test
+    void getAccountInformationByAccountNumber_ShouldServeRepeatedLookupsFromCache() {
+        String iban = createAccount("100.00");
+        Cache accountCache = cacheManager.getCache(CacheConfiguration.ACCOUNT_CACHE);
+        assertNull(accountCache.get(iban));
+
+        AccountDataRequest first = accountService.getAccountInformationByAccountNumber(iban);
+        AccountDataRequest second = accountService.getAccountInformationByAccountNumber(iban);
+
+        assertSame(first, second);
+        assertNotNull(accountCache.get(iban));
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", CacheConfiguration.ACCOUNT_CACHE).tag("result", "hit")
+                .functionCounter().count() >= 1);
+    }
+
+    @Test
+    void getAccountInformationByAccountNumber_ShouldNotCacheMissingAccounts() {
+        assertNull(accountService.getAccountInformationByAccountNumber("DE02120300000000202051"));
+        assertNull(cacheManager.getCache(CacheConfiguration.ACCOUNT_CACHE).get("DE02120300000000202051"));
+    }
+
+    @Test
+    void applyBalanceDelta_ShouldWriteNewBalanceThroughCache_WhenTransactionCommits() {
+        String iban = createAccount("100.00");
+        accountService.getAccountInformationByAccountNumber(iban);
+
+        accountService.applyBalanceDelta(iban, new BigDecimal("-25.00"));
+
+        assertEquals(new BigDecimal("75.00"), cachedBalance(iban));
+        assertEquals(new BigDecimal("75.00"), accountService.getAccountInformationByAccountNumber(iban).getCurrentBalance());
+    }
+
+    @Test
+    void applyBalanceDelta_ShouldLeaveCacheAlone_WhenTransactionRollsBack() {
+        String iban = createAccount("100.00");
+        accountService.getAccountInformationByAccountNumber(iban);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            accountService.applyBalanceDelta(iban, new BigDecimal("-25.00"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(new BigDecimal("100.00"), cachedBalance(iban));
+    }
+
+    @Test
+    void getAccountInformationByAccountNumber_ShouldNotKeepBalanceLoadedBeforeWriteCommitted() {
+        String iban = createAccount("100.00");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            accountService.applyBalanceDelta(iban, new BigDecimal("-25.00"));
+            // Another request loads and caches the balance the update has not committed over yet
+            BigDecimal loaded = CompletableFuture.supplyAsync(() ->
+                    accountService.getAccountInformationByAccountNumber(iban).getCurrentBalance()).join();
+            assertEquals(new BigDecimal("100.00"), loaded);
+        });
+
+        assertEquals(new BigDecimal("75.00"), cachedBalance(iban));
+    }
+}
@@ -4,18 +4,25 @@ import com.finadem.entity.Account;
 import com.finadem.enums.AccountStatus;
 import com.finadem.enums.CurrencyEnum;
 import com.finadem.exception.exceptions.AccountCreationFailedException;
-import com.finadem.exception.exceptions.InvalidIbanException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
 import com.finadem.helper.AccountHelper;
+import com.finadem.journal.JournalRecorder;
 import com.finadem.repository.AccountRepository;
 import com.finadem.request.AccountDataRequest;
+import com.finadem.response.VersionedAccountData;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.commons.logging.LoggerFactory;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +37,18 @@ class AccountServiceImplTest {
     @Mock
     private AccountHelper accountHelper;
 
+    @Mock
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Mock
+    private JournalRecorder journalRecorder;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private CacheManager cacheManager = new CaffeineCacheManager();
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -63,6 +82,23 @@ class AccountServiceImplTest {
 
         assertEquals("DE89370400440532013000", iban);
         verify(accountRepository, times(1)).save(any(Account.class));
+        verify(balanceCheckpointService).recordBalanceChange("DE89370400440532013000", LocalDate.now(), new BigDecimal("1000.00"));
+        verify(journalRecorder).recordAccountOpened(any(Account.class), eq(request));
+    }
+
+    @Test
+    void restoreAccount_ShouldNotJournalAccount() {
+        AccountDataRequest request = AccountDataRequest.builder()
+                .iban("DE89370400440532013000")
+                .accountHolderName("John Doe")
+                .currentBalance(BigDecimal.ZERO)
+                .currency(CurrencyEnum.EUR)
+                .build();
+
+        accountService.restoreAccount(request);
+
+        verify(accountRepository, times(1)).save(any(Account.class));
+        verify(journalRecorder, never()).recordAccountOpened(any(), any());
     }
 
     @Test
@@ -82,40 +118,37 @@ class AccountServiceImplTest {
         verify(accountRepository, times(1)).save(any(Account.class));
     }
 
-    @Test
-    void updateAccountBalance_ShouldUpdateBalance_WhenAccountExists() {
-        Account account = new Account();
-        account.setIban("DE89370400440532013000");
-        account.setCurrentBalance(new BigDecimal("500.00"));
+    private VersionedAccountData accountData(String balance) {
+        return new VersionedAccountData(12345L, "DE89370400440532013000", "John Doe", "TAX123",
+                CurrencyEnum.EUR, new BigDecimal(balance), AccountStatus.ACTIVE, 1L);
+    }
 
-        when(accountRepository.findAccountInformationByAccountNumber("DE89370400440532013000")).thenReturn(account);
-        when(accountRepository.save(any(Account.class))).thenReturn(account);
+    @Test
+    void applyBalanceDelta_ShouldRecordChangeOnBookingDate_WhenBalanceWasUpdated() {
+        LocalDate bookingDate = LocalDate.of(2025, 3, 1);
+        when(accountRepository.applyBalanceDelta("DE89370400440532013000", new BigDecimal("-25.00"))).thenReturn(1);
+        when(accountRepository.findAccountDataByAccountNumber("DE89370400440532013000")).thenReturn(accountData("75.00"));
+        when(entityManager.getReference(Account.class, 12345L)).thenReturn(new Account());
 
-        accountService.updateAccountBalance("DE89370400440532013000", new BigDecimal("1000.00"));
+        BigDecimal balance = accountService.applyBalanceDelta("DE89370400440532013000", new BigDecimal("-25.00"), bookingDate);
 
-        assertEquals(new BigDecimal("1000.00"), account.getCurrentBalance());
-        verify(accountRepository, times(1)).save(account);
+        assertEquals(new BigDecimal("75.00"), balance);
+        verify(balanceCheckpointService).recordBalanceChange("DE89370400440532013000", bookingDate, new BigDecimal("-25.00"));
     }
 
     @Test
-    void updateAccountBalance_ShouldThrowException_WhenAccountDoesNotExist() {
-        when(accountRepository.findAccountInformationByAccountNumber("INVALID_IBAN")).thenReturn(null);
-        assertThrows(InvalidIbanException.class, () -> accountService.updateAccountBalance("INVALID_IBAN", new BigDecimal("1000.00")));
-        verify(accountRepository, never()).save(any(Account.class));
+    void applyBalanceDelta_ShouldNotRecordChange_WhenBalanceWouldGoNegative() {
+        when(accountRepository.applyBalanceDelta("DE89370400440532013000", new BigDecimal("-500.00"))).thenReturn(0);
+        when(accountRepository.findAccountDataByAccountNumber("DE89370400440532013000")).thenReturn(accountData("75.00"));
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> accountService.applyBalanceDelta("DE89370400440532013000", new BigDecimal("-500.00")));
+        verify(balanceCheckpointService, never()).recordBalanceChange(anyString(), any(LocalDate.class), any(BigDecimal.class));
     }
 
     @Test
     void getAccountInformationByAccountNumber_ShouldReturnAccountData_WhenAccountExists() {
-        Account account = new Account();
-        account.setCustomerId(12345L);
-        account.setAccountHolderName("John Doe");
-        account.setIban("DE89370400440532013000");
-        account.setCurrentBalance(new BigDecimal("1000.00"));
-        account.setCurrency(CurrencyEnum.EUR);
-        account.setTaxId("TAX123");
-        account.setStatus(AccountStatus.ACTIVE);
-
-        when(accountRepository.findAccountInformationByAccountNumber("DE89370400440532013000")).thenReturn(account);
+        when(accountRepository.findAccountDataByAccountNumber("DE89370400440532013000")).thenReturn(accountData("1000.00"));
 
         AccountDataRequest accountDataRequest = accountService.getAccountInformationByAccountNumber("DE89370400440532013000");
 
@@ -124,16 +157,17 @@ class AccountServiceImplTest {
         assertEquals("DE89370400440532013000", accountDataRequest.getIban());
         assertEquals(new BigDecimal("1000.00"), accountDataRequest.getCurrentBalance());
         assertEquals(CurrencyEnum.EUR, accountDataRequest.getCurrency());
-        verify(accountRepository, times(1)).findAccountInformationByAccountNumber("DE89370400440532013000");
+        verify(accountRepository, times(1)).findAccountDataByAccountNumber("DE89370400440532013000");
+        verify(accountRepository, never()).findAccountInformationByAccountNumber(anyString());
     }
 
     @Test
     void getAccountInformationByAccountNumber_ShouldReturnNull_WhenAccountDoesNotExist() {
-        when(accountRepository.findAccountInformationByAccountNumber("INVALID_IBAN")).thenReturn(null);
+        when(accountRepository.findAccountDataByAccountNumber("INVALID_IBAN")).thenReturn(null);
 
         AccountDataRequest accountDataRequest = accountService.getAccountInformationByAccountNumber("INVALID_IBAN");
 
         assertNull(accountDataRequest);
-        verify(accountRepository, times(1)).findAccountInformationByAccountNumber("INVALID_IBAN");
+        verify(accountRepository, times(1)).findAccountDataByAccountNumber("INVALID_IBAN");
     }
 }
@@ -0,0 +1,150 @@
+package com.finadem.service;
+
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.AccountStatement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AccountStatementServiceTest {
+
+    @Autowired
+    private AccountStatementService accountStatementService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    private String createAccount(String openingBalance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Statement")
+                .currentBalance(new BigDecimal(openingBalance))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    // Books like the ledger projector does for an entry booked on an earlier day
+    private void book(String iban, LocalDate date, String delta) {
+        BigDecimal amount = new BigDecimal(delta);
+        accountService.applyBalanceDelta(iban, amount, date);
+        transactionRepository.save(Transaction.builder()
+                .iban(iban)
+                .transactingAccount(iban)
+                .amount(amount.abs())
+                .type(amount.signum() < 0 ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT)
+                .source(TransactionSource.ATM)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR)
+                .timestamp(date.atTime(12, 0))
+                .build());
+    }
+
+    @Test
+    void getStatement_ShouldReturnBalancesAndLines_OfTheRange() {
+        String iban = createAccount("0.00");
+        book(iban, today.minusDays(10), "100.00");
+        book(iban, today.minusDays(5), "-30.00");
+        book(iban, today.minusDays(5), "20.00");
+        book(iban, today, "5.00");
+
+        AccountStatement statement = accountStatementService.getStatement(iban, today.minusDays(5), today.minusDays(5));
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(statement.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("90.00").compareTo(statement.getClosingBalance()));
+        assertEquals(2, statement.getTransactions().size());
+        assertEquals(TransactionType.WITHDRAWAL, statement.getTransactions().getFirst().type());
+
+        AccountStatement beforeFirstBooking = accountStatementService.getStatement(iban, today.minusDays(20), today.minusDays(11));
+        assertEquals(0, BigDecimal.ZERO.compareTo(beforeFirstBooking.getOpeningBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(beforeFirstBooking.getClosingBalance()));
+        assertTrue(beforeFirstBooking.getTransactions().isEmpty());
+
+        AccountStatement untilToday = accountStatementService.getStatement(iban, today.minusDays(9), today);
+        assertEquals(0, new BigDecimal("100.00").compareTo(untilToday.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("95.00").compareTo(untilToday.getClosingBalance()));
+        assertEquals(3, untilToday.getTransactions().size());
+    }
+
+    @Test
+    void recordBalanceChange_ShouldCarryBackDatedChange_IntoLaterCheckpoints() {
+        String iban = createAccount("50.00");
+        book(iban, today.minusDays(3), "10.00");
+        book(iban, today, "-20.00");
+
+        book(iban, today.minusDays(7), "1.00");
+
+        assertEquals(0, new BigDecimal("1.00").compareTo(balanceCheckpointService.getClosingBalance(iban, today.minusDays(7))));
+        assertEquals(0, new BigDecimal("11.00").compareTo(balanceCheckpointService.getClosingBalance(iban, today.minusDays(1))));
+        assertEquals(0, new BigDecimal("41.00").compareTo(balanceCheckpointService.getClosingBalance(iban, today)));
+        assertEquals(0, accountService.getAccountInformationByAccountNumber(iban).getCurrentBalance()
+                .compareTo(balanceCheckpointService.getClosingBalance(iban, today)));
+    }
+
+    @Test
+    void getStatement_ShouldIncludeOpeningBalance_OfAccountOpenedInRange() {
+        String iban = createAccount("250.00");
+
+        AccountStatement statement = accountStatementService.getStatement(iban, today, today);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(statement.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("250.00").compareTo(statement.getClosingBalance()));
+        assertTrue(statement.getTransactions().isEmpty());
+    }
+
+    // Saved straight to the repository like the demo account, so no checkpoint is recorded
+    @Test
+    void getStatement_ShouldStartFromAccountBalance_WhenAccountWasSeeded() {
+        String iban = "DE02500105170137075030";
+        accountRepository.save(Account.builder()
+                .customerId(910_000_000_000L)
+                .iban(iban)
+                .accountHolderName("Seeded")
+                .taxId("SEEDED")
+                .currentBalance(new BigDecimal("1500.00"))
+                .build());
+
+        AccountStatement untouched = accountStatementService.getStatement(iban, today, today);
+        assertEquals(0, BigDecimal.ZERO.compareTo(untouched.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("1500.00").compareTo(untouched.getClosingBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(
+                accountStatementService.getStatement(iban, today.minusDays(3), today.minusDays(1)).getClosingBalance()));
+
+        book(iban, today, "-100.00");
+        book(iban, today, "40.00");
+
+        AccountStatement statement = accountStatementService.getStatement(iban, today, today);
+        assertEquals(0, BigDecimal.ZERO.compareTo(statement.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("1440.00").compareTo(statement.getClosingBalance()));
+        assertEquals(2, statement.getTransactions().size());
+        assertEquals(0, accountService.getAccountInformationByAccountNumber(iban).getCurrentBalance()
+                .compareTo(statement.getClosingBalance()));
+    }
+
+    @Test
+    void getStatement_ShouldThrow_WhenAccountDoesNotExist() {
+        assertThrows(IbanNotFoundException.class,
+                () -> accountStatementService.getStatement("DE02120300000000202099", today, today));
+    }
+}
@@ -0,0 +1,170 @@
+package com.finadem.service;
+
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the old read-modify-write balance update with the single-statement delta update, and
+ * withdrawals through the delta update against withdrawals under a pessimistic row lock.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BalanceUpdateBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(BalanceUpdateBenchmarkTest.class);
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 2_000;
+    private static final BigDecimal DELTA = new BigDecimal("1.00");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void deltaUpdate_ShouldOutperformReadModifyWrite_WithoutLosingUpdates() throws Exception {
+        String readModifyWriteIban = createAccount();
+        long readModifyWriteNanos = run(() -> transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findAccountInformationByAccountNumber(readModifyWriteIban);
+            account.setCurrentBalance(account.getCurrentBalance().add(DELTA));
+            accountRepository.save(account);
+        }));
+
+        String deltaIban = createAccount();
+        long deltaNanos = run(() -> accountService.applyBalanceDelta(deltaIban, DELTA));
+
+        BigDecimal expected = DELTA.multiply(BigDecimal.valueOf((long) THREADS * UPDATES_PER_THREAD));
+        BigDecimal readModifyWriteBalance = accountRepository.findCurrentBalanceByAccountNumber(readModifyWriteIban);
+        BigDecimal deltaBalance = accountRepository.findCurrentBalanceByAccountNumber(deltaIban);
+        logger.info("read-modify-write: {} ops/s, {} updates lost", throughput(readModifyWriteNanos),
+                expected.subtract(readModifyWriteBalance).divide(DELTA).intValue());
+        logger.info("delta update: {} ops/s, {} updates lost", throughput(deltaNanos),
+                expected.subtract(deltaBalance).divide(DELTA).intValue());
+
+        assertEquals(0, expected.compareTo(deltaBalance));
+    }
+
+    @Test
+    void deltaWithdrawals_ComparedWithPessimisticLocking_ShouldKeepBalancesExact() throws Exception {
+        // The first round only warms up both code paths
+        for (int threads : new int[]{8, 1, 2, 4, 8}) {
+            String deltaIban = createAccount(new BigDecimal("1000000.00"));
+            long deltaNanos = run(threads, () -> transactionService.createWithdrawalTransaction(withdrawal(deltaIban)));
+
+            String pessimisticIban = createAccount(new BigDecimal("1000000.00"));
+            long pessimisticNanos = run(threads, () -> transactionTemplate.executeWithoutResult(status -> {
+                Account account = entityManager.createQuery("FROM Account a WHERE a.iban = :iban", Account.class)
+                        .setParameter("iban", pessimisticIban)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .getSingleResult();
+                account.setCurrentBalance(account.getCurrentBalance().subtract(DELTA));
+                transactionRepository.save(Transaction.builder()
+                        .iban(pessimisticIban)
+                        .transactingAccount(pessimisticIban)
+                        .amount(DELTA)
+                        .type(TransactionType.WITHDRAWAL)
+                        .source(TransactionSource.ATM)
+                        .status(TransactionStatus.SUCCESS)
+                        .currency(CurrencyEnum.EUR)
+                        .build());
+            }));
+
+            logger.info("{} threads: delta update {} ops/s, pessimistic {} ops/s", threads,
+                    throughput(threads, deltaNanos), throughput(threads, pessimisticNanos));
+            BigDecimal expected = new BigDecimal("1000000.00").subtract(DELTA.multiply(BigDecimal.valueOf((long) threads * UPDATES_PER_THREAD)));
+            assertEquals(0, expected.compareTo(accountRepository.findCurrentBalanceByAccountNumber(deltaIban)));
+            assertEquals(0, expected.compareTo(accountRepository.findCurrentBalanceByAccountNumber(pessimisticIban)));
+        }
+    }
+
+    private DepositWithdrawalRequest withdrawal(String iban) {
+        return DepositWithdrawalRequest.builder()
+                .iban(iban)
+                .amount(DELTA.toPlainString())
+                .currency(CurrencyEnum.EUR)
+                .transactionType(TransactionType.WITHDRAWAL)
+                .transactionSource(TransactionSource.ATM)
+                .build();
+    }
+
+    private String createAccount() {
+        return createAccount(BigDecimal.ZERO);
+    }
+
+    private String createAccount(BigDecimal balance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Benchmark")
+                .currentBalance(balance)
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    private long run(Runnable update) throws Exception {
+        return run(THREADS, update);
+    }
+
+    private long run(int threads, Runnable update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        update.run();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private long throughput(long nanos) {
+        return throughput(THREADS, nanos);
+    }
+
+    private long throughput(int threads, long nanos) {
+        return (long) threads * UPDATES_PER_THREAD * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,251 @@
+package com.finadem.service;
+
+import com.finadem.configurations.CurrencyRateConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class CurrencyConverterServiceImplTest {
+
+    @Mock
+    private CurrencyRateConfig currencyRateConfig;
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private volatile CountDownLatch upstreamGate = new CountDownLatch(0);
+
+    private volatile boolean upstreamDown;
+
+    // Local stub in place of the FreeCurrencyAPI provider
+    private final ExchangeRateProvider stubProvider = (baseCurrency, currencies) -> {
+        upstreamCalls.incrementAndGet();
+        try {
+            upstreamGate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (upstreamDown) {
+            throw new IllegalArgumentException("Invalid response from currency API");
+        }
+        Map<String, BigDecimal> rates = new HashMap<>(Map.of("USD", new BigDecimal("1.08"), "GBP", new BigDecimal("0.86")));
+        rates.keySet().retainAll(currencies);
+        return rates;
+    };
+
+    @TempDir
+    private Path snapshotDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CurrencyConverterServiceImpl currencyConverterService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(currencyRateConfig.getCurrencies()).thenReturn(List.of("USD", "GBP"));
+        when(currencyRateConfig.getTtlSeconds()).thenReturn(3600L);
+        when(currencyRateConfig.getFetchWaitMillis()).thenReturn(5000L);
+        when(currencyRateConfig.getMaxStalenessSeconds()).thenReturn(86400L);
+        when(currencyRateConfig.getSnapshotPath()).thenReturn(snapshotDirectory.resolve("rates.snapshot").toString());
+        currencyConverterService = newCurrencyConverterService();
+    }
+
+    private CurrencyConverterServiceImpl newCurrencyConverterService() {
+        meterRegistry = new SimpleMeterRegistry();
+        return new CurrencyConverterServiceImpl(stubProvider, currencyRateConfig,
+                new ExchangeRateSnapshotStore(currencyRateConfig), meterRegistry);
+    }
+
+    @Test
+    void getExchangeRate_ShouldServeFromTable_WhenRatesAreFresh() {
+        currencyConverterService.refreshExchangeRates();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(new BigDecimal("1.08"), currencyConverterService.getExchangeRate("EUR", "USD"));
+        }
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldLoadTable_WhenTableIsEmpty() {
+        assertEquals(new BigDecimal("1.08"), currencyConverterService.getExchangeRate("EUR", "USD"));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldRefresh_WhenTableIsOlderThanTtl() {
+        when(currencyRateConfig.getTtlSeconds()).thenReturn(0L);
+
+        currencyConverterService.getExchangeRate("EUR", "USD");
+        currencyConverterService.getExchangeRate("EUR", "USD");
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldReturnOne_WhenCurrenciesAreEqual() {
+        assertEquals(BigDecimal.ONE, currencyConverterService.getExchangeRate("EUR", "EUR"));
+        assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldThrowException_WhenCurrencyIsNotConfigured() {
+        assertThrows(IllegalArgumentException.class, () -> currencyConverterService.getExchangeRate("EUR", "JPY"));
+    }
+
+    @Test
+    void stalenessGauge_ShouldReportTableAge_AfterRefresh() {
+        assertTrue(Double.isNaN(meterRegistry.get("currency.rates.staleness").gauge().value()));
+
+        currencyConverterService.refreshExchangeRates();
+
+        double staleness = meterRegistry.get("currency.rates.staleness").gauge().value();
+        assertTrue(staleness >= 0 && staleness < 5);
+    }
+
+    @Test
+    void getExchangeRate_ShouldIssueSingleUpstreamCall_WhenCalledConcurrentlyOnMiss() throws Exception {
+        int callers = 32;
+        upstreamGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch started = new CountDownLatch(callers);
+        List<Future<BigDecimal>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return currencyConverterService.getExchangeRate("EUR", "USD");
+                }));
+            }
+            started.await();
+            // Give every caller time to join the in-flight fetch before the upstream answers
+            Thread.sleep(200);
+            upstreamGate.countDown();
+
+            for (Future<BigDecimal> result : results) {
+                assertEquals(new BigDecimal("1.08"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(callers - 1, meterRegistry.get("currency.rates.fetch.coalesced").counter().count());
+    }
+
+    @Test
+    void getExchangeRate_ShouldFallBackToLastKnownRate_WhenRefreshFails() {
+        currencyConverterService.refreshExchangeRates();
+        when(currencyRateConfig.getTtlSeconds()).thenReturn(0L);
+        upstreamDown = true;
+
+        assertEquals(new BigDecimal("1.08"), currencyConverterService.getExchangeRate("EUR", "USD"));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldFallBackToLastKnownRate_WhenFetchExceedsWait() throws Exception {
+        currencyConverterService.refreshExchangeRates();
+        when(currencyRateConfig.getTtlSeconds()).thenReturn(0L);
+        when(currencyRateConfig.getFetchWaitMillis()).thenReturn(50L);
+        upstreamGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Leader blocks on the upstream, the second caller gives up after the bounded wait
+            executor.submit(() -> currencyConverterService.getExchangeRate("EUR", "USD"));
+            while (upstreamCalls.get() < 2) {
+                Thread.sleep(5);
+            }
+            assertEquals(new BigDecimal("1.08"), currencyConverterService.getExchangeRate("EUR", "USD"));
+            assertEquals(2, upstreamCalls.get());
+        } finally {
+            upstreamGate.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void getExchangeRate_ShouldThrowException_WhenRefreshFailsWithoutLastKnownRate() {
+        upstreamDown = true;
+        assertThrows(IllegalArgumentException.class, () -> currencyConverterService.getExchangeRate("EUR", "USD"));
+    }
+
+    @Test
+    void refreshExchangeRates_ShouldFetchAllConfiguredCurrenciesInOneCall() {
+        currencyConverterService.refreshExchangeRates();
+
+        assertEquals(new BigDecimal("1.08"), currencyConverterService.getExchangeRate("EUR", "USD"));
+        assertEquals(new BigDecimal("0.86"), currencyConverterService.getExchangeRate("EUR", "GBP"));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldDeriveCrossRateFromEurTable() {
+        BigDecimal usdToGbp = currencyConverterService.getExchangeRate("USD", "GBP");
+        BigDecimal gbpToEur = currencyConverterService.getExchangeRate("GBP", "EUR");
+
+        assertEquals(new BigDecimal("0.86").divide(new BigDecimal("1.08"), MathContext.DECIMAL128), usdToGbp);
+        assertEquals(34, usdToGbp.precision());
+        assertEquals(BigDecimal.ONE.divide(new BigDecimal("0.86"), MathContext.DECIMAL128), gbpToEur);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldServeSnapshotRates_WhenUpstreamIsDownAfterRestart() {
+        currencyConverterService.refreshExchangeRates();
+        upstreamDown = true;
+
+        CurrencyConverterServiceImpl restarted = newCurrencyConverterService();
+
+        assertEquals(new BigDecimal("1.08"), restarted.getExchangeRate("EUR", "USD"));
+        assertEquals(new BigDecimal("0.86"), restarted.getExchangeRate("EUR", "GBP"));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void getExchangeRate_ShouldThrowException_WhenSnapshotExceedsMaxStaleness() {
+        new ExchangeRateSnapshotStore(currencyRateConfig).save(new ExchangeRateTable(
+                Map.of("USD", new BigDecimal("1.08")), Instant.now().minus(Duration.ofHours(2))));
+        when(currencyRateConfig.getTtlSeconds()).thenReturn(60L);
+        when(currencyRateConfig.getMaxStalenessSeconds()).thenReturn(3600L);
+        upstreamDown = true;
+
+        CurrencyConverterServiceImpl restarted = newCurrencyConverterService();
+
+        assertThrows(IllegalArgumentException.class, () -> restarted.getExchangeRate("EUR", "USD"));
+    }
+
+    @Test
+    void snapshotStore_ShouldRoundTripRatesExactly() {
+        ExchangeRateSnapshotStore store = new ExchangeRateSnapshotStore(currencyRateConfig);
+        ExchangeRateTable table = new ExchangeRateTable(
+                Map.of("USD", new BigDecimal("1.0812345678901234"), "GBP", new BigDecimal("0.86")),
+                Instant.ofEpochMilli(1_700_000_000_000L));
+
+        store.save(table);
+        ExchangeRateTable loaded = store.load().orElseThrow();
+
+        assertEquals(table.getRates(), loaded.getRates());
+        assertEquals(table.getFetchedAt(), loaded.getFetchedAt());
+    }
+}
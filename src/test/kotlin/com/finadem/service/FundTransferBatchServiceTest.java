@@ -0,0 +1,186 @@
+package com.finadem.service;
+
+import com.finadem.configurations.FundTransferBatchConfig;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.TransferBatchTooLargeException;
+import com.finadem.journal.JournalRecorder;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.FundTransferResult;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class FundTransferBatchServiceImplTest {
+    private static final String EXTERNAL_IBAN = "AD1099077818KGI8OKLCMG4Y";
+
+    @Autowired
+    private FundTransferBatchService fundTransferBatchService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private JournalRecorder journalRecorder;
+
+    @Autowired
+    private FundTransferBatchConfig fundTransferBatchConfig;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void createFundTransfers_ShouldBookValidTransfers_AndReportEveryFailure() {
+        String alice = createAccount(new BigDecimal("100.00"));
+        String bob = createAccount(new BigDecimal("20.00"));
+        String missing = "DE02120300000000202051";
+
+        List<FundTransferResult> results = fundTransferBatchService.createFundTransfers(List.of(
+                transfer(alice, bob, "60.00", TransactionType.DEBIT),
+                transfer(alice, bob, "50.00", TransactionType.DEBIT),
+                transfer(bob, bob, "1.00", TransactionType.DEBIT),
+                transfer(missing, bob, "1.00", TransactionType.DEBIT),
+                transfer(bob, alice, "-5.00", TransactionType.DEBIT),
+                transfer(alice, bob, "30.00", TransactionType.CREDIT),
+                transfer(bob, EXTERNAL_IBAN, "10.00", TransactionType.DEBIT)));
+
+        assertEquals(List.of(TransactionStatus.SUCCESS, TransactionStatus.FAILED, TransactionStatus.FAILED,
+                        TransactionStatus.FAILED, TransactionStatus.FAILED, TransactionStatus.SUCCESS, TransactionStatus.SUCCESS),
+                results.stream().map(FundTransferResult::getStatus).toList());
+        assertEquals("Insufficient balance", results.get(1).getMessage());
+        assertEquals("Sending and receiving account numbers cannot be the same.", results.get(2).getMessage());
+        assertEquals("Account with IBAN " + missing + " not found.", results.get(3).getMessage());
+        assertEquals("Amount must be a positive number.", results.get(4).getMessage());
+        assertEquals(0, new BigDecimal("70.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(alice)));
+        assertEquals(0, new BigDecimal("40.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(bob)));
+        assertEquals(2, countTransactions(alice));
+        assertEquals(3, countTransactions(bob));
+    }
+
+    @Test
+    void createFundTransfers_ShouldApplyThousandsOfTransfers_WithExactBalances() {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            accounts.add(createAccount(new BigDecimal("1000.00")));
+        }
+        List<FundTransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            transfers.add(transfer(accounts.get(i % 10), accounts.get((i * 7 + 3) % 10), "1.00", TransactionType.DEBIT));
+        }
+
+        List<FundTransferResult> results = fundTransferBatchService.createFundTransfers(transfers);
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == TransactionStatus.SUCCESS));
+        BigDecimal total = accounts.stream().map(accountRepository::findCurrentBalanceByAccountNumber).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("10000.00").compareTo(total));
+        assertEquals(10_000, accounts.stream().mapToInt(this::countTransactions).sum());
+    }
+
+    @Test
+    void createFundTransfers_ShouldFailOnlyTransfersInCurrency_WhenExchangeRateIsUnavailable() {
+        String alice = createAccount(new BigDecimal("100.00"));
+        String bob = createAccount(new BigDecimal("0.00"));
+        FundTransferRequest usdTransfer = transfer(alice, bob, "10.00", TransactionType.DEBIT);
+        usdTransfer.setCurrencyType(CurrencyEnum.USD);
+        FundTransferBatchServiceImpl withoutRates = new FundTransferBatchServiceImpl(accountService, accountRepository,
+                unavailableRates(), transactionRepository, transactionAggregateService, journalRecorder,
+                fundTransferBatchConfig, entityManager, validator);
+
+        List<FundTransferResult> results = new TransactionTemplate(transactionManager).execute(status ->
+                withoutRates.createFundTransfers(List.of(usdTransfer, transfer(alice, bob, "10.00", TransactionType.DEBIT))));
+
+        assertEquals(List.of(TransactionStatus.FAILED, TransactionStatus.SUCCESS),
+                results.stream().map(FundTransferResult::getStatus).toList());
+        assertEquals("Exchange rate for USD is not available.", results.get(0).getMessage());
+        assertEquals(0, new BigDecimal("90.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(alice)));
+    }
+
+    @Test
+    void createFundTransfers_ShouldRejectBatch_WhenLargerThanMaxSize() {
+        String alice = createAccount(new BigDecimal("100.00"));
+        String bob = createAccount(new BigDecimal("0.00"));
+        List<FundTransferRequest> transfers = Collections.nCopies(fundTransferBatchConfig.getMaxSize() + 1,
+                transfer(alice, bob, "1.00", TransactionType.DEBIT));
+
+        assertThrows(TransferBatchTooLargeException.class, () -> fundTransferBatchService.createFundTransfers(transfers));
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(alice)));
+    }
+
+    private CurrencyConverterService unavailableRates() {
+        return new CurrencyConverterService() {
+            @Override
+            public BigDecimal getExchangeRate(String baseCurrency, String toCurrency) {
+                throw new IllegalStateException("Currency API unreachable");
+            }
+
+            @Override
+            public void refreshExchangeRates() {
+            }
+
+            @Override
+            public Duration getRateStaleness() {
+                return Duration.ZERO;
+            }
+        };
+    }
+
+    private int countTransactions(String iban) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction WHERE iban = ?", Integer.class, iban);
+    }
+
+    private FundTransferRequest transfer(String customer, String counterparty, String amount, TransactionType type) {
+        return FundTransferRequest.builder()
+                .customerAccountNumber(customer)
+                .transactingAccountNumber(counterparty)
+                .transactingAccountBIC("DEUTDEFF")
+                .amount(amount)
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(type)
+                .build();
+    }
+
+    private String createAccount(BigDecimal balance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Batch")
+                .currentBalance(balance)
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+}
@@ -0,0 +1,102 @@
+package com.finadem.service;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionType;
+import com.finadem.repository.AccountRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.FundTransferRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures transfers crossing between the same accounts in both directions, which lock both accounts
+ * in IBAN order, against a throughput floor. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class FundTransferBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(FundTransferBenchmarkTest.class);
+    // Crossing transfers must sustain at least this rate on the embedded database
+    private static final int MIN_TRANSFERS_PER_SECOND = 50;
+    private static final int THREADS = 12;
+    private static final int TRANSFERS_PER_THREAD = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void crossingTransfers_ShouldSustainMinimumThroughput() throws Exception {
+        List<String> ibans = List.of(createAccount(), createAccount(), createAccount());
+        // Warm up the transfer path so the measured rate is not dominated by first-call costs
+        for (int i = 0; i < 100; i++) {
+            transactionService.createFundTransferTransaction(transfer(ibans.get(i % 3), ibans.get((i + 1) % 3)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                // Every pair of accounts is used in both directions by different threads
+                String from = ibans.get(i % 3);
+                String to = ibans.get((i + 1 + i / 3 % 2) % 3);
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                        transactionService.createFundTransferTransaction(transfer(from, to));
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long transfersPerSecond = (long) THREADS * TRANSFERS_PER_THREAD * 1_000_000_000L / (System.nanoTime() - start);
+
+        logger.info("{} crossing transfers/s", transfersPerSecond);
+        BigDecimal totalAfter = ibans.stream()
+                .map(accountRepository::findCurrentBalanceByAccountNumber)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("30000.00").compareTo(totalAfter));
+        assertTrue(transfersPerSecond >= MIN_TRANSFERS_PER_SECOND, "throughput was " + transfersPerSecond + " transfers/s");
+    }
+
+    private String createAccount() {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Transfer Benchmark")
+                .currentBalance(new BigDecimal("10000.00"))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    private FundTransferRequest transfer(String customerIban, String recipientIban) {
+        return FundTransferRequest.builder()
+                .customerAccountNumber(customerIban)
+                .transactingAccountNumber(recipientIban)
+                .amount("1.25")
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEBIT)
+                .build();
+    }
+}
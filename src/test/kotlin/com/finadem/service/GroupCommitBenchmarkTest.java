@@ -0,0 +1,126 @@
+package com.finadem.service;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.repository.AccountRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures withdrawals per second and database commits per second through the group commit stage
+ * for growing batch sizes, a batch size of one being the plain commit-per-request path.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class GroupCommitBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitBenchmarkTest.class);
+    private static final int THREADS = 32;
+    private static final int WITHDRAWALS_PER_THREAD = 250;
+    private static final long WINDOW_MICROS = 200;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionServiceImpl transactionServiceImpl;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void groupCommit_ShouldCommitLessOften_AsBatchSizeGrows() throws Exception {
+        // The first round only warms up the code path
+        for (int maxBatchSize : new int[]{16, 1, 4, 16, 64}) {
+            GroupCommitExecutor executor = new GroupCommitExecutor(transactionManager, entityManager, accountService, WINDOW_MICROS, maxBatchSize, new SimpleMeterRegistry());
+            executor.start();
+            try {
+                List<String> ibans = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    ibans.add(createAccount());
+                }
+                long nanos = run(ibans, iban -> executor.submit(List.of(iban), () -> transactionServiceImpl.createWithdrawalTransaction(withdrawal(iban))).join());
+
+                double commits = executor.getCommitCount();
+                long requests = (long) THREADS * WITHDRAWALS_PER_THREAD;
+                logger.info("max batch {}: {} requests/s, {} commits/s, {} requests per commit", maxBatchSize,
+                        requests * 1_000_000_000L / nanos, (long) (commits * 1_000_000_000L / nanos), String.format("%.1f", requests / commits));
+                BigDecimal expected = new BigDecimal("1000.00").subtract(AMOUNT.multiply(BigDecimal.valueOf(WITHDRAWALS_PER_THREAD)));
+                for (String iban : ibans) {
+                    assertEquals(0, expected.compareTo(accountRepository.findCurrentBalanceByAccountNumber(iban)));
+                }
+            } finally {
+                executor.stop();
+            }
+        }
+    }
+
+    private interface Withdrawal {
+        void run(String iban);
+    }
+
+    private long run(List<String> ibans, Withdrawal withdrawal) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(ibans.size());
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (String iban : ibans) {
+                workers.add(threads.submit(() -> {
+                    for (int j = 0; j < WITHDRAWALS_PER_THREAD; j++) {
+                        withdrawal.run(iban);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    private DepositWithdrawalRequest withdrawal(String iban) {
+        return DepositWithdrawalRequest.builder()
+                .iban(iban)
+                .amount(AMOUNT.toPlainString())
+                .currency(CurrencyEnum.EUR)
+                .transactionType(TransactionType.WITHDRAWAL)
+                .transactionSource(TransactionSource.ATM)
+                .build();
+    }
+
+    private String createAccount() {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Benchmark")
+                .currentBalance(new BigDecimal("1000.00"))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+}
@@ -0,0 +1,188 @@
+package com.finadem.service;
+
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.repository.AccountRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "transaction.engine=group-commit",
+        "transaction.group-commit.window-micros=50000"
+})
+class GroupCommitTransactionServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private GroupCommitExecutor groupCommitExecutor;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private CurrencyConverterService currencyConverterService;
+
+    @Test
+    void transactionService_ShouldBeGroupCommitService_WhenEngineIsGroupCommit() {
+        assertInstanceOf(GroupCommitTransactionService.class, transactionService);
+    }
+
+    @Test
+    void submit_ShouldFailOnlyFailingWrite_AndCommitRestOfBatchTogether() throws Exception {
+        String first = createAccount(BigDecimal.ZERO);
+        String failing = createAccount(BigDecimal.ZERO);
+        String last = createAccount(BigDecimal.ZERO);
+        BigDecimal ten = new BigDecimal("10.00");
+        double commitsBefore = groupCommitExecutor.getCommitCount();
+
+        CompletableFuture<Void> firstWrite = groupCommitExecutor.submit(List.of(first), () -> accountService.applyBalanceDelta(first, ten));
+        CompletableFuture<Void> failingWrite = groupCommitExecutor.submit(List.of(failing), () -> {
+            accountService.applyBalanceDelta(failing, ten);
+            throw new IllegalStateException("rejected");
+        });
+        CompletableFuture<Void> lastWrite = groupCommitExecutor.submit(List.of(last), () -> accountService.applyBalanceDelta(last, ten));
+
+        firstWrite.get(5, TimeUnit.SECONDS);
+        lastWrite.get(5, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failingWrite.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(0, ten.compareTo(accountRepository.findCurrentBalanceByAccountNumber(first)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findCurrentBalanceByAccountNumber(failing)));
+        assertEquals(0, ten.compareTo(accountRepository.findCurrentBalanceByAccountNumber(last)));
+        assertEquals(commitsBefore + 1, groupCommitExecutor.getCommitCount());
+    }
+
+    @Test
+    void submit_ShouldLockAccountsOfWholeBatch_BeforeItsFirstWrite() throws Exception {
+        String first = createAccount(BigDecimal.ZERO);
+        String last = createAccount(BigDecimal.ZERO);
+        BigDecimal ten = new BigDecimal("10.00");
+        AtomicBoolean lastLockedByBatch = new AtomicBoolean();
+
+        CompletableFuture<Void> firstWrite = groupCommitExecutor.submit(List.of(first), () -> {
+            // Another transaction writing the account of a later write has to wait for the batch
+            CompletableFuture<Integer> concurrentWrite = CompletableFuture.supplyAsync(() ->
+                    transactionTemplate.execute(status -> accountRepository.applyBalanceDelta(last, BigDecimal.ZERO)));
+            lastLockedByBatch.set(!concurrentWrite.completeOnTimeout(-1, 200, TimeUnit.MILLISECONDS).join().equals(1));
+            accountService.applyBalanceDelta(first, ten);
+        });
+        CompletableFuture<Void> lastWrite = groupCommitExecutor.submit(List.of(last), () -> accountService.applyBalanceDelta(last, ten));
+
+        firstWrite.get(5, TimeUnit.SECONDS);
+        lastWrite.get(5, TimeUnit.SECONDS);
+        assertTrue(lastLockedByBatch.get());
+    }
+
+    @Test
+    void createWithdrawalTransaction_ShouldRejectOnlyOverdraftingRequests_WhenGroupedConcurrently() throws Exception {
+        String iban = createAccount(new BigDecimal("100.00"));
+        int requests = 16;
+        double commitsBefore = groupCommitExecutor.getCommitCount();
+        double replaysBefore = groupCommitExecutor.getReplayCount();
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    try {
+                        transactionService.createWithdrawalTransaction(DepositWithdrawalRequest.builder()
+                                .iban(iban)
+                                .amount("10.00")
+                                .currency(CurrencyEnum.EUR)
+                                .transactionType(TransactionType.WITHDRAWAL)
+                                .transactionSource(TransactionSource.ATM)
+                                .build());
+                        return true;
+                    } catch (InsufficientBalanceException e) {
+                        return false;
+                    }
+                }));
+            }
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+
+            assertEquals(10, succeeded);
+            assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findCurrentBalanceByAccountNumber(iban)));
+            assertTrue(groupCommitExecutor.getCommitCount() - commitsBefore < requests);
+            // Overdrafts are turned away by the balance check, not by rolling back the batch
+            assertEquals(replaysBefore, groupCommitExecutor.getReplayCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void createDepositTransaction_ShouldLookUpExchangeRate_OnCallerThread() {
+        String iban = createAccount(BigDecimal.ZERO);
+        AtomicReference<String> lookupThread = new AtomicReference<>();
+        when(currencyConverterService.getExchangeRate(anyString(), anyString())).thenAnswer(invocation -> {
+            lookupThread.set(Thread.currentThread().getName());
+            return new BigDecimal("0.90");
+        });
+
+        transactionService.createDepositTransaction(iban, CurrencyEnum.USD, new BigDecimal("10.00"), "Deposit",
+                TransactionType.DEPOSIT, TransactionSource.ATM);
+
+        assertEquals(Thread.currentThread().getName(), lookupThread.get());
+        assertEquals(0, new BigDecimal("9.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(iban)));
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldRejectUncoveredCreditTransfer_WithoutReplayingBatch() {
+        String customer = createAccount(BigDecimal.ZERO);
+        String counterparty = createAccount(new BigDecimal("5.00"));
+        double replaysBefore = groupCommitExecutor.getReplayCount();
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.createFundTransferTransaction(FundTransferRequest.builder()
+                .customerAccountNumber(customer)
+                .transactingAccountNumber(counterparty)
+                .transactingAccountBIC("DEUTDEFF")
+                .amount("10.00")
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.CREDIT)
+                .build()));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findCurrentBalanceByAccountNumber(customer)));
+        assertEquals(0, new BigDecimal("5.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(counterparty)));
+        assertEquals(replaysBefore, groupCommitExecutor.getReplayCount());
+    }
+
+    private String createAccount(BigDecimal balance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Group Commit")
+                .currentBalance(balance)
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+}
@@ -0,0 +1,166 @@
+package com.finadem.service;
+
+import com.finadem.configurations.CacheConfiguration;
+import com.finadem.configurations.IdempotencyConfig;
+import com.finadem.entity.IdempotencyRecord;
+import com.finadem.exception.exceptions.IdempotencyKeyReusedException;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.exception.exceptions.InvalidIdempotencyKeyException;
+import com.finadem.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceImplTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private IdempotencyConfig idempotencyConfig;
+
+    private final AtomicInteger bookings = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(idempotencyConfig.getWaitMillis()).thenReturn(5_000L);
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyServiceImpl(idempotencyRecordRepository,
+                new ConcurrentMapCacheManager(CacheConfiguration.IDEMPOTENCY_CACHE), idempotencyConfig);
+    }
+
+    // Books and runs the record insert in the booking's transaction, as the engines do
+    private void book(Runnable inTransaction) {
+        bookings.incrementAndGet();
+        inTransaction.run();
+    }
+
+    @Test
+    void execute_ShouldBookOnce_AndReplayRetriesFromMemory() {
+        IdempotencyService idempotencyService = newService();
+
+        IdempotencyService.IdempotentResult first = idempotencyService.execute("key-1", "deposit", "request", "Deposit Successful.", this::book);
+        IdempotencyService.IdempotentResult retry = idempotencyService.execute("key-1", "deposit", "request", "Deposit Successful.", this::book);
+
+        assertEquals(new IdempotencyService.IdempotentResult("Deposit Successful.", false), first);
+        assertEquals(new IdempotencyService.IdempotentResult("Deposit Successful.", true), retry);
+        assertEquals(1, bookings.get());
+        verify(idempotencyRecordRepository, times(1)).insertRecord(eq("key-1"), any(), eq("Deposit Successful."), any());
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void execute_ShouldReplayFromTable_WhenResponseIsNoLongerInMemory() {
+        newService().execute("key-1", "deposit", "request", "Deposit Successful.", this::book);
+        ArgumentCaptor<byte[]> requestHash = ArgumentCaptor.forClass(byte[].class);
+        verify(idempotencyRecordRepository).insertRecord(eq("key-1"), requestHash.capture(), any(), any());
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(
+                new IdempotencyRecord("key-1", requestHash.getValue(), "Deposit Successful.", LocalDateTime.now())));
+
+        IdempotencyService.IdempotentResult retry = newService().execute("key-1", "deposit", "request", "Deposit Successful.", this::book);
+
+        assertTrue(retry.replayed());
+        assertEquals(1, bookings.get());
+    }
+
+    @Test
+    void execute_ShouldRejectKey_WhenReusedForDifferentRequest() {
+        IdempotencyService idempotencyService = newService();
+        idempotencyService.execute("key-1", "deposit", "request", "Deposit Successful.", this::book);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("key-1", "deposit", "other request", "Deposit Successful.", this::book));
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("key-1", "withdraw", "request", "Deposit Successful.", this::book));
+        assertThrows(InvalidIdempotencyKeyException.class, () -> idempotencyService.execute(" ", "deposit", "request", "Deposit Successful.", this::book));
+        assertEquals(1, bookings.get());
+    }
+
+    @Test
+    void execute_ShouldNotRecordFailedBooking() {
+        IdempotencyService idempotencyService = newService();
+
+        assertThrows(InsufficientBalanceException.class, () -> idempotencyService.execute("key-1", "withdraw", "request", "Withdrawal successful.", inTransaction -> {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }));
+        IdempotencyService.IdempotentResult retry = idempotencyService.execute("key-1", "withdraw", "request", "Withdrawal successful.", this::book);
+
+        assertFalse(retry.replayed());
+        assertEquals(1, bookings.get());
+    }
+
+    @Test
+    void execute_ShouldRecordResponse_OnlyInBookingTransaction() {
+        IdempotencyService idempotencyService = newService();
+
+        // A booking that never ran the insert, as one rolled back before it would
+        idempotencyService.execute("key-1", "deposit", "request", "Deposit Successful.", inTransaction -> bookings.incrementAndGet());
+
+        verify(idempotencyRecordRepository, never()).insertRecord(any(), any(), any(), any());
+    }
+
+    @Test
+    void execute_ShouldReplayConcurrentRecord_WhenInsertRollsBookingBack() {
+        IdempotencyService idempotencyService = newService();
+        ArgumentCaptor<byte[]> requestHash = ArgumentCaptor.forClass(byte[].class);
+        // Another instance booked and recorded the key after this one looked it up
+        when(idempotencyRecordRepository.insertRecord(eq("key-1"), requestHash.capture(), any(), any())).thenAnswer(invocation -> {
+            when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(
+                    new IdempotencyRecord("key-1", requestHash.getValue(), "Deposit Successful.", LocalDateTime.now())));
+            throw new DataIntegrityViolationException("Unique index or primary key violation");
+        });
+
+        IdempotencyService.IdempotentResult result = idempotencyService.execute("key-1", "deposit", "request", "Deposit Successful.", this::book);
+
+        assertTrue(result.replayed());
+        assertEquals("Deposit Successful.", result.body());
+    }
+
+    @Test
+    void execute_ShouldLetConcurrentDuplicatesWaitForFirstExecution() throws Exception {
+        IdempotencyService idempotencyService = newService();
+        CountDownLatch bookingStarted = new CountDownLatch(1);
+        CountDownLatch releaseBooking = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<IdempotencyService.IdempotentResult> first = executor.submit(() -> idempotencyService.execute("key-1", "transfer", "request", "Deposit Successful.", inTransaction -> {
+                bookingStarted.countDown();
+                try {
+                    releaseBooking.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                book(inTransaction);
+            }));
+            assertTrue(bookingStarted.await(5, TimeUnit.SECONDS));
+            List<Future<IdempotencyService.IdempotentResult>> duplicates = List.of(
+                    executor.submit(() -> idempotencyService.execute("key-1", "transfer", "request", "Deposit Successful.", this::book)),
+                    executor.submit(() -> idempotencyService.execute("key-1", "transfer", "request", "Deposit Successful.", this::book)));
+            releaseBooking.countDown();
+
+            assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+            for (Future<IdempotencyService.IdempotentResult> duplicate : duplicates) {
+                assertTrue(duplicate.get(5, TimeUnit.SECONDS).replayed());
+            }
+            assertEquals(1, bookings.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
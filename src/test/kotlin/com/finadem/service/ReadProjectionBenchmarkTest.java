@@ -0,0 +1,130 @@
+package com.finadem.service;
+
+import com.finadem.entity.Account;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.AccountDataResponse;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares bytes allocated and latency per read for the former entity reads in read-write
+ * transactions and the record projections in read-only transactions, for a 100 row history page and
+ * an account balance lookup. Reads go to the repositories directly, past the account cache.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ReadProjectionBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(ReadProjectionBenchmarkTest.class);
+    private static final int PAGE_SIZE = 100;
+    private static final int WARM_UP = 2_000;
+    private static final int RUNS = 5_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private record Measurement(long bytesPerRead, long microsPerRead) {
+    }
+
+    @Test
+    void projections_ShouldAllocateLessAndReadFaster_ThanManagedEntities() {
+        String iban = accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Projection")
+                .currentBalance(new BigDecimal("100.00"))
+                .currency(CurrencyEnum.EUR)
+                .build());
+        seed(iban);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Measurement historyBefore = measure(() -> readWrite.execute(status -> entityManager
+                .createQuery("FROM Transaction t WHERE t.iban = :iban ORDER BY t.timestamp DESC, t.transactionId DESC", Transaction.class)
+                .setParameter("iban", iban)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList()));
+        Measurement historyAfter = measure(() -> readOnly.execute(status ->
+                transactionRepository.findLatestTransactions(iban, Limit.of(PAGE_SIZE))));
+        Measurement balanceBefore = measure(() -> readWrite.execute(status -> {
+            Account account = accountRepository.findAccountInformationByAccountNumber(iban);
+            AccountDataRequest accountData = new AccountDataRequest(account.getCustomerId(), account.getIban(), account.getAccountHolderName(),
+                    account.getTaxId(), account.getCurrency(), account.getCurrentBalance(), account.getStatus());
+            return List.of(new AccountDataResponse(iban, accountData.getCurrentBalance(), accountData.getCurrency()));
+        }));
+        Measurement balanceAfter = measure(() -> readOnly.execute(status -> {
+            AccountDataRequest accountData = accountRepository.findAccountDataByAccountNumber(iban).account();
+            return List.of(new AccountDataResponse(iban, accountData.getCurrentBalance(), accountData.getCurrency()));
+        }));
+
+        logger.info("history page of {}: entities {} B / {} us, projection {} B / {} us", PAGE_SIZE,
+                historyBefore.bytesPerRead(), historyBefore.microsPerRead(), historyAfter.bytesPerRead(), historyAfter.microsPerRead());
+        logger.info("account balance: entity {} B / {} us, projection {} B / {} us",
+                balanceBefore.bytesPerRead(), balanceBefore.microsPerRead(), balanceAfter.bytesPerRead(), balanceAfter.microsPerRead());
+    }
+
+    private void seed(String iban) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            transactions.add(Transaction.builder()
+                    .iban(iban)
+                    .transactingAccount(iban)
+                    .amount(BigDecimal.ONE)
+                    .type(TransactionType.DEPOSIT)
+                    .source(TransactionSource.ATM)
+                    .status(TransactionStatus.SUCCESS)
+                    .currency(CurrencyEnum.EUR)
+                    .transactionRemarks("Deposit " + i)
+                    .timestamp(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i))
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    private Measurement measure(Supplier<List<?>> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARM_UP; i++) {
+            read.get();
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            assertEquals(false, read.get().isEmpty());
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new Measurement(bytes / RUNS, nanos / RUNS / 1_000);
+    }
+}
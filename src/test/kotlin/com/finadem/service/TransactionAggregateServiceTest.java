@@ -0,0 +1,145 @@
+package com.finadem.service;
+
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.exception.exceptions.IbanNotFoundException;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransactionSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionAggregateServiceTest {
+
+    @Autowired
+    private TransactionAggregateService transactionAggregateService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private FundTransferBatchService fundTransferBatchService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final YearMonth thisMonth = YearMonth.now();
+
+    private String createAccount(String openingBalance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Aggregate")
+                .currentBalance(new BigDecimal(openingBalance))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    private void deposit(String iban, String amount) {
+        transactionService.createDepositTransaction(iban, CurrencyEnum.EUR, new BigDecimal(amount), null,
+                TransactionType.DEPOSIT, TransactionSource.ATM);
+    }
+
+    private void withdraw(String iban, String amount) {
+        transactionService.createWithdrawalTransaction(DepositWithdrawalRequest.builder()
+                .iban(iban)
+                .amount(amount)
+                .currency(CurrencyEnum.EUR)
+                .transactionType(TransactionType.WITHDRAWAL)
+                .transactionSource(TransactionSource.ATM)
+                .build());
+    }
+
+    private FundTransferRequest transfer(String customerIban, String recipientIban, String amount) {
+        return FundTransferRequest.builder()
+                .customerAccountNumber(customerIban)
+                .transactingAccountNumber(recipientIban)
+                .transactingAccountBIC("COBADEFFXXX")
+                .amount(amount)
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEBIT)
+                .build();
+    }
+
+    private static TransactionSummary find(List<TransactionSummary> summary, YearMonth month, TransactionType type,
+                                           TransactionSource source) {
+        return summary.stream()
+                .filter(bucket -> bucket.month().equals(month) && bucket.type() == type && bucket.source() == source)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No bucket " + month + " " + type + " " + source + " in " + summary));
+    }
+
+    private static void assertBucket(List<TransactionSummary> summary, YearMonth month, TransactionType type, TransactionSource source,
+                                     long count, String total) {
+        TransactionSummary bucket = find(summary, month, type, source);
+        assertEquals(count, bucket.transactionCount());
+        assertEquals(0, new BigDecimal(total).compareTo(bucket.totalAmount()), () -> "Total of " + bucket);
+    }
+
+    @Test
+    void getSummary_ShouldCountAndSumBookings_PerTypeAndSource() {
+        String iban = createAccount("100.00");
+        String recipient = createAccount("0.00");
+        deposit(iban, "50.00");
+        deposit(iban, "25.00");
+        withdraw(iban, "30.00");
+        transactionService.createFundTransferTransaction(transfer(iban, recipient, "20.00"));
+        fundTransferBatchService.createFundTransfers(List.of(transfer(iban, recipient, "5.00"), transfer(iban, recipient, "5.00")));
+
+        List<TransactionSummary> summary = transactionAggregateService.getSummary(iban, thisMonth, thisMonth);
+
+        assertEquals(3, summary.size());
+        assertBucket(summary, thisMonth, TransactionType.DEPOSIT, TransactionSource.ATM, 2, "75.00");
+        assertBucket(summary, thisMonth, TransactionType.WITHDRAWAL, TransactionSource.ATM, 1, "30.00");
+        assertBucket(summary, thisMonth, TransactionType.DEBIT, TransactionSource.ONLINE_FUND_TRANSFER, 3, "30.00");
+        assertBucket(transactionAggregateService.getSummary(recipient, thisMonth, thisMonth),
+                thisMonth, TransactionType.CREDIT, TransactionSource.ONLINE_FUND_TRANSFER, 3, "30.00");
+        assertTrue(transactionAggregateService.getSummary(iban, thisMonth.minusMonths(3), thisMonth.minusMonths(1)).isEmpty());
+    }
+
+    @Test
+    void getSummary_ShouldThrow_WhenAccountDoesNotExist() {
+        assertThrows(IbanNotFoundException.class,
+                () -> transactionAggregateService.getSummary("DE00000000000000000099", thisMonth, thisMonth));
+    }
+
+    @Test
+    void rebuildAggregates_ShouldMatchIncrementalAggregates_AndIncludeRowsSavedDirectly() {
+        String iban = createAccount("0.00");
+        deposit(iban, "40.00");
+        withdraw(iban, "15.00");
+        List<TransactionSummary> incremental = transactionAggregateService.getSummary(iban, thisMonth.minusMonths(2), thisMonth);
+        // Saved without going through the booking path, e.g. by a data correction
+        transactionRepository.save(Transaction.builder()
+                .iban(iban)
+                .transactingAccount(iban)
+                .amount(new BigDecimal("12.50"))
+                .type(TransactionType.DEPOSIT)
+                .source(TransactionSource.BANK_COUNTER)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR)
+                .timestamp(LocalDateTime.now().minusMonths(2))
+                .build());
+
+        assertTrue(transactionAggregateService.rebuildAggregates() > 0);
+
+        List<TransactionSummary> rebuilt = transactionAggregateService.getSummary(iban, thisMonth.minusMonths(2), thisMonth);
+        assertEquals(incremental.size() + 1, rebuilt.size());
+        assertTrue(rebuilt.containsAll(incremental), () -> incremental + " not in " + rebuilt);
+        assertBucket(rebuilt, thisMonth, TransactionType.DEPOSIT, TransactionSource.ATM, 1, "40.00");
+        assertBucket(rebuilt, thisMonth, TransactionType.WITHDRAWAL, TransactionSource.ATM, 1, "15.00");
+        assertBucket(rebuilt, thisMonth.minusMonths(2), TransactionType.DEPOSIT, TransactionSource.BANK_COUNTER, 1, "12.50");
+    }
+}
@@ -0,0 +1,153 @@
+package com.finadem.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finadem.archive.TransactionArchive;
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.TransactionView;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class TransactionExportServiceImplTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private static final int ROWS_IN_RANGE = 1_200;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private TransactionArchive transactionArchive;
+
+    private String iban;
+
+    @BeforeEach
+    void setUp() {
+        iban = accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Export")
+                .currentBalance(BigDecimal.ZERO)
+                .currency(CurrencyEnum.EUR)
+                .build());
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ROWS_IN_RANGE; i++) {
+            transactions.add(transaction(START.plusMinutes(i), i == 0 ? "Rent, \"March\"" : "Deposit " + i));
+        }
+        transactions.add(transaction(START.minusDays(1), "Before range"));
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Test
+    void exportTransactionHistory_ShouldWriteCsvRowsOldestFirst_WithQuotedRemarks() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = transactionExportService.exportTransactionHistory(iban, START, START.plusDays(1), ExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ROWS_IN_RANGE, rows);
+        assertEquals(ROWS_IN_RANGE + 1, lines.length);
+        assertTrue(lines[0].startsWith("transactionId,iban,"));
+        assertTrue(lines[1].endsWith(",2024-03-01T00:00,\"Rent, \"\"March\"\"\""), lines[1]);
+        assertTrue(lines[ROWS_IN_RANGE].endsWith(",Deposit " + (ROWS_IN_RANGE - 1)));
+    }
+
+    @Test
+    void exportTransactionHistory_ShouldWriteOneJsonDocumentPerLine() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        transactionExportService.exportTransactionHistory(iban, START, START.plusDays(1), ExportFormat.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ROWS_IN_RANGE, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(iban, first.get("iban").asText());
+        assertEquals("Rent, \"March\"", first.get("transactionRemarks").asText());
+        assertEquals("Deposit 1", objectMapper.readTree(lines[1]).get("transactionRemarks").asText());
+    }
+
+    @Test
+    void exportTransactionHistory_ShouldNotKeepExportedRowsInPersistenceContext() {
+        int managedEntities = transactionTemplate.execute(status -> {
+            try {
+                transactionExportService.exportTransactionHistory(iban, START, START.plusDays(1), ExportFormat.CSV, new ByteArrayOutputStream());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        });
+
+        assertEquals(0, managedEntities);
+    }
+
+    @Test
+    void exportTransactionHistory_ShouldMergeArchivedRowsInOrder_WhenRangeReachesIntoArchive() throws IOException {
+        LocalDateTime start = START.minusMonths(1);
+        Transaction inBothTiers = transactionRepository.findAll().stream()
+                .filter(transaction -> iban.equals(transaction.getIban()) && START.equals(transaction.getTimestamp()))
+                .findFirst().orElseThrow();
+        TransactionView archived = new TransactionView(-1L, iban, null, new BigDecimal("5.00"), TransactionType.DEPOSIT,
+                TransactionStatus.SUCCESS, TransactionSource.ATM, "Archived", CurrencyEnum.EUR, START.minusDays(10));
+        TransactionView archivedCopy = new TransactionView(inBothTiers.getTransactionId(), iban, iban, inBothTiers.getAmount(),
+                TransactionType.DEPOSIT, TransactionStatus.SUCCESS, TransactionSource.ATM, "Rent, \"March\"", CurrencyEnum.EUR, START);
+        when(transactionArchive.getArchivedBefore()).thenReturn(START.withDayOfMonth(1));
+        when(transactionArchive.read(iban, start, START.plusDays(1))).thenReturn(List.of(archived, archivedCopy));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = transactionExportService.exportTransactionHistory(iban, start, START.plusDays(1), ExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ROWS_IN_RANGE + 2, rows);
+        assertTrue(lines[1].endsWith(",Archived"), lines[1]);
+        assertTrue(lines[2].endsWith(",Before range"), lines[2]);
+        assertTrue(lines[3].startsWith(inBothTiers.getTransactionId() + ","), lines[3]);
+        assertTrue(lines[4].endsWith(",Deposit 1"), lines[4]);
+    }
+
+    private Transaction transaction(LocalDateTime timestamp, String remarks) {
+        return Transaction.builder()
+                .iban(iban)
+                .transactingAccount(iban)
+                .amount(new BigDecimal("10.00"))
+                .type(TransactionType.DEPOSIT)
+                .source(TransactionSource.ATM)
+                .status(TransactionStatus.SUCCESS)
+                .currency(CurrencyEnum.EUR)
+                .transactionRemarks(remarks)
+                .timestamp(timestamp)
+                .build();
+    }
+}
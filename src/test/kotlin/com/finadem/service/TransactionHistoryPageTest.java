@@ -0,0 +1,95 @@
+package com.finadem.service;
+
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.exception.exceptions.InvalidCursorException;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.response.TransactionHistoryPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionHistoryPageTest {
+    private static final int TRANSACTIONS = 45;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    private String iban;
+
+    private List<Long> newestFirst;
+
+    @BeforeEach
+    void setUp() {
+        iban = accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("History")
+                .currentBalance(BigDecimal.ZERO)
+                .currency(CurrencyEnum.EUR)
+                .build());
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 0);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            // Groups of three share a timestamp, so pages have to break ties on the id
+            transactions.add(Transaction.builder()
+                    .iban(iban)
+                    .transactingAccount(iban)
+                    .amount(BigDecimal.ONE)
+                    .type(TransactionType.DEPOSIT)
+                    .source(TransactionSource.ATM)
+                    .status(TransactionStatus.SUCCESS)
+                    .currency(CurrencyEnum.EUR)
+                    .timestamp(start.plusMinutes(i / 3))
+                    .build());
+        }
+        newestFirst = transactionRepository.saveAll(transactions).stream()
+                .sorted(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getTransactionId).reversed())
+                .map(Transaction::getTransactionId)
+                .toList();
+    }
+
+    @Test
+    void getTransactionHistoryPage_ShouldWalkWholeHistoryNewestFirst_WithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionHistoryPage page = transactionService.getTransactionHistoryPage(iban, cursor, 20);
+            page.getTransactions().forEach(transaction -> seen.add(transaction.transactionId()));
+            pageSizes.add(page.getTransactions().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(20, 20, 5), pageSizes);
+        assertEquals(newestFirst, seen);
+    }
+
+    @Test
+    void getTransactionHistoryPage_ShouldReturnNoNextCursor_WhenHistoryFitsOnePage() {
+        TransactionHistoryPage page = transactionService.getTransactionHistoryPage(iban, null, TRANSACTIONS);
+
+        assertEquals(TRANSACTIONS, page.getTransactions().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getTransactionHistoryPage_ShouldRejectCursor_WhenItWasNotIssuedByUs() {
+        assertThrows(InvalidCursorException.class, () -> transactionService.getTransactionHistoryPage(iban, "not-a-cursor", 20));
+    }
+}
@@ -0,0 +1,99 @@
+package com.finadem.service;
+
+import com.finadem.entity.Transaction;
+import com.finadem.enums.*;
+import com.finadem.helper.TransactionCursor;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.response.TransactionView;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the latency of page 1 and page 10,000 of an account's history for offset pagination with
+ * a count, as behind the former /history/{iban}/{n}, and for keyset pagination.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class TransactionHistoryPaginationBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionHistoryPaginationBenchmarkTest.class);
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int TRANSACTIONS = PAGE_SIZE * (DEEP_PAGE + 1);
+    private static final int RUNS = 30;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void keysetPagination_ShouldKeepDeepPagesAsFastAsFirstPage() {
+        String iban = "DE89370400440532019999";
+        seed(iban);
+        Transaction beforeDeepPage = transactionRepository.getTransactionByAccountNumber(iban, PageRequest.of(DEEP_PAGE * PAGE_SIZE - 1, 1))
+                .getContent().getFirst();
+        TransactionCursor cursor = new TransactionCursor(beforeDeepPage.getTimestamp(), beforeDeepPage.getTransactionId());
+
+        long offsetFirst = medianMicros(() -> transactionRepository.getTransactionByAccountNumber(iban, PageRequest.of(0, PAGE_SIZE)).getContent());
+        long offsetDeep = medianMicros(() -> transactionRepository.getTransactionByAccountNumber(iban, PageRequest.of(DEEP_PAGE, PAGE_SIZE)).getContent());
+        long keysetFirst = medianMicros(() -> transactionRepository.findLatestTransactions(iban, Limit.of(PAGE_SIZE)));
+        long keysetDeep = medianMicros(() -> transactionRepository.findTransactionsBefore(iban, cursor.timestamp(), cursor.transactionId(), Limit.of(PAGE_SIZE)));
+
+        logger.info("offset pagination: page 1 {} us, page {} {} us", offsetFirst, DEEP_PAGE, offsetDeep);
+        logger.info("keyset pagination: page 1 {} us, page {} {} us", keysetFirst, DEEP_PAGE, keysetDeep);
+        assertEquals(transactionRepository.getTransactionByAccountNumber(iban, PageRequest.of(DEEP_PAGE, PAGE_SIZE)).getContent().stream()
+                        .map(Transaction::getTransactionId).toList(),
+                transactionRepository.findTransactionsBefore(iban, cursor.timestamp(), cursor.transactionId(), Limit.of(PAGE_SIZE)).stream()
+                        .map(TransactionView::transactionId).toList());
+    }
+
+    private void seed(String iban) {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Transaction> chunk = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            chunk.add(Transaction.builder()
+                    .iban(iban)
+                    .transactingAccount(iban)
+                    .amount(BigDecimal.ONE)
+                    .type(TransactionType.DEPOSIT)
+                    .source(TransactionSource.ATM)
+                    .status(TransactionStatus.SUCCESS)
+                    .currency(CurrencyEnum.EUR)
+                    .timestamp(start.plusSeconds(i))
+                    .build());
+            if (chunk.size() == 5_000) {
+                transactionRepository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        transactionRepository.saveAll(chunk);
+    }
+
+    private long medianMicros(Supplier<List<?>> page) {
+        long[] micros = new long[RUNS];
+        for (int warmUp = 0; warmUp < 5; warmUp++) {
+            assertEquals(PAGE_SIZE, page.get().size());
+        }
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            assertEquals(PAGE_SIZE, page.get().size());
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros[RUNS / 2];
+    }
+}
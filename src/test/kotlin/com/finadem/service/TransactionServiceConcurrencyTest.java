@@ -0,0 +1,231 @@
+package com.finadem.service;
+
+import com.finadem.entity.Account;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionSource;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.repository.AccountRepository;
+import com.finadem.repository.IdempotencyRecordRepository;
+import com.finadem.repository.TransactionRepository;
+import com.finadem.request.AccountDataRequest;
+import com.finadem.request.DepositWithdrawalRequest;
+import com.finadem.request.FundTransferRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionServiceConcurrencyTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String createAccount(String balance) {
+        return accountService.createNewAccount(AccountDataRequest.builder()
+                .accountHolderName("Concurrency Test")
+                .currentBalance(new BigDecimal(balance))
+                .currency(CurrencyEnum.EUR)
+                .build());
+    }
+
+    private DepositWithdrawalRequest withdrawal(String iban, String amount) {
+        return DepositWithdrawalRequest.builder()
+                .iban(iban)
+                .amount(amount)
+                .currency(CurrencyEnum.EUR)
+                .transactionType(TransactionType.WITHDRAWAL)
+                .transactionSource(TransactionSource.ATM)
+                .build();
+    }
+
+    private FundTransferRequest transfer(String customerIban, String recipientIban, String amount) {
+        return FundTransferRequest.builder()
+                .customerAccountNumber(customerIban)
+                .transactingAccountNumber(recipientIban)
+                .amount(amount)
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEBIT)
+                .build();
+    }
+
+    private double transferConflicts() {
+        Counter conflicts = meterRegistry.find("transaction.retry.conflicts").tag("method", "createFundTransferTransaction").counter();
+        return conflicts == null ? 0 : conflicts.count();
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldRollBackBooking_WhenWorkInItsTransactionFails() {
+        String customer = createAccount("100.00");
+        String recipient = createAccount("0.00");
+
+        assertThrows(IllegalStateException.class, () -> transactionService.createFundTransferTransaction(
+                transfer(customer, recipient, "40.00"), () -> {
+                    throw new IllegalStateException("outcome not recorded");
+                }));
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(customer)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findCurrentBalanceByAccountNumber(recipient)));
+    }
+
+    @Test
+    void createWithdrawalTransaction_ShouldRollBackBooking_WhenIdempotencyKeyIsRecordedConcurrently() {
+        String iban = createAccount("100.00");
+        String idempotencyKey = "concurrency-" + iban;
+        byte[] requestHash = new byte[32];
+        // Recorded by another instance after this one found the key unused
+        idempotencyRecordRepository.insertRecord(idempotencyKey, requestHash, "Withdrawal successful.", LocalDateTime.now());
+
+        assertThrows(DataIntegrityViolationException.class, () -> transactionService.createWithdrawalTransaction(withdrawal(iban, "40.00"),
+                () -> idempotencyRecordRepository.insertRecord(idempotencyKey, requestHash, "Withdrawal successful.", LocalDateTime.now())));
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(iban)));
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldNotDeadlock_WhenTransfersCrossBetweenAccounts() throws Exception {
+        List<String> ibans = List.of(createAccount("10000.00"), createAccount("10000.00"), createAccount("10000.00"));
+        BigDecimal totalBefore = new BigDecimal("30000.00");
+        double conflictsBefore = transferConflicts();
+        int threads = 12;
+        int transfersPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // Every pair of accounts is used in both directions by different threads
+                String from = ibans.get(i % 3);
+                String to = ibans.get((i + 1 + i / 3 % 2) % 3);
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < transfersPerThread; j++) {
+                        transactionService.createFundTransferTransaction(transfer(from, to, "1.25"));
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        BigDecimal totalAfter = ibans.stream()
+                .map(accountRepository::findCurrentBalanceByAccountNumber)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, totalBefore.compareTo(totalAfter));
+        assertEquals(conflictsBefore, transferConflicts(), "no transfer should have hit a deadlock or lock timeout");
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldLeaveBalancesUnchanged_WhenSenderHasInsufficientBalance() {
+        String sender = createAccount("10.00");
+        String recipient = createAccount("0.00");
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.createFundTransferTransaction(transfer(sender, recipient, "10.01")));
+
+        assertEquals(0, new BigDecimal("10.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(sender)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findCurrentBalanceByAccountNumber(recipient)));
+    }
+
+    @Test
+    void createWithdrawalTransaction_ShouldNotLoseUpdates_WhenRunInParallelOnOneIban() throws Exception {
+        String iban = createAccount("1000.00");
+        int threads = 8;
+        int withdrawalsPerThread = 50;
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < withdrawalsPerThread; j++) {
+                        try {
+                            transactionService.createWithdrawalTransaction(withdrawal(iban, "3.00"));
+                        } catch (InsufficientBalanceException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // 400 attempts of 3.00 against 1000.00: exactly 333 succeed and 1.00 is left
+        assertEquals(0, new BigDecimal("1.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(iban)));
+        assertEquals(threads * withdrawalsPerThread - 333, rejected.get());
+        assertEquals(333, transactionRepository.getTransactionByAccountNumber(iban, Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void save_ShouldFailVersionCheck_WhenEntityIsStale() {
+        String iban = createAccount("100.00");
+        Account stale = accountRepository.findAccountInformationByAccountNumber(iban);
+
+        accountService.applyBalanceDelta(iban, new BigDecimal("-40.00"));
+        stale.setCurrentBalance(new BigDecimal("500.00"));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> accountRepository.save(stale));
+        assertEquals(0, new BigDecimal("60.00").compareTo(accountRepository.findCurrentBalanceByAccountNumber(iban)));
+    }
+
+    @Test
+    void applyBalanceDelta_ShouldKeepCallersEntitiesManaged_AndRefreshTheUpdatedAccount() {
+        String updatedIban = createAccount("100.00");
+        String otherIban = createAccount("100.00");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Account updated = accountRepository.findAccountInformationByAccountNumber(updatedIban);
+            Account other = accountRepository.findAccountInformationByAccountNumber(otherIban);
+            other.setAccountHolderName("Renamed");
+
+            accountService.applyBalanceDelta(updatedIban, new BigDecimal("-40.00"));
+
+            assertEquals(0, new BigDecimal("60.00").compareTo(updated.getCurrentBalance()));
+            // Still managed, so the change made before the delta is not lost
+            other.setTaxId("TAX-AFTER");
+        });
+
+        Account other = accountRepository.findAccountInformationByAccountNumber(otherIban);
+        assertEquals("Renamed", other.getAccountHolderName());
+        assertEquals("TAX-AFTER", other.getTaxId());
+    }
+}
@@ -1,25 +1,30 @@
 package com.finadem.service;
 
+import com.finadem.archive.TransactionArchive;
 import com.finadem.entity.Transaction;
 import com.finadem.enums.*;
 import com.finadem.exception.exceptions.*;
+import com.finadem.helper.TransactionCursor;
+import com.finadem.journal.JournalRecorder;
 import com.finadem.repository.TransactionRepository;
 import com.finadem.request.AccountDataRequest;
 import com.finadem.request.DepositWithdrawalRequest;
 import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransactionHistoryPage;
+import com.finadem.response.TransactionView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.transaction.NoTransactionException;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +40,15 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransactionAggregateService transactionAggregateService;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private JournalRecorder journalRecorder;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -48,17 +62,17 @@ class TransactionServiceImplTest {
         // Arrange
         String iban = "IBAN123";
         int lastNTransactions = 5;
-        Pageable pageable = PageRequest.of(0, lastNTransactions);
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(new Transaction());
-        when(transactionRepository.getTransactionByAccountNumber(iban, pageable)).thenReturn(new PageImpl<>(transactions));
+        List<TransactionView> transactions = new ArrayList<>();
+        transactions.add(new TransactionView(1L, iban, iban, BigDecimal.TEN, TransactionType.DEPOSIT, TransactionStatus.SUCCESS,
+                TransactionSource.ATM, null, CurrencyEnum.EUR, null));
+        when(transactionRepository.findLatestTransactions(iban, Limit.of(lastNTransactions))).thenReturn(transactions);
 
         // Act
-        List<Transaction> result = transactionService.getLastNTransactionHistory(iban, lastNTransactions);
+        List<TransactionView> result = transactionService.getLastNTransactionHistory(iban, lastNTransactions);
 
         // Assert
         assertEquals(1, result.size());
-        verify(transactionRepository, times(1)).getTransactionByAccountNumber(iban, pageable);
+        verify(transactionRepository, times(1)).findLatestTransactions(iban, Limit.of(lastNTransactions));
     }
 
     @Test
@@ -66,28 +80,155 @@ class TransactionServiceImplTest {
         // Arrange
         String iban = "IBAN123";
         int lastNTransactions = 5;
-        Pageable pageable = PageRequest.of(0, lastNTransactions);
-        when(transactionRepository.getTransactionByAccountNumber(iban, pageable)).thenReturn(new PageImpl<>(new ArrayList<>()));
+        when(transactionRepository.findLatestTransactions(iban, Limit.of(lastNTransactions))).thenReturn(new ArrayList<>());
 
         // Act & Assert
         assertThrows(NoTransactionException.class, () -> transactionService.getLastNTransactionHistory(iban, lastNTransactions));
     }
 
+    @Test
+    void getTransactionHistoryBetween_ShouldMergeArchivedTransactions_WhenRangeReachesIntoArchive() {
+        // Arrange
+        String iban = "IBAN123";
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 12, 31, 23, 59, 59);
+        TransactionView hot = view(3L, iban, LocalDateTime.of(2024, 11, 2, 10, 0));
+        TransactionView stillInBothTiers = view(2L, iban, LocalDateTime.of(2024, 3, 5, 10, 0));
+        TransactionView archived = view(1L, iban, LocalDateTime.of(2024, 2, 1, 10, 0));
+        when(transactionRepository.getTransactionHistoryBetween(iban, start, end)).thenReturn(List.of(hot, stillInBothTiers));
+        when(transactionArchive.getArchivedBefore()).thenReturn(LocalDateTime.of(2024, 4, 1, 0, 0));
+        when(transactionArchive.read(iban, start, end)).thenReturn(List.of(archived, stillInBothTiers));
+
+        // Act
+        List<TransactionView> result = transactionService.getTransactionHistoryBetween(iban, start, end);
+
+        // Assert
+        assertEquals(List.of(hot, stillInBothTiers, archived), result);
+    }
+
+    @Test
+    void getTransactionHistoryBetween_ShouldNotReadArchive_WhenRangeStartsAfterIt() {
+        // Arrange
+        String iban = "IBAN123";
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 12, 31, 23, 59, 59);
+        when(transactionRepository.getTransactionHistoryBetween(iban, start, end))
+                .thenReturn(List.of(view(3L, iban, LocalDateTime.of(2024, 11, 2, 10, 0))));
+        when(transactionArchive.getArchivedBefore()).thenReturn(LocalDateTime.of(2024, 4, 1, 0, 0));
+
+        // Act
+        transactionService.getTransactionHistoryBetween(iban, start, end);
+
+        // Assert
+        verify(transactionArchive, never()).read(anyString(), any(), any());
+    }
+
+    @Test
+    void getLastNTransactionHistory_ShouldFillUpFromArchive_WhenTableHasFewerRows() {
+        // Arrange
+        String iban = "IBAN123";
+        TransactionView hot = view(3L, iban, LocalDateTime.of(2024, 11, 2, 10, 0));
+        TransactionView archived = view(1L, iban, LocalDateTime.of(2024, 2, 1, 10, 0));
+        when(transactionRepository.findLatestTransactions(iban, Limit.of(5))).thenReturn(List.of(hot));
+        when(transactionArchive.getArchivedBefore()).thenReturn(LocalDateTime.of(2024, 4, 1, 0, 0));
+        when(transactionArchive.readBefore(iban, LocalDateTime.MAX, Long.MAX_VALUE, 5)).thenReturn(List.of(archived));
+
+        // Act
+        List<TransactionView> result = transactionService.getLastNTransactionHistory(iban, 5);
+
+        // Assert
+        assertEquals(List.of(hot, archived), result);
+    }
+
+    @Test
+    void getTransactionHistoryPage_ShouldContinueIntoArchive_AfterLastTableRow() {
+        // Arrange
+        String iban = "IBAN123";
+        TransactionView hot = view(3L, iban, LocalDateTime.of(2024, 11, 2, 10, 0));
+        TransactionView stillInBothTiers = view(2L, iban, LocalDateTime.of(2024, 3, 5, 10, 0));
+        TransactionView archived = view(1L, iban, LocalDateTime.of(2024, 2, 1, 10, 0));
+        String cursor = TransactionCursor.after(hot).encode();
+        when(transactionRepository.findTransactionsBefore(iban, hot.timestamp(), 3L, Limit.of(3))).thenReturn(List.of(stillInBothTiers));
+        when(transactionArchive.getArchivedBefore()).thenReturn(LocalDateTime.of(2024, 4, 1, 0, 0));
+        when(transactionArchive.readBefore(iban, hot.timestamp(), 3L, 3)).thenReturn(List.of(stillInBothTiers, archived));
+
+        // Act
+        TransactionHistoryPage page = transactionService.getTransactionHistoryPage(iban, cursor, 2);
+
+        // Assert
+        assertEquals(List.of(stillInBothTiers, archived), page.getTransactions());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getTransactionHistoryPage_ShouldNotReadArchive_WhenPageEndsAfterIt() {
+        // Arrange
+        String iban = "IBAN123";
+        List<TransactionView> newest = List.of(view(3L, iban, LocalDateTime.of(2024, 11, 2, 10, 0)),
+                view(2L, iban, LocalDateTime.of(2024, 10, 2, 10, 0)));
+        when(transactionRepository.findLatestTransactions(iban, Limit.of(2))).thenReturn(newest);
+        when(transactionArchive.getArchivedBefore()).thenReturn(LocalDateTime.of(2024, 4, 1, 0, 0));
+
+        // Act
+        transactionService.getTransactionHistoryPage(iban, null, 1);
+
+        // Assert
+        verify(transactionArchive, never()).readBefore(anyString(), any(), anyLong(), anyInt());
+    }
+
+    private static TransactionView view(Long transactionId, String iban, LocalDateTime timestamp) {
+        return new TransactionView(transactionId, iban, iban, BigDecimal.TEN, TransactionType.DEPOSIT, TransactionStatus.SUCCESS,
+                TransactionSource.ATM, null, CurrencyEnum.EUR, timestamp);
+    }
+
     @Test
     void createDepositTransaction_ShouldCreateTransaction_WhenValidRequest() {
         // Arrange
         String iban = "IBAN123";
         BigDecimal amount = new BigDecimal("100.00");
-        AccountDataRequest accountDataRequest = new AccountDataRequest();
-        accountDataRequest.setCurrentBalance(new BigDecimal("500.00"));
-        when(accountService.getAccountInformationByAccountNumber(iban)).thenReturn(accountDataRequest);
+        when(accountService.applyBalanceDelta(iban, amount)).thenReturn(new BigDecimal("600.00"));
+
+        // Act
+        transactionService.createDepositTransaction(iban, CurrencyEnum.EUR, amount, "Deposit Test", TransactionType.DEPOSIT, TransactionSource.ATM);
+
+        // Assert
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionAggregateService, times(1)).recordTransactions(argThat(rows -> rows.size() == 1));
+        verify(accountService, times(1)).applyBalanceDelta(iban, new BigDecimal("100.00"));
+        verify(accountService, never()).createNewAccount(any(AccountDataRequest.class));
+        verify(journalRecorder, times(1)).record(any(Transaction.class), eq(amount));
+    }
+
+    @Test
+    void createDepositTransaction_ShouldCreditConvertedAmount_WhenCurrencyIsNotEur() {
+        // Arrange
+        String iban = "IBAN123";
+        when(currencyConverterService.getExchangeRate("EUR", "USD")).thenReturn(new BigDecimal("0.5"));
+        when(accountService.applyBalanceDelta(iban, new BigDecimal("50.000"))).thenReturn(new BigDecimal("550.00"));
+
+        // Act
+        transactionService.createDepositTransaction(iban, CurrencyEnum.USD, new BigDecimal("100.00"), "Deposit Test", TransactionType.DEPOSIT, TransactionSource.ATM);
+
+        // Assert
+        verify(accountService, times(1)).applyBalanceDelta(iban, new BigDecimal("50.000"));
+        verify(transactionRepository, times(1)).save(argThat(transaction -> new BigDecimal("50.000").equals(transaction.getAmount())));
+    }
+
+    @Test
+    void createDepositTransaction_ShouldCreateAccount_WhenAccountDoesNotExist() {
+        // Arrange
+        String iban = "IBAN123";
+        BigDecimal amount = new BigDecimal("100.00");
+        when(accountService.applyBalanceDelta(iban, amount)).thenReturn(null);
 
         // Act
         transactionService.createDepositTransaction(iban, CurrencyEnum.EUR, amount, "Deposit Test", TransactionType.DEPOSIT, TransactionSource.ATM);
 
         // Assert
+        verify(accountService, times(1)).createNewAccount(argThat(account -> BigDecimal.ZERO.equals(account.getCurrentBalance())));
+        verify(accountService, times(2)).applyBalanceDelta(iban, amount);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
-        verify(accountService, times(1)).updateAccountBalance(iban, new BigDecimal("600.00"));
+        verify(journalRecorder, times(1)).record(any(Transaction.class), eq(amount));
     }
 
     @Test
@@ -100,16 +241,15 @@ class TransactionServiceImplTest {
         withdrawalRequest.setTransactionSource(TransactionSource.ATM);
         withdrawalRequest.setTransactionType(TransactionType.WITHDRAWAL);
 
-        AccountDataRequest accountDataRequest = new AccountDataRequest();
-        accountDataRequest.setCurrentBalance(new BigDecimal("500.00"));
-        when(accountService.getAccountInformationByAccountNumber("IBAN123")).thenReturn(accountDataRequest);
+        when(accountService.applyBalanceDelta("IBAN123", new BigDecimal("-100.00"))).thenReturn(new BigDecimal("400.00"));
 
         // Act
         transactionService.createWithdrawalTransaction(withdrawalRequest);
 
         // Assert
         verify(transactionRepository, times(1)).save(any(Transaction.class));
-        verify(accountService, times(1)).updateAccountBalance("IBAN123", new BigDecimal("400.00"));
+        verify(accountService, times(1)).applyBalanceDelta("IBAN123", new BigDecimal("-100.00"));
+        verify(journalRecorder, times(1)).record(any(Transaction.class), eq(new BigDecimal("-100.00")));
     }
 
     @Test
@@ -122,15 +262,31 @@ class TransactionServiceImplTest {
         withdrawalRequest.setTransactionSource(TransactionSource.ATM);
         withdrawalRequest.setTransactionType(TransactionType.WITHDRAWAL);
 
-        AccountDataRequest accountDataRequest = new AccountDataRequest();
-        accountDataRequest.setCurrentBalance(new BigDecimal("500.00"));
-        when(accountService.getAccountInformationByAccountNumber("IBAN123")).thenReturn(accountDataRequest);
+        when(accountService.applyBalanceDelta("IBAN123", new BigDecimal("-1000.00")))
+                .thenThrow(new InsufficientBalanceException("Insufficient balance"));
 
         // Act & Assert
         assertThrows(InsufficientBalanceException.class, () -> transactionService.createWithdrawalTransaction(withdrawalRequest));
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    @Test
+    void createWithdrawalTransaction_ShouldThrowException_WhenAccountDoesNotExist() {
+        // Arrange
+        DepositWithdrawalRequest withdrawalRequest = new DepositWithdrawalRequest();
+        withdrawalRequest.setIban("IBAN123");
+        withdrawalRequest.setAmount("100.00");
+        withdrawalRequest.setCurrency(CurrencyEnum.EUR);
+        withdrawalRequest.setTransactionSource(TransactionSource.ATM);
+        withdrawalRequest.setTransactionType(TransactionType.WITHDRAWAL);
+
+        when(accountService.applyBalanceDelta("IBAN123", new BigDecimal("-100.00"))).thenReturn(null);
+
+        // Act & Assert
+        assertThrows(IbanNotFoundException.class, () -> transactionService.createWithdrawalTransaction(withdrawalRequest));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
     @Test
     void createFundTransferTransaction_ShouldCreateTransactions_WhenValidRequest() {
         // Arrange
@@ -141,21 +297,58 @@ class TransactionServiceImplTest {
         fundTransferRequest.setCurrencyType(CurrencyEnum.EUR);
         fundTransferRequest.setTransactionType(TransactionType.DEBIT);
 
-        AccountDataRequest senderAccount = new AccountDataRequest();
-        senderAccount.setCurrentBalance(new BigDecimal("500.00"));
-        AccountDataRequest recipientAccount = new AccountDataRequest();
-        recipientAccount.setCurrentBalance(new BigDecimal("300.00"));
-
-        when(accountService.getAccountInformationByAccountNumber("IBAN123")).thenReturn(senderAccount);
-        when(accountService.getAccountInformationByAccountNumber("IBAN456")).thenReturn(recipientAccount);
+        when(accountService.lockAccounts(List.of("IBAN123", "IBAN456"))).thenReturn(Set.of("IBAN123", "IBAN456"));
+        when(accountService.applyBalanceDelta("IBAN123", new BigDecimal("-100.00"))).thenReturn(new BigDecimal("400.00"));
+        when(accountService.applyBalanceDelta("IBAN456", new BigDecimal("100.00"))).thenReturn(new BigDecimal("400.00"));
 
         // Act
         transactionService.createFundTransferTransaction(fundTransferRequest);
 
         // Assert
+        verify(accountService, times(1)).lockAccounts(List.of("IBAN123", "IBAN456"));
         verify(transactionRepository, times(2)).save(any(Transaction.class));
-        verify(accountService, times(1)).updateAccountBalance("IBAN123", new BigDecimal("400.00"));
-        verify(accountService, times(1)).updateAccountBalance("IBAN456", new BigDecimal("400.00"));
+        verify(accountService, times(1)).applyBalanceDelta("IBAN123", new BigDecimal("-100.00"));
+        verify(accountService, times(1)).applyBalanceDelta("IBAN456", new BigDecimal("100.00"));
+        verify(journalRecorder, times(2)).recordTransfers(anyList());
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldOnlyDebitSender_WhenRecipientIsExternal() {
+        // Arrange
+        FundTransferRequest fundTransferRequest = new FundTransferRequest();
+        fundTransferRequest.setCustomerAccountNumber("IBAN123");
+        fundTransferRequest.setTransactingAccountNumber("IBAN456");
+        fundTransferRequest.setAmount("100.00");
+        fundTransferRequest.setCurrencyType(CurrencyEnum.EUR);
+        fundTransferRequest.setTransactionType(TransactionType.DEBIT);
+
+        when(accountService.lockAccounts(List.of("IBAN123", "IBAN456"))).thenReturn(Set.of("IBAN123"));
+        when(accountService.applyBalanceDelta("IBAN123", new BigDecimal("-100.00"))).thenReturn(new BigDecimal("400.00"));
+
+        // Act
+        transactionService.createFundTransferTransaction(fundTransferRequest);
+
+        // Assert
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(accountService, never()).applyBalanceDelta(eq("IBAN456"), any(BigDecimal.class));
+    }
+
+    @Test
+    void createFundTransferTransaction_ShouldThrowException_WhenCustomerAccountDoesNotExist() {
+        // Arrange
+        FundTransferRequest fundTransferRequest = new FundTransferRequest();
+        fundTransferRequest.setCustomerAccountNumber("IBAN123");
+        fundTransferRequest.setTransactingAccountNumber("IBAN456");
+        fundTransferRequest.setAmount("100.00");
+        fundTransferRequest.setCurrencyType(CurrencyEnum.EUR);
+        fundTransferRequest.setTransactionType(TransactionType.DEBIT);
+
+        when(accountService.lockAccounts(List.of("IBAN123", "IBAN456"))).thenReturn(Set.of("IBAN456"));
+
+        // Act & Assert
+        assertThrows(IbanNotFoundException.class, () -> transactionService.createFundTransferTransaction(fundTransferRequest));
+        verify(accountService, never()).applyBalanceDelta(anyString(), any(BigDecimal.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
@@ -0,0 +1,226 @@
+package com.finadem.service;
+
+import com.finadem.configurations.TransferQueueConfig;
+import com.finadem.entity.TransferSubmission;
+import com.finadem.enums.CurrencyEnum;
+import com.finadem.enums.TransactionStatus;
+import com.finadem.enums.TransactionType;
+import com.finadem.exception.exceptions.InsufficientBalanceException;
+import com.finadem.exception.exceptions.TransferNotFoundException;
+import com.finadem.exception.exceptions.TransferQueueFullException;
+import com.finadem.exception.exceptions.TransferToSelfException;
+import com.finadem.repository.TransferSubmissionRepository;
+import com.finadem.request.FundTransferRequest;
+import com.finadem.response.TransferSubmissionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferSubmissionServiceImplTest {
+
+    @Mock
+    private TransferSubmissionRepository transferSubmissionRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransferQueueConfig transferQueueConfig;
+
+    // Stands in for the table, so workers read back what submit stored
+    private final Map<String, TransferSubmission> submissions = new ConcurrentHashMap<>();
+
+    private TransferSubmissionServiceImpl transferSubmissionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transferQueueConfig.getWorkers()).thenReturn(1);
+        when(transferQueueConfig.getQueueCapacity()).thenReturn(1);
+        when(transferQueueConfig.getRetryAfterSeconds()).thenReturn(2L);
+        when(transferSubmissionRepository.save(any())).thenAnswer(invocation -> {
+            TransferSubmission submission = invocation.getArgument(0);
+            submissions.put(submission.getTransferId(), submission);
+            return submission;
+        });
+        when(transferSubmissionRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(submissions.get(invocation.<String>getArgument(0))));
+        when(transferSubmissionRepository.claim(anyString())).thenAnswer(invocation ->
+                moveStatus(invocation.getArgument(0), TransactionStatus.PENDING, TransactionStatus.PROCESSING));
+        when(transferSubmissionRepository.complete(anyString(), any(), any(), any())).thenAnswer(invocation ->
+                moveStatus(invocation.getArgument(0), TransactionStatus.PROCESSING, invocation.getArgument(1)));
+        // Books and runs the work of the booking's transaction, as the engines do
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(transactionService).createFundTransferTransaction(any(), any());
+        transferSubmissionService = new TransferSubmissionServiceImpl(transferSubmissionRepository, transactionService,
+                transferQueueConfig, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferSubmissionService.stop();
+    }
+
+    // Conditional update of one row, as the repository's queries do
+    private synchronized int moveStatus(String transferId, TransactionStatus from, TransactionStatus to) {
+        TransferSubmission submission = submissions.get(transferId);
+        if (submission == null || submission.getStatus() != from) {
+            return 0;
+        }
+        submission.setStatus(to);
+        return 1;
+    }
+
+    private FundTransferRequest transfer(String customerIban, String counterpartyIban) {
+        return FundTransferRequest.builder()
+                .customerAccountNumber(customerIban)
+                .transactingAccountNumber(counterpartyIban)
+                .transactingAccountBIC("DEUTDEFF")
+                .amount("25.00")
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEBIT)
+                .build();
+    }
+
+    @Test
+    void submit_ShouldStorePendingTransfer_AndBookItOnWorker() {
+        TransferSubmissionStatus submitted = transferSubmissionService.submit(transfer("DE01", "DE02"));
+
+        assertEquals(TransactionStatus.PENDING, submitted.status());
+        assertNotNull(submitted.submittedAt());
+        verify(transactionService, timeout(5_000)).createFundTransferTransaction(eq(transfer("DE01", "DE02")), any());
+        verify(transferSubmissionRepository, timeout(5_000)).complete(eq(submitted.transferId()), eq(TransactionStatus.SUCCESS), isNull(), any());
+    }
+
+    @Test
+    void submit_ShouldRecordFailure_WhenTransferIsRefused() {
+        doThrow(new InsufficientBalanceException("Insufficient balance")).when(transactionService).createFundTransferTransaction(any(), any());
+
+        TransferSubmissionStatus submitted = transferSubmissionService.submit(transfer("DE01", "DE02"));
+
+        verify(transferSubmissionRepository, timeout(5_000)).complete(eq(submitted.transferId()), eq(TransactionStatus.FAILED), eq("Insufficient balance"), any());
+    }
+
+    @Test
+    void submit_ShouldRecordSuccessOnlyInBookingTransaction() throws Exception {
+        CountDownLatch booked = new CountDownLatch(1);
+        // A booking whose transaction never committed, e.g. cut short by a crash
+        doAnswer(invocation -> {
+            booked.countDown();
+            return null;
+        }).when(transactionService).createFundTransferTransaction(any(), any());
+
+        transferSubmissionService.submit(transfer("DE01", "DE02"));
+
+        assertTrue(booked.await(5, TimeUnit.SECONDS));
+        verify(transferSubmissionRepository, after(200).never()).complete(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void submit_ShouldRejectInvalidTransfer_WithoutQueueingIt() {
+        assertThrows(TransferToSelfException.class, () -> transferSubmissionService.submit(transfer("DE01", "DE01")));
+
+        verify(transferSubmissionRepository, never()).save(any());
+    }
+
+    @Test
+    void submit_ShouldApplyBackpressure_WhenQueueIsFull() throws Exception {
+        CountDownLatch booking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            booking.countDown();
+            release.await();
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(transactionService).createFundTransferTransaction(any(), any());
+
+        // One transfer on the worker, one waiting for it
+        transferSubmissionService.submit(transfer("DE01", "DE02"));
+        assertTrue(booking.await(5, TimeUnit.SECONDS));
+        transferSubmissionService.submit(transfer("DE03", "DE04"));
+        TransferQueueFullException full = assertThrows(TransferQueueFullException.class,
+                () -> transferSubmissionService.submit(transfer("DE05", "DE06")));
+        release.countDown();
+
+        assertEquals(2, full.getRetryAfterSeconds());
+        verify(transferSubmissionRepository, timeout(5_000).times(2)).complete(anyString(), eq(TransactionStatus.SUCCESS), isNull(), any());
+        transferSubmissionService.submit(transfer("DE05", "DE06"));
+        verify(transferSubmissionRepository, timeout(5_000).times(3)).complete(anyString(), eq(TransactionStatus.SUCCESS), isNull(), any());
+    }
+
+    @Test
+    void submit_ShouldNotBookTransfer_WhenWorkerClaimIsLost() throws Exception {
+        CountDownLatch booked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            booked.countDown();
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(transactionService).createFundTransferTransaction(any(), any());
+        when(transferSubmissionRepository.complete(anyString(), eq(TransactionStatus.SUCCESS), any(), any())).thenReturn(0);
+
+        TransferSubmissionStatus submitted = transferSubmissionService.submit(transfer("DE01", "DE02"));
+
+        // The booking's transaction rolls back instead of committing without the outcome
+        assertTrue(booked.await(5, TimeUnit.SECONDS));
+        verify(transferSubmissionRepository, timeout(5_000)).complete(eq(submitted.transferId()), eq(TransactionStatus.FAILED), anyString(), any());
+    }
+
+    @Test
+    void resumePending_ShouldBookTransfersLeftPendingByLastRun() throws Exception {
+        submissions.put("left-pending", TransferSubmission.builder()
+                .transferId("left-pending")
+                .customerAccountNumber("DE01")
+                .transactingAccountNumber("DE02")
+                .transactingAccountBIC("DEUTDEFF")
+                .amount("25.00")
+                .currencyType(CurrencyEnum.EUR)
+                .transactionType(TransactionType.DEBIT)
+                .status(TransactionStatus.PENDING)
+                .build());
+        when(transferSubmissionRepository.findIdsByStatus(TransactionStatus.PENDING)).thenReturn(List.of("left-pending"));
+
+        transferSubmissionService.start();
+
+        ArgumentCaptor<FundTransferRequest> resumed = ArgumentCaptor.forClass(FundTransferRequest.class);
+        verify(transactionService, timeout(5_000)).createFundTransferTransaction(resumed.capture(), any());
+        assertEquals(transfer("DE01", "DE02"), resumed.getValue());
+        verify(transferSubmissionRepository).releaseClaims();
+        verify(transferSubmissionRepository, timeout(5_000)).complete(eq("left-pending"), eq(TransactionStatus.SUCCESS), isNull(), any());
+    }
+
+    @Test
+    void resumePending_ShouldBookTransferOnce_WhenItIsAlsoQueuedBySubmit() throws Exception {
+        // Stubbed up front, the worker may already be calling the repository
+        when(transferSubmissionRepository.findIdsByStatus(TransactionStatus.PENDING)).thenAnswer(invocation -> List.copyOf(submissions.keySet()));
+        TransferSubmissionStatus submitted = transferSubmissionService.submit(transfer("DE01", "DE02"));
+
+        // Still pending or not, the transfer the web server accepted is queued again
+        transferSubmissionService.resumePending();
+
+        verify(transferSubmissionRepository, timeout(5_000).times(2)).claim(submitted.transferId());
+        verify(transactionService, after(200).times(1)).createFundTransferTransaction(any(), any());
+        assertEquals(TransactionStatus.SUCCESS, submissions.get(submitted.transferId()).getStatus());
+    }
+
+    @Test
+    void getStatus_ShouldThrowException_WhenTransferIsUnknown() {
+        assertThrows(TransferNotFoundException.class, () -> transferSubmissionService.getStatus("unknown"));
+    }
+}